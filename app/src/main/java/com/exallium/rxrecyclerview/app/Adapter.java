@@ -32,10 +32,11 @@ import android.widget.TextView;
 import com.exallium.rxrecyclerview.app.model.ObjectModel;
 import com.exallium.rxrecyclerview.lib.element.EventElement;
 import com.exallium.rxrecyclerview.lib.event.Event;
-import com.exallium.rxrecyclerview.lib.RxRecyclerViewAdapter;
+import com.exallium.rxrecyclerview.lib.event.LongEvent;
+import com.exallium.rxrecyclerview.lib.LongRxRecyclerViewAdapter;
 import rx.Observable;
 
-public class Adapter extends RxRecyclerViewAdapter<Long, String, Adapter.ViewHolder> {
+public class Adapter extends LongRxRecyclerViewAdapter<String, Adapter.ViewHolder> {
     private static final String TAG = Adapter.class.getSimpleName();
 
     public Adapter(Observable<EventElement<Long, String>> observable) {
@@ -62,6 +63,13 @@ public class Adapter extends RxRecyclerViewAdapter<Long, String, Adapter.ViewHol
         holder.onBind(element.getData().getKey(), dataString, element.getViewType() >> EventElement.MASK_SHIFT);
     }
 
+    @Override
+    protected Object getChangePayload(EventElement<Long, String> oldElement, EventElement<Long, String> newElement) {
+        // Refreshing an item with the same value shouldn't flash it
+        final String oldValue = oldElement.getData().getValue();
+        return oldValue != null && oldValue.equals(newElement.getData().getValue()) ? UNCHANGED : null;
+    }
+
     @Override
     public ViewHolder onCreateViewHolder(ViewGroup parent, int viewType) {
         return new ViewHolder(new TextView(parent.getContext()));
@@ -112,7 +120,7 @@ public class Adapter extends RxRecyclerViewAdapter<Long, String, Adapter.ViewHol
 
         @Override
         public void onClick(View v) {
-            ObjectModel.getInstance().getEventObserver().onNext(new Event<>(Event.TYPE.REMOVE, key, value));
+            ObjectModel.getInstance().getEventObserver().onNext(new LongEvent<>(Event.TYPE.REMOVE, key, value));
         }
     }
 }
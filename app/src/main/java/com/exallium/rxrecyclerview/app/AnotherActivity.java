@@ -28,12 +28,13 @@ import android.app.Activity;
 import android.os.Bundle;
 import com.exallium.rxrecyclerview.app.model.ObjectModel;
 import com.exallium.rxrecyclerview.lib.event.Event;
+import com.exallium.rxrecyclerview.lib.event.LongEvent;
 
 public class AnotherActivity extends Activity {
     @Override
     protected void onCreate(Bundle savedInstanceState) {
         super.onCreate(savedInstanceState);
         setContentView(R.layout.activity_another);
-        ObjectModel.getInstance().getEventObserver().onNext(new Event<>(Event.TYPE.ADD, 100L, "Another Item"));
+        ObjectModel.getInstance().getEventObserver().onNext(new LongEvent<>(Event.TYPE.ADD, 100L, "Another Item"));
     }
 }
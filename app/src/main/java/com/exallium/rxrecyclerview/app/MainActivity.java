@@ -34,8 +34,9 @@ import butterknife.ButterKnife;
 import butterknife.InjectView;
 import com.exallium.rxrecyclerview.app.model.ObjectModel;
 import com.exallium.rxrecyclerview.app.rx.transformers.IdAggregator;
-import com.exallium.rxrecyclerview.lib.GroupComparator;
+import com.exallium.rxrecyclerview.lib.LongGroupComparator;
 import com.exallium.rxrecyclerview.lib.event.Event;
+import com.exallium.rxrecyclerview.lib.event.LongEvent;
 import com.exallium.rxrecyclerview.lib.operators.ElementGenerationOperator;
 import rx.Observable;
 import rx.android.view.OnClickEvent;
@@ -61,7 +62,7 @@ public class MainActivity extends Activity {
     @InjectView(R.id.anotherActivityButton)
     Button anotherActivityButton;
 
-    private final GroupComparator<Long, String> adapterComparator = new GroupComparator<Long, String>() {
+    private final LongGroupComparator<String> adapterComparator = new LongGroupComparator<String>() {
         @Override
         public String getGroupKey(Event<Long, String> longStringEvent) {
             if (longStringEvent.getKey() != null)
@@ -71,12 +72,7 @@ public class MainActivity extends Activity {
 
         @Override
         public Event<Long, String> getEmptyEvent(Event.TYPE eventType) {
-            return new Event<>(eventType, 0L, "EMPTY");
-        }
-
-        @Override
-        public int compare(Event<Long, String> lhs, Event<Long, String> rhs) {
-            return lhs.getKey().compareTo(rhs.getKey());
+            return new LongEvent<>(eventType, 0L, "EMPTY");
         }
     };
 
@@ -95,7 +91,7 @@ public class MainActivity extends Activity {
         Observable<Event<Long, String>> createEvents = Observable.zip(addClicks, idAggregator, new Func2<OnClickEvent, Long, Event<Long, String>>() {
             @Override
             public Event<Long, String> call(OnClickEvent onClickEvent, Long key) {
-                return new Event<>(Event.TYPE.ADD, key, "Item");
+                return new LongEvent<>(Event.TYPE.ADD, key, "Item");
             }
         });
 
@@ -103,7 +99,7 @@ public class MainActivity extends Activity {
             @Override
             public Event<Long, String> call(OnClickEvent onClickEvent) {
                 // send a new event saying position 0 string becomes random number
-                return new Event<>(Event.TYPE.ADD, 1L, Integer.toString(random.nextInt()));
+                return new LongEvent<>(Event.TYPE.ADD, 1L, Integer.toString(random.nextInt()));
             }
         });
 
@@ -114,6 +110,7 @@ public class MainActivity extends Activity {
                 .getEventObservable()
                 .lift(new ElementGenerationOperator.Builder<>(adapterComparator)
                         .hasHeader(true).hasEmpty(true).build()));
+        adapter.setStableIds();
         recyclerView.setAdapter(adapter);
 
         ViewObservable.clicks(anotherActivityButton).forEach(new Action1<OnClickEvent>() {
@@ -24,15 +24,19 @@
 
 package com.exallium.rxrecyclerview.app.model;
 
+import com.exallium.rxrecyclerview.lib.event.BulkEvent;
 import com.exallium.rxrecyclerview.lib.event.Event;
+import com.exallium.rxrecyclerview.lib.event.LongEvent;
 import rx.Observable;
 import rx.Observer;
 import rx.functions.Action1;
 import rx.functions.Func1;
 import rx.subjects.PublishSubject;
 
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 
 /**
@@ -51,12 +55,18 @@ public final class ObjectModel {
     // My... "database"...
     public Map<Long, String> itemMap = Collections.synchronizedMap(new LinkedHashMap<Long, String>());
 
-    // When I get an item, I want to add it to my itemMap, and then transmit that item down the road.
+    // Whatever is already in my itemMap goes down the road in one BulkEvent, so it's loaded in one pass.
     private Observable<Event<Long, String>> getEventCacheObservable() {
-        return Observable.from(itemMap.entrySet()).map(new Func1<Map.Entry<Long, String>, Event<Long, String>>() {
+        return Observable.just(itemMap).map(new Func1<Map<Long, String>, Event<Long, String>>() {
             @Override
-            public Event<Long, String> call(Map.Entry<Long, String> longStringEntry) {
-                return new Event<>(Event.TYPE.ADD, longStringEntry.getKey(), longStringEntry.getValue());
+            public Event<Long, String> call(Map<Long, String> map) {
+                List<Event<Long, String>> events;
+                synchronized (map) {
+                    events = new ArrayList<>(map.size());
+                    for (Map.Entry<Long, String> entry : map.entrySet())
+                        events.add(new LongEvent<>(Event.TYPE.ADD, entry.getKey(), entry.getValue()));
+                }
+                return new BulkEvent<>(events);
             }
         });
     }
@@ -0,0 +1,71 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2015 Alex Hart
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.exallium.rxrecyclerview.benchmark;
+
+import com.exallium.rxrecyclerview.lib.GroupComparator;
+import com.exallium.rxrecyclerview.lib.element.EventElement;
+import com.exallium.rxrecyclerview.lib.event.Event;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of EventElement.compareTo, which the sorted model calls O(log n) times per operation.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class CompareBenchmark {
+
+    private static final int ELEMENTS = 1024;
+
+    @Param({"firstDigit", "singleGroup", "insertionOrder"})
+    public String comparator;
+
+    private EventElement<Long, String>[] elements;
+
+    @Setup
+    @SuppressWarnings("unchecked")
+    public void setUp() {
+        GroupComparator<Long, String> groupComparator = Fixtures.comparator(comparator);
+        Random random = new Random(42);
+        elements = new EventElement[ELEMENTS + 1];
+        for (int i = 0; i < elements.length; i++) {
+            long key = 1 + (random.nextLong() & Long.MAX_VALUE) % 1000000;
+            elements[i] = new EventElement<>(new Event<>(Event.TYPE.ADD, key, "Item"), groupComparator);
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ELEMENTS)
+    public int compare() {
+        int sum = 0;
+        for (int i = 0; i < ELEMENTS; i++) {
+            sum += elements[i].compareTo(elements[i + 1]);
+        }
+        return sum;
+    }
+}
@@ -0,0 +1,129 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2015 Alex Hart
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.exallium.rxrecyclerview.benchmark;
+
+import com.exallium.rxrecyclerview.lib.element.EventElement;
+import com.exallium.rxrecyclerview.lib.event.Event;
+import com.exallium.rxrecyclerview.lib.event.LongEvent;
+import com.exallium.rxrecyclerview.lib.operators.ElementGenerationOperator;
+import org.openjdk.jmh.annotations.*;
+import rx.Subscriber;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Steady state allocation of ElementGenerationOperator on a feed of updates to keys it already
+ * holds.  Events are made up front and group keys are constants, so whatever is allocated is
+ * allocated by the operator.  Run with the GC profiler and read gc.alloc.rate.norm:
+ * ./gradlew :benchmark:jmh -Pjmh.include=ElementAllocationBenchmark -Pjmh.profilers=gc
+ *
+ *  * update  - every event carries a new value, which needs a new data element
+ *  * resend  - every event is the very Event the key already holds
+ *  * regroup - every event empties a group or starts it again, with headers and footers
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class ElementAllocationBenchmark {
+
+    private static final int KEYS = 512;
+
+    @Param({"update", "resend", "regroup"})
+    public String workload;
+
+    @Param({"boxed", "primitive"})
+    public String keys;
+
+    private Subscriber<? super Event<Long, String>> input;
+    private Event<Long, String>[] events;
+    // Kept so that the elements escape, as they would into a model
+    private EventElement<Long, String> last;
+
+    @Setup
+    @SuppressWarnings("unchecked")
+    public void setUp() {
+        ElementGenerationOperator<Long, String> operator =
+                new ElementGenerationOperator.Builder<>(Fixtures.lastDigitLongComparator())
+                        .hasHeader(true).hasFooter(true).hasEmpty(true).build();
+        input = operator.call(new Subscriber<EventElement<Long, String>>() {
+            @Override
+            public void onCompleted() { }
+
+            @Override
+            public void onError(Throwable e) { }
+
+            @Override
+            public void onNext(EventElement<Long, String> element) {
+                last = element;
+            }
+        });
+        input.onStart();
+
+        final String[] values = {"Item", "Other"};
+        events = new Event[KEYS * 2];
+        for (int i = 0; i < KEYS; i++) {
+            // Keys ending in 0 are kept alone in their group, for regroup
+            final long key = workload.equals("regroup") ? i * 10 : i * 10 + 1 + i % 9;
+            final Event<Long, String> initial = event(Event.TYPE.ADD, key, values[0]);
+            input.onNext(initial);
+            switch (workload) {
+                case "update":
+                    events[i] = event(Event.TYPE.ADD, key, values[1]);
+                    events[KEYS + i] = event(Event.TYPE.ADD, key, values[0]);
+                    break;
+                case "resend":
+                    events[i] = initial;
+                    events[KEYS + i] = initial;
+                    break;
+                case "regroup":
+                    events[i] = event(Event.TYPE.REMOVE, key, values[0]);
+                    events[KEYS + i] = event(Event.TYPE.ADD, key, values[0]);
+                    break;
+            }
+        }
+        if (workload.equals("regroup")) {
+            // Alternate each key's removal and return, so groups empty and start again every time
+            Event<Long, String>[] interleaved = new Event[KEYS * 2];
+            for (int i = 0; i < KEYS; i++) {
+                interleaved[i * 2] = events[i];
+                interleaved[i * 2 + 1] = events[KEYS + i];
+            }
+            events = interleaved;
+        }
+    }
+
+    private Event<Long, String> event(Event.TYPE type, long key, String value) {
+        return keys.equals("primitive") ? new LongEvent<>(type, key, value) : new Event<>(type, key, value);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(KEYS * 2)
+    public EventElement<Long, String> generate() {
+        for (Event<Long, String> event : events) {
+            input.onNext(event);
+        }
+        return last;
+    }
+}
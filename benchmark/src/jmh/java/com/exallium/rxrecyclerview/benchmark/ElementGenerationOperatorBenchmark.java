@@ -0,0 +1,94 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2015 Alex Hart
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.exallium.rxrecyclerview.benchmark;
+
+import com.exallium.rxrecyclerview.lib.element.EventElement;
+import com.exallium.rxrecyclerview.lib.event.Event;
+import com.exallium.rxrecyclerview.lib.operators.ElementGenerationOperator;
+import org.openjdk.jmh.annotations.*;
+import rx.Subscriber;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput of ElementGenerationOperator, driven directly rather than through an Observable.
+ * Every key is added and then removed again, so each invocation opens and closes every group.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class ElementGenerationOperatorBenchmark {
+
+    private static final int KEYS = 512;
+
+    @Param({"false", "true"})
+    public boolean hasDecorations;
+
+    @Param({"firstDigit", "insertionOrder"})
+    public String comparator;
+
+    private Subscriber<? super Event<Long, String>> input;
+    private final Event<Long, String>[] events = newEvents();
+    private int emitted;
+
+    @SuppressWarnings("unchecked")
+    private static Event<Long, String>[] newEvents() {
+        Event<Long, String>[] events = new Event[KEYS * 2];
+        for (int i = 0; i < KEYS; i++) {
+            events[i] = new Event<>(Event.TYPE.ADD, (long) i * 7919, "Item");
+            events[KEYS + i] = new Event<>(Event.TYPE.REMOVE, (long) i * 7919, "Item");
+        }
+        return events;
+    }
+
+    @Setup
+    public void setUp() {
+        ElementGenerationOperator<Long, String> operator =
+                new ElementGenerationOperator.Builder<>(Fixtures.comparator(comparator))
+                        .hasHeader(hasDecorations).hasFooter(hasDecorations).hasEmpty(hasDecorations).build();
+        input = operator.call(new Subscriber<EventElement<Long, String>>() {
+            @Override
+            public void onCompleted() { }
+
+            @Override
+            public void onError(Throwable e) { }
+
+            @Override
+            public void onNext(EventElement<Long, String> element) {
+                emitted++;
+            }
+        });
+        input.onStart();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(KEYS * 2)
+    public int generate() {
+        for (Event<Long, String> event : events) {
+            input.onNext(event);
+        }
+        return emitted;
+    }
+}
@@ -0,0 +1,152 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2015 Alex Hart
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.exallium.rxrecyclerview.benchmark;
+
+import com.exallium.rxrecyclerview.lib.GroupComparator;
+import com.exallium.rxrecyclerview.lib.element.EventElement;
+import com.exallium.rxrecyclerview.lib.event.Event;
+import com.exallium.rxrecyclerview.lib.event.LongEvent;
+import com.exallium.rxrecyclerview.lib.model.ElementModel;
+import com.exallium.rxrecyclerview.lib.model.LongElementIndex;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The ADD / update / REMOVE logic which RxRecyclerViewAdapter runs for every element, at
+ * different model sizes, reporting into a stub sink instead of a RecyclerView.
+ *
+ * The model holds the even keys 0, 2, 4...  Elements are created up front so that only the
+ * model's work is measured.
+ *
+ * With keys=primitive the model uses LongEvents, a LongElementIndex and a LongGroupComparator,
+ * as LongRxRecyclerViewAdapter does.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class ElementModelBenchmark {
+
+    private static final int OPERATIONS = 1024;
+
+    @Param({"1000", "100000", "1000000"})
+    public int size;
+
+    @Param({"boxed", "primitive"})
+    public String keys;
+
+    private ElementModel<Long, String> model;
+    private final Fixtures.CountingChangeSink sink = new Fixtures.CountingChangeSink();
+
+    private EventElement<Long, String>[] adds;
+    private EventElement<Long, String>[] removes;
+    private EventElement<Long, String>[] updates;
+    private EventElement<Long, String>[] present;
+    private int[] positions;
+
+    @Setup
+    @SuppressWarnings("unchecked")
+    public void setUp() {
+        final boolean isPrimitive = keys.equals("primitive");
+        GroupComparator<Long, String> groupComparator = isPrimitive
+                ? Fixtures.firstDigitLongComparator() : Fixtures.firstDigitComparator();
+        model = isPrimitive ? new ElementModel<>(new LongElementIndex<String>()) : new ElementModel<Long, String>();
+        for (long key = 0; key < size * 2L; key += 2) {
+            model.apply(new EventElement<>(event(Event.TYPE.ADD, key, "Item"), groupComparator), sink);
+        }
+
+        Random random = new Random(42);
+        adds = new EventElement[OPERATIONS];
+        removes = new EventElement[OPERATIONS];
+        updates = new EventElement[OPERATIONS];
+        present = new EventElement[OPERATIONS];
+        positions = new int[OPERATIONS];
+        for (int i = 0; i < OPERATIONS; i++) {
+            long absent = random.nextInt(size) * 2L + 1;
+            long existing = random.nextInt(size) * 2L;
+            adds[i] = new EventElement<>(event(Event.TYPE.ADD, absent, "Item"), groupComparator);
+            removes[i] = new EventElement<>(event(Event.TYPE.REMOVE, absent, "Item"), groupComparator);
+            updates[i] = new EventElement<>(event(Event.TYPE.ADD, existing, "Updated"), groupComparator);
+            positions[i] = random.nextInt(size);
+            present[i] = model.get(positions[i]);
+        }
+    }
+
+    private Event<Long, String> event(Event.TYPE type, long key, String value) {
+        return keys.equals("primitive") ? new LongEvent<>(type, key, value) : new Event<>(type, key, value);
+    }
+
+    /**
+     * One insert followed by one remove of a new key.
+     */
+    @Benchmark
+    @OperationsPerInvocation(OPERATIONS)
+    public int addThenRemove() {
+        for (int i = 0; i < OPERATIONS; i++) {
+            model.apply(adds[i], sink);
+            model.apply(removes[i], sink);
+        }
+        return sink.count;
+    }
+
+    /**
+     * An ADD for an existing key, which replaces the element in place.
+     */
+    @Benchmark
+    @OperationsPerInvocation(OPERATIONS)
+    public int update() {
+        for (int i = 0; i < OPERATIONS; i++) {
+            model.apply(updates[i], sink);
+        }
+        return sink.count;
+    }
+
+    /**
+     * getItemAt, which RecyclerView calls for every bind and view type lookup.
+     */
+    @Benchmark
+    @OperationsPerInvocation(OPERATIONS)
+    public int getItemAt() {
+        int hash = 0;
+        for (int i = 0; i < OPERATIONS; i++) {
+            hash += model.get(positions[i]).getViewType();
+        }
+        return hash;
+    }
+
+    /**
+     * getIndexOf for elements in the model.
+     */
+    @Benchmark
+    @OperationsPerInvocation(OPERATIONS)
+    public int getIndexOf() {
+        int sum = 0;
+        for (int i = 0; i < OPERATIONS; i++) {
+            sum += model.indexOf(present[i]);
+        }
+        return sum;
+    }
+}
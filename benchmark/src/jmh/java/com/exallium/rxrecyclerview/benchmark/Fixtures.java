@@ -0,0 +1,161 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2015 Alex Hart
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.exallium.rxrecyclerview.benchmark;
+
+import com.exallium.rxrecyclerview.lib.GroupComparator;
+import com.exallium.rxrecyclerview.lib.InsertionOrderComparator;
+import com.exallium.rxrecyclerview.lib.LongGroupComparator;
+import com.exallium.rxrecyclerview.lib.event.Event;
+import com.exallium.rxrecyclerview.lib.event.LongEvent;
+import com.exallium.rxrecyclerview.lib.model.ChangeSink;
+
+/**
+ * Comparators and sinks shared by the benchmarks.
+ */
+final class Fixtures {
+
+    private Fixtures() { }
+
+    /**
+     * Groups by the first digit of the key, like the sample app.
+     */
+    static GroupComparator<Long, String> firstDigitComparator() {
+        return new GroupComparator<Long, String>() {
+            @Override
+            public String getGroupKey(Event<Long, String> event) {
+                return event.getKey().toString().substring(0, 1);
+            }
+
+            @Override
+            public Event<Long, String> getEmptyEvent(Event.TYPE eventType) {
+                return new Event<>(eventType, -1L, null);
+            }
+
+            @Override
+            public int compare(Event<Long, String> lhs, Event<Long, String> rhs) {
+                return lhs.getKey().compareTo(rhs.getKey());
+            }
+        };
+    }
+
+    /**
+     * firstDigitComparator for LongEvents, comparing keys as primitive longs.
+     */
+    static GroupComparator<Long, String> firstDigitLongComparator() {
+        return new LongGroupComparator<String>() {
+            @Override
+            public String getGroupKey(Event<Long, String> event) {
+                return Long.toString(LongEvent.keyOf(event)).substring(0, 1);
+            }
+
+            @Override
+            public Event<Long, String> getEmptyEvent(Event.TYPE eventType) {
+                return new LongEvent<>(eventType, -1L, null);
+            }
+        };
+    }
+
+    /**
+     * Puts everything in the same group.
+     */
+    static GroupComparator<Long, String> singleGroupComparator() {
+        return new GroupComparator<Long, String>() {
+            @Override
+            public String getGroupKey(Event<Long, String> event) {
+                return "A";
+            }
+
+            @Override
+            public Event<Long, String> getEmptyEvent(Event.TYPE eventType) {
+                return new Event<>(eventType, -1L, null);
+            }
+
+            @Override
+            public int compare(Event<Long, String> lhs, Event<Long, String> rhs) {
+                return lhs.getKey().compareTo(rhs.getKey());
+            }
+        };
+    }
+
+    private static final String[] DIGITS = {"0", "1", "2", "3", "4", "5", "6", "7", "8", "9"};
+
+    /**
+     * Groups by the last digit of the key, without allocating a group key.
+     */
+    static GroupComparator<Long, String> lastDigitLongComparator() {
+        return new LongGroupComparator<String>() {
+            @Override
+            public String getGroupKey(Event<Long, String> event) {
+                final long key = LongEvent.keyOf(event);
+                return key < 0 ? "-" : DIGITS[(int) (key % 10)];
+            }
+
+            @Override
+            public Event<Long, String> getEmptyEvent(Event.TYPE eventType) {
+                return new LongEvent<>(eventType, -1L, null);
+            }
+        };
+    }
+
+    static GroupComparator<Long, String> comparator(String name) {
+        switch (name) {
+            case "firstDigit":
+                return firstDigitComparator();
+            case "singleGroup":
+                return singleGroupComparator();
+            case "insertionOrder":
+                return new InsertionOrderComparator<>();
+            default:
+                throw new IllegalArgumentException(name);
+        }
+    }
+
+    /**
+     * Stands in for RecyclerView.Adapter.  Only counts what it is told.
+     */
+    static final class CountingChangeSink implements ChangeSink {
+        int count;
+
+        @Override
+        public void onInserted(int position, int count) {
+            this.count += count;
+        }
+
+        @Override
+        public void onRemoved(int position, int count) {
+            this.count += count;
+        }
+
+        @Override
+        public void onMoved(int fromPosition, int toPosition) {
+            count++;
+        }
+
+        @Override
+        public void onChanged(int position, int count, Object payload) {
+            this.count += count;
+        }
+    }
+}
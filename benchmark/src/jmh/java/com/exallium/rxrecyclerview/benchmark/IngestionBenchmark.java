@@ -0,0 +1,134 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2015 Alex Hart
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.exallium.rxrecyclerview.benchmark;
+
+import com.exallium.rxrecyclerview.lib.event.Event;
+import com.exallium.rxrecyclerview.lib.ingest.EventRingBuffer;
+import org.openjdk.jmh.annotations.*;
+import rx.Observer;
+import rx.Scheduler;
+import rx.Subscriber;
+import rx.Subscription;
+import rx.schedulers.Schedulers;
+import rx.subjects.PublishSubject;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Events per millisecond from many producer threads into a single consumer, through an
+ * EventRingBuffer or through a serialized PublishSubject as ObjectModel uses.  Producers retry
+ * when the ring buffer is full, so both measure the rate the consumer is actually fed at.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class IngestionBenchmark {
+
+    private static final int EVENTS = 1 << 16;
+
+    @Param({"1", "2", "4", "8", "16"})
+    public int producers;
+
+    @Param({"ringBuffer", "serializedSubject"})
+    public String ingestion;
+
+    private ExecutorService producerThreads;
+    private ExecutorService consumerThread;
+    private Subscription subscription;
+    private EventRingBuffer<Long, String> ringBuffer;
+    private Observer<Event<Long, String>> subject;
+    private final AtomicLong consumed = new AtomicLong();
+    private long target;
+
+    private final Event<Long, String> event = new Event<>(Event.TYPE.ADD, 1L, "Item");
+
+    @Setup
+    public void setUp() {
+        producerThreads = Executors.newFixedThreadPool(producers);
+        consumerThread = Executors.newSingleThreadExecutor();
+        final Scheduler consumerScheduler = Schedulers.from(consumerThread);
+        final Subscriber<Event<Long, String>> counter = new Subscriber<Event<Long, String>>() {
+            @Override
+            public void onCompleted() { }
+
+            @Override
+            public void onError(Throwable e) { }
+
+            @Override
+            public void onNext(Event<Long, String> event) {
+                consumed.lazySet(consumed.get() + 1);
+            }
+        };
+        if ("ringBuffer".equals(ingestion)) {
+            ringBuffer = new EventRingBuffer<>(4096);
+            subscription = ringBuffer.observe(consumerScheduler).subscribe(counter);
+        } else {
+            PublishSubject<Event<Long, String>> publishSubject = PublishSubject.create();
+            subject = publishSubject.toSerialized();
+            subscription = publishSubject.onBackpressureBuffer().observeOn(consumerScheduler).subscribe(counter);
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        subscription.unsubscribe();
+        producerThreads.shutdownNow();
+        consumerThread.shutdownNow();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(EVENTS)
+    public long ingest() throws Exception {
+        target += EVENTS;
+        final int perProducer = EVENTS / producers;
+        final Future<?>[] running = new Future<?>[producers];
+        for (int p = 0; p < producers; p++) {
+            running[p] = producerThreads.submit(new Callable<Void>() {
+                @Override
+                public Void call() {
+                    for (int i = 0; i < perProducer; i++) {
+                        if (ringBuffer != null) {
+                            while (!ringBuffer.offer(event))
+                                Thread.yield();
+                        } else {
+                            subject.onNext(event);
+                        }
+                    }
+                    return null;
+                }
+            });
+        }
+        for (Future<?> future : running)
+            future.get();
+        while (consumed.get() < target)
+            Thread.yield();
+        return consumed.get();
+    }
+}
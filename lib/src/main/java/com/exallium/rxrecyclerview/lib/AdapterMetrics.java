@@ -0,0 +1,100 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2015 Alex Hart
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.exallium.rxrecyclerview.lib;
+
+/**
+ * Receives measurements from an RxRecyclerViewAdapter.  Pass one to AdapterOptions.Builder.metrics.
+ *
+ * onEventsReceived is called on whatever thread the adapter's Observable emits on.  When the model
+ * is applied on a background scheduler, onQueueDepth and onModelSize are called on that scheduler.
+ * Everything else is called on the main thread.  Calls are made inline, so keep them cheap.
+ *
+ * The default, NONE, is never called at all, and the adapter does not read the clock for it.
+ */
+public interface AdapterMetrics {
+
+    enum NOTIFICATION {
+        INSERTED,
+        REMOVED,
+        MOVED,
+        CHANGED,
+    }
+
+    AdapterMetrics NONE = new AdapterMetrics() {
+        @Override
+        public void onEventsReceived(int count) { }
+
+        @Override
+        public void onQueueDepth(int depth) { }
+
+        @Override
+        public void onEventsApplied(int count, long latencyNanos) { }
+
+        @Override
+        public void onNotification(NOTIFICATION kind, int count) { }
+
+        @Override
+        public void onModelSize(int size) { }
+
+        @Override
+        public void onMainThreadTime(long nanos) { }
+    };
+
+    /**
+     * @param count The number of elements which just entered the adapter's Observable
+     */
+    void onEventsReceived(int count);
+
+    /**
+     * @param depth The number of elements which were received but are still waiting to be applied,
+     *              sampled each time the adapter takes elements to apply
+     */
+    void onQueueDepth(int depth);
+
+    /**
+     * @param count        The number of elements which were applied and notified together
+     * @param latencyNanos The time from the adapter's subscriber receiving them to RecyclerView
+     *                     being notified of them
+     */
+    void onEventsApplied(int count, long latencyNanos);
+
+    /**
+     * @param kind  The kind of notification RecyclerView was given
+     * @param count The number of items it covered
+     */
+    void onNotification(NOTIFICATION kind, int count);
+
+    /**
+     * @param size The size of the model after applying elements
+     */
+    void onModelSize(int size);
+
+    /**
+     * Reported once per pass the adapter makes on the main thread, of which there is usually at
+     * most one per frame.
+     * @param nanos The time the pass took
+     */
+    void onMainThreadTime(long nanos);
+}
@@ -0,0 +1,254 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2015 Alex Hart
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.exallium.rxrecyclerview.lib;
+
+import rx.Scheduler;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Optional behaviour for RxRecyclerViewAdapter.  The defaults match the original adapter, which
+ * applies and notifies every element on its own as soon as it arrives.
+ */
+public final class AdapterOptions {
+
+    // Roughly one frame at 60fps
+    public static final long DEFAULT_BATCH_LATENCY_MS = 16;
+    public static final int DEFAULT_MAX_BATCH_SIZE = 1000;
+
+    private final boolean isBatching;
+    private final boolean isDiffing;
+    private final boolean isVersioned;
+    private final int maxBatchSize;
+    private final long maxBatchLatencyMs;
+    private final Scheduler modelScheduler;
+    private final Scheduler mainScheduler;
+    private final long frameBudgetNanos;
+    private final FrameClock frameClock;
+    private final AdapterMetrics metrics;
+
+    private AdapterOptions(Builder builder) {
+        this.isBatching = builder.isBatching;
+        this.isDiffing = builder.isDiffing;
+        this.isVersioned = builder.isVersioned;
+        this.maxBatchSize = builder.maxBatchSize;
+        this.maxBatchLatencyMs = builder.maxBatchLatencyMs;
+        this.modelScheduler = builder.modelScheduler;
+        this.mainScheduler = builder.mainScheduler;
+        this.frameBudgetNanos = builder.frameBudgetNanos;
+        this.frameClock = builder.frameClock;
+        this.metrics = builder.metrics;
+    }
+
+    public static AdapterOptions defaults() {
+        return new Builder().build();
+    }
+
+    public boolean isBatching() {
+        return isBatching;
+    }
+
+    public boolean isDiffing() {
+        return isDiffing;
+    }
+
+    public boolean isVersioned() {
+        return isVersioned;
+    }
+
+    public int getMaxBatchSize() {
+        return maxBatchSize;
+    }
+
+    public long getMaxBatchLatencyMs() {
+        return maxBatchLatencyMs;
+    }
+
+    /**
+     * @return The scheduler the model is applied on, or null to apply it on the main thread
+     */
+    public Scheduler getModelScheduler() {
+        return modelScheduler;
+    }
+
+    /**
+     * @return The scheduler RecyclerView is updated on, or null for AndroidSchedulers.mainThread()
+     */
+    public Scheduler getMainScheduler() {
+        return mainScheduler;
+    }
+
+    /**
+     * @return How long the main thread may spend applying elements before letting a frame draw,
+     *         or 0 for no limit
+     */
+    public long getFrameBudgetNanos() {
+        return frameBudgetNanos;
+    }
+
+    public FrameClock getFrameClock() {
+        return frameClock;
+    }
+
+    /**
+     * @return Where the adapter reports its measurements, AdapterMetrics.NONE by default
+     */
+    public AdapterMetrics getMetrics() {
+        return metrics;
+    }
+
+    public static class Builder {
+        private boolean isBatching = false;
+        private boolean isDiffing = false;
+        private boolean isVersioned = false;
+        private int maxBatchSize = DEFAULT_MAX_BATCH_SIZE;
+        private long maxBatchLatencyMs = DEFAULT_BATCH_LATENCY_MS;
+        private Scheduler modelScheduler = null;
+        private Scheduler mainScheduler = null;
+        private long frameBudgetNanos = 0;
+        private FrameClock frameClock = FrameClock.SYSTEM;
+        private AdapterMetrics metrics = AdapterMetrics.NONE;
+
+        /**
+         * When batching, elements arriving together are applied in one pass on the main thread,
+         * and adjacent changes are collapsed into range notifications.
+         */
+        public Builder batching(boolean isBatching) {
+            this.isBatching = isBatching;
+            return this;
+        }
+
+        /**
+         * Applies each batch as one transaction.  The model compares its order before and after
+         * the batch and reports as few moves as the reordering allows, instead of a move and a
+         * change for every element, which suits batches that re-rank many elements at once.
+         *
+         * Only the window between the first and the last position a batch touches is compared,
+         * which for k elements spanning w positions costs O(k log n + w log w) and copies the w
+         * elements twice.  A batch touching both ends of the list compares the whole list.  The
+         * comparison runs wherever the model is applied, so pair this with modelScheduler to keep
+         * it off the main thread, since a diffed batch is never sliced by frameBudget.
+         * preProcessElement is called for every element of a batch before it is applied, and
+         * postProcessElement for every element after.  Implies batching.
+         */
+        public Builder diffing(boolean isDiffing) {
+            this.isDiffing = isDiffing;
+            return this;
+        }
+
+        /**
+         * Keeps versions of the model which can be read from any thread, through
+         * RxRecyclerViewAdapter.getVersionedSnapshot.  Each element then costs O(log n) more to
+         * apply.  See ElementModel.enableVersioning.
+         */
+        public Builder versioned(boolean isVersioned) {
+            this.isVersioned = isVersioned;
+            return this;
+        }
+
+        /**
+         * @param maxBatchSize A batch is applied as soon as it holds this many elements
+         */
+        public Builder maxBatchSize(int maxBatchSize) {
+            if (maxBatchSize <= 0)
+                throw new IllegalArgumentException("maxBatchSize must be positive");
+            this.maxBatchSize = maxBatchSize;
+            return this;
+        }
+
+        /**
+         * @param latency A batch is applied at most this long after its first element arrived
+         */
+        public Builder maxBatchLatency(long latency, TimeUnit unit) {
+            if (latency < 0)
+                throw new IllegalArgumentException("latency must not be negative");
+            this.maxBatchLatencyMs = unit.toMillis(latency);
+            return this;
+        }
+
+        /**
+         * Sorts and applies elements on the given scheduler instead of the main thread.  Each batch
+         * produces an immutable snapshot which the main thread swaps in along with its changes, so
+         * the main thread's cost no longer depends on the size of the model.  Implies batching.
+         * @param modelScheduler The background scheduler, such as Schedulers.computation()
+         */
+        public Builder modelScheduler(Scheduler modelScheduler) {
+            this.modelScheduler = modelScheduler;
+            return this;
+        }
+
+        /**
+         * Replaces AndroidSchedulers.mainThread() as the scheduler RecyclerView is updated on,
+         * such as with a TestScheduler to run the adapter's scheduling on a plain JVM.  An adapter
+         * showing a SnapshotSource takes its main scheduler as a constructor argument instead.
+         * @param mainScheduler The scheduler which runs on the main thread
+         */
+        public Builder mainScheduler(Scheduler mainScheduler) {
+            this.mainScheduler = mainScheduler;
+            return this;
+        }
+
+        /**
+         * Applies batches on the main thread in slices of at most this long, so a large batch is
+         * spread over several frames instead of dropping them.  Whatever does not fit is applied on
+         * the next turn of the main thread, and RecyclerView is notified after every slice.  A
+         * batch is not sliced when diffing, nor when the model is applied on a modelScheduler, where
+         * the main thread only swaps in snapshots.  Implies batching.
+         * @param budget How long a slice may take, such as 4 milliseconds, or 0 for no limit
+         */
+        public Builder frameBudget(long budget, TimeUnit unit) {
+            if (budget < 0)
+                throw new IllegalArgumentException("budget must not be negative");
+            this.frameBudgetNanos = unit.toNanos(budget);
+            return this;
+        }
+
+        /**
+         * @param frameClock What the frame budget is measured with, FrameClock.SYSTEM by default,
+         *                   or a VirtualFrameClock in tests
+         */
+        public Builder frameClock(FrameClock frameClock) {
+            if (frameClock == null)
+                throw new NullPointerException("frameClock can not be null, use FrameClock.SYSTEM");
+            this.frameClock = frameClock;
+            return this;
+        }
+
+        /**
+         * @param metrics Receives throughput, latency, queue depth, notification and main thread
+         *                measurements from the adapter
+         */
+        public Builder metrics(AdapterMetrics metrics) {
+            if (metrics == null)
+                throw new NullPointerException("metrics can not be null, use AdapterMetrics.NONE");
+            this.metrics = metrics;
+            return this;
+        }
+
+        public AdapterOptions build() {
+            return new AdapterOptions(this);
+        }
+    }
+}
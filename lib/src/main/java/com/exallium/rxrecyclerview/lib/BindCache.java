@@ -0,0 +1,277 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2015 Alex Hart
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.exallium.rxrecyclerview.lib;
+
+import com.exallium.rxrecyclerview.lib.element.BulkElement;
+import com.exallium.rxrecyclerview.lib.element.EventElement;
+import com.exallium.rxrecyclerview.lib.element.TransactionElement;
+import com.exallium.rxrecyclerview.lib.event.Event;
+import rx.Scheduler;
+import rx.Subscription;
+import rx.functions.Action0;
+import rx.functions.Func1;
+import rx.schedulers.Schedulers;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Works out what binding a row needs, such as formatted text or measured layouts, off the main
+ * thread and ahead of time.  Give one to RxRecyclerViewAdapter.setBindCache, and the adapter
+ * passes the precomputed value to onBindViewHolder.
+ *
+ * A value is computed on the scheduler when a single ADD brings its Event into the model, and
+ * when a row comes within the prefetch distance of the rows being bound.  Values are kept per key
+ * and per Event, so a value made for an Event which an ADD has since replaced is never handed
+ * out, and the least recently used values are dropped once the cache is full.  Only data elements
+ * have values.
+ *
+ * Unsubscribe once no adapter uses it, to let go of its worker.
+ *
+ * @param <K> The Event Key
+ * @param <V> The Event Value
+ * @param <B> The precomputed bind data
+ */
+public final class BindCache<K, V, B> implements Subscription {
+
+    public static final int DEFAULT_MAX_SIZE = 256;
+    public static final int DEFAULT_PREFETCH_DISTANCE = 10;
+
+    private static final class Computed<K, V, B> {
+        // The version of the key this was computed for
+        private final Event<K, V> event;
+        private final B value;
+
+        Computed(Event<K, V> event, B value) {
+            this.event = event;
+            this.value = value;
+        }
+    }
+
+    private final Func1<? super Event<K, V>, ? extends B> precompute;
+    private final int prefetchDistance;
+    private final boolean isPrecomputingOnAdd;
+    private final Scheduler.Worker worker;
+
+    // Guarded by this
+    private final Map<K, Computed<K, V, B>> entries;
+    // Events waiting for a value, so each is only scheduled once.  Guarded by this.
+    private final Map<K, Event<K, V>> requested = new HashMap<>();
+
+    private BindCache(Builder<K, V, B> builder) {
+        final int maxSize = builder.maxSize;
+        this.precompute = builder.precompute;
+        this.prefetchDistance = builder.prefetchDistance;
+        this.isPrecomputingOnAdd = builder.isPrecomputingOnAdd;
+        this.worker = builder.scheduler.createWorker();
+        this.entries = new LinkedHashMap<K, Computed<K, V, B>>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<K, Computed<K, V, B>> eldest) {
+                return size() > maxSize;
+            }
+        };
+    }
+
+    /**
+     * The value for an element's current Event.  Computed on the calling thread if it is not
+     * ready yet, so binding never waits for the scheduler.
+     * @return The precomputed value, or null for elements other than data elements
+     */
+    public B get(EventElement<K, V> element) {
+        if (!isData(element))
+            return null;
+        final Event<K, V> event = element.getData();
+        synchronized (this) {
+            final Computed<K, V, B> entry = entries.get(event.getKey());
+            if (entry != null && entry.event == event)
+                return entry.value;
+        }
+        final B value = precompute.call(event);
+        synchronized (this) {
+            // What is shown can lag behind the model, so this may be older than a value already here
+            if (!entries.containsKey(event.getKey()))
+                store(event, value);
+        }
+        return value;
+    }
+
+    /**
+     * Computes the value for an element's current Event on the scheduler, unless it is ready or
+     * already on its way.  Can be called from any thread.
+     */
+    public void request(EventElement<K, V> element) {
+        if (!isData(element) || worker.isUnsubscribed())
+            return;
+        final Event<K, V> event = element.getData();
+        synchronized (this) {
+            final Computed<K, V, B> entry = entries.get(event.getKey());
+            if ((entry != null && entry.event == event) || requested.get(event.getKey()) == event)
+                return;
+            requested.put(event.getKey(), event);
+        }
+        worker.schedule(new Action0() {
+            @Override
+            public void call() {
+                synchronized (BindCache.this) {
+                    // Replaced or removed while waiting
+                    if (requested.get(event.getKey()) != event)
+                        return;
+                }
+                store(event, precompute.call(event));
+            }
+        });
+    }
+
+    /**
+     * Drops the value for a key, such as when an ADD replaces its Event or a REMOVE removes it
+     */
+    public synchronized void invalidate(K key) {
+        entries.remove(key);
+        requested.remove(key);
+    }
+
+    /**
+     * Keeps the cache in step with an element the model just applied.  Called by the adapter.
+     */
+    public void onApplied(EventElement<K, V> element) {
+        if (element instanceof BulkElement) {
+            // Bulk loads are left to prefetching, rather than computing rows nobody may scroll to
+            for (EventElement<K, V> bulked : ((BulkElement<K, V>) element).getElements()) {
+                if (isData(bulked))
+                    invalidate(bulked.getData().getKey());
+            }
+        } else if (element instanceof TransactionElement) {
+            for (EventElement<K, V> transacted : ((TransactionElement<K, V>) element).getElements())
+                onApplied(transacted);
+        } else if (isData(element)) {
+            final Event<K, V> event = element.getData();
+            invalidate(event.getKey());
+            if (isPrecomputingOnAdd && event.getType() == Event.TYPE.ADD)
+                request(element);
+        }
+    }
+
+    /**
+     * @return How many rows past a bound row, in the direction of scrolling, are precomputed
+     */
+    public int getPrefetchDistance() {
+        return prefetchDistance;
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    @Override
+    public void unsubscribe() {
+        worker.unsubscribe();
+        synchronized (this) {
+            entries.clear();
+            requested.clear();
+        }
+    }
+
+    @Override
+    public boolean isUnsubscribed() {
+        return worker.isUnsubscribed();
+    }
+
+    private synchronized void store(Event<K, V> event, B value) {
+        final K key = event.getKey();
+        final Event<K, V> waiting = requested.get(key);
+        if (waiting == event) {
+            requested.remove(key);
+        } else if (waiting != null) {
+            // A newer Event for the key is on its way
+            return;
+        }
+        entries.put(key, new Computed<K, V, B>(event, value));
+    }
+
+    private static boolean isData(EventElement<?, ?> element) {
+        return element.getViewType() >> EventElement.MASK_SHIFT == EventElement.DATA_MASK;
+    }
+
+    public static class Builder<K, V, B> {
+        private final Func1<? super Event<K, V>, ? extends B> precompute;
+        private int maxSize = DEFAULT_MAX_SIZE;
+        private int prefetchDistance = DEFAULT_PREFETCH_DISTANCE;
+        private boolean isPrecomputingOnAdd = true;
+        private Scheduler scheduler = Schedulers.computation();
+
+        /**
+         * @param precompute Makes the bind data for an Event.  Must not touch views, since it
+         *                   usually runs off the main thread.
+         */
+        public Builder(Func1<? super Event<K, V>, ? extends B> precompute) {
+            if (precompute == null)
+                throw new NullPointerException("precompute can not be null");
+            this.precompute = precompute;
+        }
+
+        /**
+         * @param maxSize The most values kept, such as a few screens worth of rows
+         */
+        public Builder<K, V, B> maxSize(int maxSize) {
+            if (maxSize <= 0)
+                throw new IllegalArgumentException("maxSize must be positive");
+            this.maxSize = maxSize;
+            return this;
+        }
+
+        /**
+         * @param prefetchDistance The number of rows ahead of a bound row, in the direction of
+         *                         scrolling, to precompute
+         */
+        public Builder<K, V, B> prefetchDistance(int prefetchDistance) {
+            if (prefetchDistance < 0)
+                throw new IllegalArgumentException("prefetchDistance must not be negative");
+            this.prefetchDistance = prefetchDistance;
+            return this;
+        }
+
+        /**
+         * @param isPrecomputingOnAdd Whether an Event is precomputed as soon as an ADD brings it
+         *                            into the model, true by default
+         */
+        public Builder<K, V, B> precomputeOnAdd(boolean isPrecomputingOnAdd) {
+            this.isPrecomputingOnAdd = isPrecomputingOnAdd;
+            return this;
+        }
+
+        /**
+         * @param scheduler Where values are computed, the computation scheduler by default
+         */
+        public Builder<K, V, B> scheduler(Scheduler scheduler) {
+            this.scheduler = scheduler;
+            return this;
+        }
+
+        public BindCache<K, V, B> build() {
+            return new BindCache<>(this);
+        }
+    }
+}
@@ -0,0 +1,177 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2015 Alex Hart
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.exallium.rxrecyclerview.lib;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * AdapterMetrics which keeps running totals, for logging or for reading in a debug screen.
+ * Rates are per second since construction or the last call to reset.
+ */
+public class CountingAdapterMetrics implements AdapterMetrics {
+
+    private final AtomicLong received = new AtomicLong();
+    private final AtomicLong applied = new AtomicLong();
+    private final AtomicLong applyBatches = new AtomicLong();
+    private final AtomicLong totalLatencyNanos = new AtomicLong();
+    private final AtomicLong maxLatencyNanos = new AtomicLong();
+    private final AtomicLong maxQueueDepth = new AtomicLong();
+    private final AtomicLong mainThreadPasses = new AtomicLong();
+    private final AtomicLong totalMainThreadNanos = new AtomicLong();
+    private final AtomicLong maxMainThreadNanos = new AtomicLong();
+    private final AtomicLong[] notifications = new AtomicLong[NOTIFICATION.values().length];
+
+    private volatile int queueDepth;
+    private volatile int modelSize;
+    private volatile long startNanos = System.nanoTime();
+
+    public CountingAdapterMetrics() {
+        for (int i = 0; i < notifications.length; i++)
+            notifications[i] = new AtomicLong();
+    }
+
+    @Override
+    public void onEventsReceived(int count) {
+        received.addAndGet(count);
+    }
+
+    @Override
+    public void onQueueDepth(int depth) {
+        queueDepth = depth;
+        max(maxQueueDepth, depth);
+    }
+
+    @Override
+    public void onEventsApplied(int count, long latencyNanos) {
+        applied.addAndGet(count);
+        applyBatches.incrementAndGet();
+        totalLatencyNanos.addAndGet(latencyNanos);
+        max(maxLatencyNanos, latencyNanos);
+    }
+
+    @Override
+    public void onNotification(NOTIFICATION kind, int count) {
+        notifications[kind.ordinal()].addAndGet(count);
+    }
+
+    @Override
+    public void onModelSize(int size) {
+        modelSize = size;
+    }
+
+    @Override
+    public void onMainThreadTime(long nanos) {
+        mainThreadPasses.incrementAndGet();
+        totalMainThreadNanos.addAndGet(nanos);
+        max(maxMainThreadNanos, nanos);
+    }
+
+    public long getReceivedCount() {
+        return received.get();
+    }
+
+    public long getAppliedCount() {
+        return applied.get();
+    }
+
+    public double getReceivedPerSecond() {
+        return perSecond(received.get());
+    }
+
+    public double getAppliedPerSecond() {
+        return perSecond(applied.get());
+    }
+
+    /**
+     * @return The mean time from receiving elements to notifying RecyclerView, in nanoseconds
+     */
+    public long getMeanLatencyNanos() {
+        long batches = applyBatches.get();
+        return batches == 0 ? 0 : totalLatencyNanos.get() / batches;
+    }
+
+    public long getMaxLatencyNanos() {
+        return maxLatencyNanos.get();
+    }
+
+    public int getQueueDepth() {
+        return queueDepth;
+    }
+
+    public long getMaxQueueDepth() {
+        return maxQueueDepth.get();
+    }
+
+    /**
+     * @param kind A kind of notification
+     * @return The number of items RecyclerView was notified about with that kind
+     */
+    public long getNotificationCount(NOTIFICATION kind) {
+        return notifications[kind.ordinal()].get();
+    }
+
+    public int getModelSize() {
+        return modelSize;
+    }
+
+    public long getMeanMainThreadNanos() {
+        long passes = mainThreadPasses.get();
+        return passes == 0 ? 0 : totalMainThreadNanos.get() / passes;
+    }
+
+    public long getMaxMainThreadNanos() {
+        return maxMainThreadNanos.get();
+    }
+
+    /**
+     * Clears all totals and restarts the clock for rates.  The queue depth and model size are kept.
+     */
+    public void reset() {
+        received.set(0);
+        applied.set(0);
+        applyBatches.set(0);
+        totalLatencyNanos.set(0);
+        maxLatencyNanos.set(0);
+        maxQueueDepth.set(0);
+        mainThreadPasses.set(0);
+        totalMainThreadNanos.set(0);
+        maxMainThreadNanos.set(0);
+        for (AtomicLong notification : notifications)
+            notification.set(0);
+        startNanos = System.nanoTime();
+    }
+
+    private double perSecond(long count) {
+        long elapsed = System.nanoTime() - startNanos;
+        return elapsed <= 0 ? 0 : count * 1e9 / elapsed;
+    }
+
+    private static void max(AtomicLong max, long value) {
+        long current;
+        do {
+            current = max.get();
+        } while (value > current && !max.compareAndSet(current, value));
+    }
+}
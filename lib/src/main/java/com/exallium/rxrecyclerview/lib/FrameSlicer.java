@@ -0,0 +1,124 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2015 Alex Hart
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.exallium.rxrecyclerview.lib;
+
+import rx.Scheduler;
+import rx.functions.Action0;
+
+import java.util.ArrayDeque;
+import java.util.List;
+
+/**
+ * Works through queued items in slices which each fit a time budget, leaving the rest for the next
+ * turn of the scheduler so that frames get drawn in between.  This is how RxRecyclerViewAdapter
+ * applies batches on the main thread when AdapterOptions.Builder.frameBudget is set.
+ *
+ * Every slice does at least one item, however long it takes, so the queue always drains.  Not
+ * thread safe; offer items on the scheduler the slices run on.
+ *
+ * @param <T> The type of item
+ */
+public final class FrameSlicer<T> {
+
+    /**
+     * What a FrameSlicer does with its items.
+     */
+    public interface Target<T> {
+
+        void apply(T item);
+
+        /**
+         * Called after each slice, before the next frame, such as to notify what it changed.
+         * @param count        How many items the slice applied
+         * @param elapsedNanos How long the slice took by the FrameClock
+         */
+        void onSliceEnd(int count, long elapsedNanos);
+    }
+
+    private final Scheduler.Worker worker;
+    private final long budgetNanos;
+    private final FrameClock clock;
+    private final Target<T> target;
+
+    private final ArrayDeque<T> queue = new ArrayDeque<>();
+    private boolean isScheduled;
+
+    private final Action0 nextSlice = new Action0() {
+        @Override
+        public void call() {
+            slice();
+        }
+    };
+
+    /**
+     * @param worker      Where the slices after the first run, normally a main thread worker
+     * @param budgetNanos How long a slice may take before the rest waits for the next turn
+     * @param clock       What the budget is measured with
+     * @param target      Applies the items
+     */
+    public FrameSlicer(Scheduler.Worker worker, long budgetNanos, FrameClock clock, Target<T> target) {
+        if (budgetNanos <= 0)
+            throw new IllegalArgumentException("budgetNanos must be positive");
+        this.worker = worker;
+        this.budgetNanos = budgetNanos;
+        this.clock = clock;
+        this.target = target;
+    }
+
+    /**
+     * Queues the items behind any still waiting, and starts applying them right away unless a
+     * slice is already scheduled.
+     */
+    public void offer(List<? extends T> items) {
+        queue.addAll(items);
+        if (!isScheduled && !queue.isEmpty())
+            slice();
+    }
+
+    /**
+     * @return The number of items waiting for a later slice
+     */
+    public int pending() {
+        return queue.size();
+    }
+
+    private void slice() {
+        isScheduled = false;
+        final long start = clock.nanoTime();
+        long elapsed;
+        int count = 0;
+        do {
+            target.apply(queue.poll());
+            count++;
+            elapsed = clock.nanoTime() - start;
+        } while (!queue.isEmpty() && elapsed < budgetNanos);
+        target.onSliceEnd(count, elapsed);
+
+        if (!queue.isEmpty() && !worker.isUnsubscribed()) {
+            isScheduled = true;
+            worker.schedule(nextSlice);
+        }
+    }
+}
@@ -25,6 +25,7 @@
 package com.exallium.rxrecyclerview.lib;
 
 import com.exallium.rxrecyclerview.lib.event.Event;
+import com.exallium.rxrecyclerview.lib.event.LongEvent;
 
 /**
  * Group Comparator that allows for easy "default" insertion order.
@@ -36,10 +37,10 @@ import com.exallium.rxrecyclerview.lib.event.Event;
  *
  * @param <V> The Value of data we are inserting
  */
-public class InsertionOrderComparator<V> implements GroupComparator<Long, V> {
+public class InsertionOrderComparator<V> extends LongGroupComparator<V> {
     @Override
     public final String getGroupKey(Event<Long, V> event) {
-        return event.getKey().toString();
+        return Long.toString(LongEvent.keyOf(event));
     }
 
     /**
@@ -49,17 +50,6 @@ public class InsertionOrderComparator<V> implements GroupComparator<Long, V> {
      */
     @Override
     public Event<Long, V> getEmptyEvent(Event.TYPE eventType) {
-        return new Event<>(eventType, -1L, null);
-    }
-
-    /**
-     * Default compare.  Override for reverse or what have you.
-     * @param lhs Event we have
-     * @param rhs Event we compare to
-     * @return -1, 0, 1 based off comparison.
-     */
-    @Override
-    public int compare(Event<Long, V> lhs, Event<Long, V> rhs) {
-        return lhs.getKey().compareTo(rhs.getKey());
+        return new LongEvent<>(eventType, -1L, null);
     }
 }
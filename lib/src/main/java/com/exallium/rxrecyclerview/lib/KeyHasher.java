@@ -0,0 +1,52 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2015 Alex Hart
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.exallium.rxrecyclerview.lib;
+
+/**
+ * Turns an Event Key into a stable ID for RecyclerView.  See RxRecyclerViewAdapter.setStableIds.
+ *
+ * Every bit of the result is used.  IDs below StableIds.MIN_DATA_ID are reserved for header,
+ * footer and empty elements, and the adapter throws if a key is given one of them.
+ *
+ * @param <K> The Event Key
+ */
+public interface KeyHasher<K> {
+
+    /**
+     * Uses the key itself as its ID.
+     */
+    KeyHasher<Long> LONG = new KeyHasher<Long>() {
+        @Override
+        public long hash(Long key) {
+            return key;
+        }
+    };
+
+    /**
+     * @param key An Event Key
+     * @return The ID for it, which must be the same every time for the same key
+     */
+    long hash(K key);
+}
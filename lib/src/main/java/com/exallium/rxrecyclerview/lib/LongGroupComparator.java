@@ -0,0 +1,58 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2015 Alex Hart
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.exallium.rxrecyclerview.lib;
+
+import com.exallium.rxrecyclerview.lib.event.Event;
+import com.exallium.rxrecyclerview.lib.event.LongEvent;
+
+/**
+ * GroupComparator for Long keyed Events, which compares keys as primitive longs.  Pair it with
+ * LongEvent and LongRxRecyclerViewAdapter to avoid boxing keys altogether.
+ *
+ * @param <V> The Event Value
+ */
+public abstract class LongGroupComparator<V> implements GroupComparator<Long, V> {
+
+    /**
+     * Compares the events by key.  Override compareKeys rather than this for a different key order.
+     * @param lhs Event we have
+     * @param rhs Event we compare to
+     * @return -1, 0, 1 based off comparison.
+     */
+    @Override
+    public int compare(Event<Long, V> lhs, Event<Long, V> rhs) {
+        return compareKeys(LongEvent.keyOf(lhs), LongEvent.keyOf(rhs));
+    }
+
+    /**
+     * Default key order, ascending.
+     * @param lhs Key we have
+     * @param rhs Key we compare to
+     * @return -1, 0, 1 based off comparison.
+     */
+    protected int compareKeys(long lhs, long rhs) {
+        return lhs < rhs ? -1 : (lhs == rhs ? 0 : 1);
+    }
+}
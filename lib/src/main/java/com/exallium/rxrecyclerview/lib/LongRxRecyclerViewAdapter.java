@@ -0,0 +1,74 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2015 Alex Hart
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.exallium.rxrecyclerview.lib;
+
+import android.support.v7.widget.RecyclerView;
+import com.exallium.rxrecyclerview.lib.element.EventElement;
+import com.exallium.rxrecyclerview.lib.event.Event;
+import com.exallium.rxrecyclerview.lib.event.LongEvent;
+import com.exallium.rxrecyclerview.lib.model.ElementModel;
+import com.exallium.rxrecyclerview.lib.model.LongElementIndex;
+import rx.Observable;
+
+/**
+ * RxRecyclerViewAdapter for Long keys.  Elements are indexed by primitive long instead of in a
+ * HashMap of boxed Longs, which saves an entry object and a Long per item.  Use LongEvents and a
+ * LongGroupComparator such as InsertionOrderComparator to avoid boxing keys anywhere else.
+ *
+ * @param <V>   The kind of items we are adapting
+ * @param <VH>  Custom View Holder
+ */
+public abstract class LongRxRecyclerViewAdapter<V, VH extends RecyclerView.ViewHolder> extends RxRecyclerViewAdapter<Long, V, VH> {
+
+    /**
+     * @param observable The Stream of Events to observe and react to
+     */
+    public LongRxRecyclerViewAdapter(Observable<EventElement<Long, V>> observable) {
+        this(observable, AdapterOptions.defaults());
+    }
+
+    /**
+     * @param observable The Stream of Events to observe and react to
+     * @param options    Batching and other optional behaviour
+     */
+    public LongRxRecyclerViewAdapter(Observable<EventElement<Long, V>> observable, AdapterOptions options) {
+        super(observable, options, new ElementModel<>(new LongElementIndex<V>()));
+    }
+
+    /**
+     * Uses each key as its element's stable ID.  See setStableIds.
+     */
+    public final void setStableIds() {
+        setStableIds(KeyHasher.LONG);
+    }
+
+    @Override
+    protected long getKeyId(Event<Long, V> event) {
+        // The key is the ID, so don't box it just to unbox it again
+        if (getKeyHasher() == KeyHasher.LONG)
+            return LongEvent.keyOf(event);
+        return super.getKeyId(event);
+    }
+}
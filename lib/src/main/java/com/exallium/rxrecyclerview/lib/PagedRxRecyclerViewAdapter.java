@@ -0,0 +1,255 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2015 Alex Hart
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.exallium.rxrecyclerview.lib;
+
+import android.support.v7.widget.RecyclerView;
+import android.util.Log;
+import com.exallium.rxrecyclerview.lib.element.EventElement;
+import com.exallium.rxrecyclerview.lib.event.Event;
+import com.exallium.rxrecyclerview.lib.paging.GroupCounts;
+import com.exallium.rxrecyclerview.lib.paging.PageSource;
+import com.exallium.rxrecyclerview.lib.paging.PagedElementList;
+import rx.Observable;
+import rx.Scheduler;
+import rx.Subscriber;
+import rx.android.schedulers.AndroidSchedulers;
+import rx.functions.Action0;
+import rx.subscriptions.CompositeSubscription;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * RecyclerView Adapter for data sets too large to hold in memory.
+ *
+ * Only the pages of rows around what is being bound are loaded from the PageSource, and the least
+ * recently used pages are evicted past PagingOptions.maxPages.  The rest of the list is described
+ * by the PageSource's GroupCounts, from which headers and footers are placed without loading
+ * anything.  Rows whose page is still loading are bound as placeholders, whose Event has a null
+ * Key and Value, and rebound once it arrives.
+ *
+ * Whenever the invalidations Observable emits, the counts are reloaded and the whole list is
+ * refreshed with notifyDataSetChanged.  Call unsubscribe when done with the adapter.
+ *
+ * @param <K>   The type of Keys used for the items.
+ * @param <V>   The kind of items we are adapting
+ * @param <VH>  Custom View Holder
+ */
+public abstract class PagedRxRecyclerViewAdapter<K, V, VH extends RecyclerView.ViewHolder> extends RecyclerView.Adapter<VH> {
+
+    private static final String TAG = PagedRxRecyclerViewAdapter.class.getSimpleName();
+
+    private final PageSource<K, V> source;
+    private final GroupComparator<K, V> groupComparator;
+    private final PagingOptions options;
+    private final Scheduler.Worker loadWorker;
+    private final Scheduler.Worker mainWorker;
+    // The invalidations subscription and both workers
+    private final CompositeSubscription subscriptions = new CompositeSubscription();
+
+    private PagedElementList<K, V> elements;
+    // Pages requested for the current elements which have not arrived yet
+    private final Set<Integer> loading = new HashSet<>();
+    // Bumped whenever elements is replaced, so that loads for the old one are dropped
+    private int generation = 0;
+
+    /**
+     * @param source          Where rows are loaded from
+     * @param groupComparator Sorts and groups rows the same way the source does
+     * @param invalidations   Emits whenever the source's data has changed
+     */
+    public PagedRxRecyclerViewAdapter(PageSource<K, V> source, GroupComparator<K, V> groupComparator,
+                                      Observable<?> invalidations) {
+        this(source, groupComparator, invalidations, PagingOptions.defaults());
+    }
+
+    /**
+     * @param source          Where rows are loaded from
+     * @param groupComparator Sorts and groups rows the same way the source does
+     * @param invalidations   Emits whenever the source's data has changed
+     * @param options         Page sizes, prefetching, headers, footers and schedulers
+     */
+    public PagedRxRecyclerViewAdapter(PageSource<K, V> source, GroupComparator<K, V> groupComparator,
+                                      Observable<?> invalidations, PagingOptions options) {
+        this.source = source;
+        this.groupComparator = groupComparator;
+        this.options = options;
+        final Scheduler mainScheduler = options.getMainScheduler() != null
+                ? options.getMainScheduler() : AndroidSchedulers.mainThread();
+        this.loadWorker = options.getScheduler().createWorker();
+        this.mainWorker = mainScheduler.createWorker();
+        this.elements = newElements(GroupCounts.empty());
+        subscriptions.add(loadWorker);
+        subscriptions.add(mainWorker);
+
+        subscriptions.add(invalidations.observeOn(mainScheduler).subscribe(new Subscriber<Object>() {
+            @Override
+            public void onCompleted() {
+                unsubscribe();
+            }
+
+            @Override
+            public void onError(Throwable e) {
+                PagedRxRecyclerViewAdapter.this.onError(this.getClass(), e);
+            }
+
+            @Override
+            public void onNext(Object o) {
+                refresh();
+            }
+        }));
+        refresh();
+    }
+
+    /**
+     * Stops listening to invalidations and drops any page loads still in flight.
+     */
+    public final void unsubscribe() {
+        subscriptions.unsubscribe();
+    }
+
+    private void onError(Class<?> clazz, Throwable e) {
+        Log.d(TAG, "An error happened in " + clazz.getSimpleName(), e);
+    }
+
+    private PagedElementList<K, V> newElements(GroupCounts counts) {
+        return new PagedElementList<>(groupComparator, counts, options.getPageSize(),
+                options.getMaxPages(), options.hasHeader(), options.hasFooter());
+    }
+
+    /**
+     * Reloads the counts and drops every loaded page.
+     */
+    private void refresh() {
+        final int refreshGeneration = ++generation;
+        loadWorker.schedule(new Action0() {
+            @Override
+            public void call() {
+                final GroupCounts counts;
+                try {
+                    counts = source.getGroupCounts();
+                } catch (RuntimeException e) {
+                    onError(source.getClass(), e);
+                    return;
+                }
+                mainWorker.schedule(new Action0() {
+                    @Override
+                    public void call() {
+                        if (refreshGeneration != generation)
+                            return;
+                        elements = newElements(counts);
+                        loading.clear();
+                        notifyDataSetChanged();
+                    }
+                });
+            }
+        });
+    }
+
+    private void prefetch(int position) {
+        final int page = elements.getPageAt(position);
+        final int first = Math.max(0, page - options.getPrefetchPages());
+        final int last = Math.min(elements.getPageCount() - 1, page + options.getPrefetchPages());
+        for (int i = first; i <= last; i++) {
+            if (!elements.isLoaded(i) && loading.add(i))
+                load(i);
+        }
+    }
+
+    private void load(final int page) {
+        final int loadGeneration = generation;
+        final int start = page * options.getPageSize();
+        final int count = Math.min(options.getPageSize(), elements.getGroupCounts().size() - start);
+        loadWorker.schedule(new Action0() {
+            @Override
+            public void call() {
+                List<EventElement<K, V>> result = new ArrayList<>(count);
+                try {
+                    for (Event<K, V> event : source.loadPage(start, count))
+                        result.add(new EventElement<>(event, groupComparator));
+                } catch (RuntimeException e) {
+                    onError(source.getClass(), e);
+                    // Left unloaded, so that it is asked for again the next time it is bound
+                    result = null;
+                }
+                final List<EventElement<K, V>> loaded = result;
+                mainWorker.schedule(new Action0() {
+                    @Override
+                    public void call() {
+                        if (loadGeneration != generation)
+                            return;
+                        loading.remove(page);
+                        if (loaded == null)
+                            return;
+                        elements.putPage(page, loaded);
+                        final int first = elements.getFirstPosition(page);
+                        notifyItemRangeChanged(first, elements.getLastPosition(page) - first + 1);
+                    }
+                });
+            }
+        });
+    }
+
+    @Override
+    public final void onBindViewHolder(VH holder, int position) {
+        EventElement<K,V> element = getItemAt(position);
+        prefetch(position);
+        onBindViewHolder(holder, element);
+    }
+
+    /**
+     * Binds a ViewHolder to the given EventElement, which may be a placeholder
+     * @param holder    The ViewHolder to bind to
+     */
+    public abstract void onBindViewHolder(VH holder, EventElement<K, V> element);
+
+    @Override
+    public final int getItemCount() {
+        return elements.size();
+    }
+
+    @Override
+    public final int getItemViewType(int position) {
+        return getItemAt(position).getViewType();
+    }
+
+    /**
+     * @param position The position of the element.  O(log g)
+     * @return The element at the given position, or a placeholder if its page is not loaded
+     */
+    protected final EventElement<K, V> getItemAt(int position) {
+        return elements.get(position);
+    }
+
+    /**
+     * @param element The element to find
+     * @return -1 if the item is not loaded, otherwise the element's index
+     */
+    protected final int getIndexOf(EventElement<K, V> element) {
+        return elements.indexOf(element);
+    }
+}
@@ -0,0 +1,170 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2015 Alex Hart
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.exallium.rxrecyclerview.lib;
+
+import rx.Scheduler;
+import rx.schedulers.Schedulers;
+
+/**
+ * Options for PagedRxRecyclerViewAdapter.
+ */
+public final class PagingOptions {
+
+    public static final int DEFAULT_PAGE_SIZE = 100;
+    public static final int DEFAULT_MAX_PAGES = 16;
+    public static final int DEFAULT_PREFETCH_PAGES = 1;
+
+    private final int pageSize;
+    private final int maxPages;
+    private final int prefetchPages;
+    private final boolean hasHeader;
+    private final boolean hasFooter;
+    private final Scheduler scheduler;
+    private final Scheduler mainScheduler;
+
+    private PagingOptions(Builder builder) {
+        this.pageSize = builder.pageSize;
+        this.maxPages = builder.maxPages;
+        this.prefetchPages = builder.prefetchPages;
+        this.hasHeader = builder.hasHeader;
+        this.hasFooter = builder.hasFooter;
+        this.scheduler = builder.scheduler;
+        this.mainScheduler = builder.mainScheduler;
+    }
+
+    public static PagingOptions defaults() {
+        return new Builder().build();
+    }
+
+    public int getPageSize() {
+        return pageSize;
+    }
+
+    public int getMaxPages() {
+        return maxPages;
+    }
+
+    public int getPrefetchPages() {
+        return prefetchPages;
+    }
+
+    public boolean hasHeader() {
+        return hasHeader;
+    }
+
+    public boolean hasFooter() {
+        return hasFooter;
+    }
+
+    /**
+     * @return The scheduler pages are loaded on
+     */
+    public Scheduler getScheduler() {
+        return scheduler;
+    }
+
+    /**
+     * @return The scheduler RecyclerView is updated on, or null for AndroidSchedulers.mainThread()
+     */
+    public Scheduler getMainScheduler() {
+        return mainScheduler;
+    }
+
+    public static class Builder {
+        private int pageSize = DEFAULT_PAGE_SIZE;
+        private int maxPages = DEFAULT_MAX_PAGES;
+        private int prefetchPages = DEFAULT_PREFETCH_PAGES;
+        private boolean hasHeader = false;
+        private boolean hasFooter = false;
+        private Scheduler scheduler = Schedulers.io();
+        private Scheduler mainScheduler = null;
+
+        /**
+         * @param pageSize The number of data rows loaded at a time
+         */
+        public Builder pageSize(int pageSize) {
+            if (pageSize <= 0)
+                throw new IllegalArgumentException("pageSize must be positive");
+            this.pageSize = pageSize;
+            return this;
+        }
+
+        /**
+         * @param maxPages The most pages held at once.  The least recently used page is evicted
+         *                 beyond this.
+         */
+        public Builder maxPages(int maxPages) {
+            if (maxPages <= 0)
+                throw new IllegalArgumentException("maxPages must be positive");
+            this.maxPages = maxPages;
+            return this;
+        }
+
+        /**
+         * @param prefetchPages The number of pages either side of a bound row to load ahead of time
+         */
+        public Builder prefetchPages(int prefetchPages) {
+            if (prefetchPages < 0)
+                throw new IllegalArgumentException("prefetchPages must not be negative");
+            this.prefetchPages = prefetchPages;
+            return this;
+        }
+
+        public Builder hasHeader(boolean hasHeader) {
+            this.hasHeader = hasHeader;
+            return this;
+        }
+
+        public Builder hasFooter(boolean hasFooter) {
+            this.hasFooter = hasFooter;
+            return this;
+        }
+
+        /**
+         * @param scheduler The scheduler pages are loaded on, Schedulers.io() by default
+         */
+        public Builder scheduler(Scheduler scheduler) {
+            this.scheduler = scheduler;
+            return this;
+        }
+
+        /**
+         * Replaces AndroidSchedulers.mainThread() as the scheduler RecyclerView is updated on,
+         * as AdapterOptions.Builder.mainScheduler does for RxRecyclerViewAdapter.
+         * @param mainScheduler The scheduler which runs on the main thread
+         */
+        public Builder mainScheduler(Scheduler mainScheduler) {
+            this.mainScheduler = mainScheduler;
+            return this;
+        }
+
+        public PagingOptions build() {
+            // Otherwise prefetching would evict the pages it just loaded
+            if (maxPages < 2 * prefetchPages + 1)
+                throw new IllegalStateException("maxPages must be at least 2 * prefetchPages + 1");
+            return new PagingOptions(this);
+        }
+    }
+}
@@ -28,13 +28,29 @@ import android.support.v7.widget.RecyclerView;
 import android.util.Log;
 import com.exallium.rxrecyclerview.lib.element.EventElement;
 import com.exallium.rxrecyclerview.lib.event.Event;
+import com.exallium.rxrecyclerview.lib.model.ChangeBatch;
+import com.exallium.rxrecyclerview.lib.model.ChangeSink;
+import com.exallium.rxrecyclerview.lib.model.ElementList;
+import com.exallium.rxrecyclerview.lib.model.ElementModel;
+import com.exallium.rxrecyclerview.lib.model.ElementSnapshot;
+import com.exallium.rxrecyclerview.lib.model.FilteredElementModel;
+import com.exallium.rxrecyclerview.lib.model.SnapshotSource;
+import com.exallium.rxrecyclerview.lib.model.VersionedSnapshot;
+import com.exallium.rxrecyclerview.lib.operators.BatchOperator;
 import rx.Observable;
+import rx.Scheduler;
 import rx.Subscriber;
+import rx.Subscription;
 import rx.android.schedulers.AndroidSchedulers;
+import rx.functions.Action0;
+import rx.functions.Action1;
+import rx.functions.Func2;
+import rx.schedulers.Schedulers;
 
-import java.util.TreeSet;
-import java.util.HashMap;
-import java.util.Map;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * Reactive View Adapter for RecyclerView
@@ -53,9 +69,34 @@ public abstract class RxRecyclerViewAdapter<K, V, VH extends RecyclerView.ViewHo
 
     private static final String TAG = RxRecyclerViewAdapter.class.getSimpleName();
 
-    private final Map<K, EventElement<K, V>> items = new HashMap<>();
+    /**
+     * Return from getChangePayload when an update changed nothing worth showing.
+     */
+    protected static final Object UNCHANGED = ElementModel.UNCHANGED;
+
+    private final ElementModel<K, V> model;
+
+    // What RecyclerView currently sees.  Either the model itself, or the last published snapshot of it.
+    private volatile ElementList<K, V> elements;
+
+    private final ChangeSink notifier = new AdapterChangeSink();
+
+    private final Subscription subscription;
+    // The model this adapter shows but doesn't apply, if any
+    private final SnapshotSource<K, V> source;
 
-    private final TreeSet<EventElement<K, V>> treeSet;
+    private final AdapterMetrics metrics;
+    // False for AdapterMetrics.NONE, in which case we skip measuring altogether
+    private final boolean isMetered;
+    private final boolean isDiffing;
+    // Elements received but not yet taken by a subscriber
+    private final AtomicInteger queueDepth = new AtomicInteger();
+
+    private volatile BindCache<K, V, ?> bindCache;
+    // Which way rows are being bound, for prefetching bind data
+    private int lastBoundPosition;
+
+    private KeyHasher<? super K> keyHasher;
 
     /**
      * Takes an observable of RxAdapterEvents.  See example in MainActivity in sample app.
@@ -64,9 +105,169 @@ public abstract class RxRecyclerViewAdapter<K, V, VH extends RecyclerView.ViewHo
      * @param observable The Stream of Events to observe and react to
      */
     public RxRecyclerViewAdapter(Observable<EventElement<K, V>> observable) {
-        treeSet = new TreeSet<>();
-        Observable<EventElement<K, V>> androidThreadObservable = observable.observeOn(AndroidSchedulers.mainThread());
-        androidThreadObservable.subscribe(new RxSubscriber());
+        this(observable, AdapterOptions.defaults());
+    }
+
+    /**
+     * @param observable The Stream of Events to observe and react to
+     * @param options    Batching and other optional behaviour
+     */
+    public RxRecyclerViewAdapter(Observable<EventElement<K, V>> observable, AdapterOptions options) {
+        this(observable, options, new ElementModel<K, V>());
+    }
+
+    /**
+     * @param observable The Stream of Events to observe and react to
+     * @param options    Batching and other optional behaviour
+     * @param model      An empty model, for subclasses which index their elements differently
+     */
+    protected RxRecyclerViewAdapter(Observable<EventElement<K, V>> observable, AdapterOptions options,
+                                    ElementModel<K, V> model) {
+        this.model = model;
+        this.source = null;
+        this.model.setChangePayload(new Func2<EventElement<K, V>, EventElement<K, V>, Object>() {
+            @Override
+            public Object call(EventElement<K, V> oldElement, EventElement<K, V> newElement) {
+                return getChangePayload(oldElement, newElement);
+            }
+        });
+        this.metrics = options.getMetrics();
+        this.isMetered = metrics != AdapterMetrics.NONE;
+        this.isDiffing = options.isDiffing();
+        if (options.isVersioned())
+            this.model.enableVersioning();
+        if (isMetered)
+            observable = observable.doOnNext(new Action1<EventElement<K, V>>() {
+                @Override
+                public void call(EventElement<K, V> element) {
+                    queueDepth.incrementAndGet();
+                    metrics.onEventsReceived(1);
+                }
+            });
+
+        final Scheduler mainScheduler = options.getMainScheduler() != null
+                ? options.getMainScheduler() : AndroidSchedulers.mainThread();
+        if (options.getModelScheduler() != null) {
+            elements = ElementSnapshot.empty();
+            subscription = batch(observable, options)
+                    .observeOn(options.getModelScheduler())
+                    .subscribe(new RxBackgroundSubscriber(mainScheduler));
+        } else if (options.isBatching() || options.isDiffing() || options.getFrameBudgetNanos() > 0) {
+            elements = model;
+            subscription = batch(observable, options)
+                    .observeOn(mainScheduler)
+                    .subscribe(new RxBatchSubscriber(mainScheduler, options));
+        } else {
+            elements = model;
+            Observable<EventElement<K, V>> androidThreadObservable = observable.observeOn(mainScheduler);
+            subscription = androidThreadObservable.subscribe(new RxSubscriber());
+        }
+    }
+
+    /**
+     * Shows a model which is applied elsewhere, such as a SharedElementModel, whose Events are
+     * sorted and applied once no matter how many adapters show it, or a FilteredElementModel.  This
+     * adapter only swaps in the source's snapshots along with the changes it has not seen yet.
+     * Elements are not passed through preProcessElement and postProcessElement, and
+     * getChangePayload is not asked, since the source is not applied by this adapter.
+     *
+     * Call unsubscribe when done, so the source can let go of its stream once no adapter is left.
+     * @param source The model to show
+     */
+    public RxRecyclerViewAdapter(SnapshotSource<K, V> source) {
+        this(source, AndroidSchedulers.mainThread());
+    }
+
+    /**
+     * @param source        The model to show
+     * @param mainScheduler Replaces AndroidSchedulers.mainThread() as the scheduler RecyclerView
+     *                      is updated on, as AdapterOptions.Builder.mainScheduler does
+     */
+    public RxRecyclerViewAdapter(final SnapshotSource<K, V> source, Scheduler mainScheduler) {
+        this.model = null;
+        this.source = source;
+        this.metrics = AdapterMetrics.NONE;
+        this.isMetered = false;
+        this.isDiffing = false;
+        this.elements = ElementSnapshot.empty();
+        this.subscription = source.attach(new SnapshotSource.Listener<K, V>() {
+            @Override
+            public void onUpdate(ElementSnapshot<K, V> snapshot, ChangeBatch changes) {
+                elements = snapshot;
+                changes.dispatch(notifier);
+            }
+
+            @Override
+            public void onCompleted() {
+                // The last snapshot stays in place until unsubscribe
+            }
+
+            @Override
+            public void onError(Throwable e) {
+                RxRecyclerViewAdapter.this.onError(source.getClass(), e);
+            }
+        }, mainScheduler);
+    }
+
+    /**
+     * Stops listening to the stream, or detaches from a shared model.  Completing the stream
+     * does the same.
+     */
+    public final void unsubscribe() {
+        subscription.unsubscribe();
+    }
+
+    private void applyBatch(List<EventElement<K, V>> rxEvents, ChangeSink sink) {
+        if (!isDiffing) {
+            for (int i = 0; i < rxEvents.size(); i++) {
+                apply(rxEvents.get(i), sink);
+            }
+            return;
+        }
+        for (int i = 0; i < rxEvents.size(); i++) {
+            preProcessElement(rxEvents.get(i));
+        }
+        model.applyTransaction(rxEvents, sink);
+        final BindCache<K, V, ?> cache = bindCache;
+        if (cache != null) {
+            for (int i = 0; i < rxEvents.size(); i++) {
+                cache.onApplied(rxEvents.get(i));
+            }
+        }
+        for (int i = 0; i < rxEvents.size(); i++) {
+            postProcessElement(rxEvents.get(i));
+        }
+    }
+
+    /**
+     * For background work such as exporting or search indexing, which needs a consistent view of
+     * the list without touching it from the main thread.  Safe to call from any thread, and never
+     * waits for the model to be applied.  Requires AdapterOptions.Builder.versioned.
+     * @return The newest version of the model, which never changes once returned
+     */
+    public final VersionedSnapshot<K, V> getVersionedSnapshot() {
+        if (model == null)
+            throw new IllegalStateException("This adapter shows a model it does not apply");
+        return model.getVersionedSnapshot();
+    }
+
+    /**
+     * Sorts and groups the shown model by a new comparator, without replaying the stream.  The
+     * model is sorted again off the main thread, with new headers and footers, and the adapter is
+     * told about the transition as moves and ranges.  Can be called from any thread.  Requires an
+     * adapter which shows a FilteredElementModel, the only model which keeps the Events needed to
+     * make the elements again.
+     * @param groupComparator The new sort order and grouping
+     */
+    public final void setGroupComparator(GroupComparator<K, V> groupComparator) {
+        if (!(source instanceof FilteredElementModel))
+            throw new IllegalStateException("Only an adapter showing a FilteredElementModel can switch comparators");
+        ((FilteredElementModel<K, V>) source).setGroupComparator(groupComparator);
+    }
+
+    private Observable<List<EventElement<K, V>>> batch(Observable<EventElement<K, V>> observable, AdapterOptions options) {
+        return observable.lift(new BatchOperator<EventElement<K, V>>(options.getMaxBatchSize(),
+                options.getMaxBatchLatencyMs(), TimeUnit.MILLISECONDS, Schedulers.computation()));
     }
 
     private void onError(Class<?> clazz, Throwable e) {
@@ -76,7 +277,13 @@ public abstract class RxRecyclerViewAdapter<K, V, VH extends RecyclerView.ViewHo
     @Override
     public final void onBindViewHolder(VH holder, int position) {
         EventElement<K,V> element = getItemAt(position);
-        onBindViewHolder(holder, element);
+        final BindCache<K, V, ?> cache = bindCache;
+        if (cache == null) {
+            onBindViewHolder(holder, element);
+        } else {
+            onBindViewHolder(holder, element, cache.get(element), Collections.emptyList());
+            prefetchBindData(cache, position);
+        }
     }
 
     /**
@@ -85,9 +292,65 @@ public abstract class RxRecyclerViewAdapter<K, V, VH extends RecyclerView.ViewHo
      */
     public abstract void onBindViewHolder(VH holder, EventElement<K, V> element);
 
+    @Override
+    public final void onBindViewHolder(VH holder, int position, List<Object> payloads) {
+        EventElement<K,V> element = getItemAt(position);
+        final BindCache<K, V, ?> cache = bindCache;
+        if (cache == null) {
+            onBindViewHolder(holder, element, payloads);
+        } else {
+            onBindViewHolder(holder, element, cache.get(element), payloads);
+            prefetchBindData(cache, position);
+        }
+    }
+
+    /**
+     * Binds a ViewHolder to the given EventElement, given what changed since it was last bound.
+     * Override this to rebind only the changed parts of a row.  By default it binds fully.
+     * @param holder    The ViewHolder to bind to
+     * @param payloads  The payloads from getChangePayload since the last bind.  Empty when the
+     *                  ViewHolder has to be bound fully.
+     */
+    public void onBindViewHolder(VH holder, EventElement<K, V> element, List<Object> payloads) {
+        onBindViewHolder(holder, element);
+    }
+
+    /**
+     * Binds a ViewHolder using the data precomputed by the BindCache given to setBindCache.  By
+     * default it ignores the bind data and calls onBindViewHolder(holder, element, payloads).
+     * @param bindData  The BindCache's value for a data element, null for headers, footers and
+     *                  the empty element
+     */
+    public void onBindViewHolder(VH holder, EventElement<K, V> element, Object bindData, List<Object> payloads) {
+        onBindViewHolder(holder, element, payloads);
+    }
+
+    /**
+     * Precomputes bind data off the main thread, for onBindViewHolder(holder, element, bindData,
+     * payloads).  The cache learns of every element this adapter applies, so that replaced rows
+     * are recomputed, and rows about to be bound are computed ahead of time.  Call from the main
+     * thread.  The adapter does not unsubscribe the cache.
+     * @param bindCache The cache, or null to stop using one
+     */
+    public final void setBindCache(BindCache<K, V, ?> bindCache) {
+        this.bindCache = bindCache;
+    }
+
+    private void prefetchBindData(BindCache<K, V, ?> cache, int position) {
+        final int step = position >= lastBoundPosition ? 1 : -1;
+        lastBoundPosition = position;
+        final int count = getItemCount();
+        for (int i = 1; i <= cache.getPrefetchDistance(); i++) {
+            final int ahead = position + step * i;
+            if (ahead < 0 || ahead >= count)
+                break;
+            cache.request(getItemAt(ahead));
+        }
+    }
+
     @Override
     public final int getItemCount() {
-        return treeSet.size();
+        return elements.size();
     }
 
     @Override
@@ -95,22 +358,69 @@ public abstract class RxRecyclerViewAdapter<K, V, VH extends RecyclerView.ViewHo
         return getItemAt(position).getViewType();
     }
 
-    // TODO: Performance
+    /**
+     * Gives every element a stable ID, so that RecyclerView can keep track of rows by identity.
+     * Data elements get the ID of their key.  Header, footer and empty elements get IDs made from
+     * their group key and mask, which never collide with data IDs.  See StableIds.
+     *
+     * Call this before setting the adapter on a RecyclerView.
+     * @param keyHasher Turns keys into IDs, such as KeyHasher.LONG
+     */
+    public final void setStableIds(KeyHasher<? super K> keyHasher) {
+        if (keyHasher == null)
+            throw new NullPointerException("keyHasher can not be null");
+        this.keyHasher = keyHasher;
+        setHasStableIds(true);
+    }
+
+    /**
+     * @return The KeyHasher given to setStableIds, or null
+     */
+    protected final KeyHasher<? super K> getKeyHasher() {
+        return keyHasher;
+    }
+
+    @Override
+    public final long getItemId(int position) {
+        if (keyHasher == null)
+            return RecyclerView.NO_ID;
+
+        final EventElement<K, V> element = getItemAt(position);
+        if (element.getViewType() >> EventElement.MASK_SHIFT == EventElement.DATA_MASK)
+            return StableIds.ofData(getKeyId(element.getData()));
+        return StableIds.ofDecoration(element);
+    }
+
+    /**
+     * @param event The event of a data element
+     * @return The ID for its key.  Uses the KeyHasher given to setStableIds by default
+     */
+    protected long getKeyId(Event<K, V> event) {
+        return keyHasher.hash(event.getKey());
+    }
+
+    /**
+     * @param position The position of the element.  O(log n)
+     * @return The element at the given position
+     */
     protected final EventElement<K, V> getItemAt(int position) {
-        return (EventElement<K, V>) treeSet.toArray()[position];
+        return elements.get(position);
     }
 
     /**
-     * @param element The element to find
+     * @param element The element to find.  O(log n)
      * @return -1 if the item does not exist in the set, otherwise the element's index
      */
     protected final int getIndexOf(EventElement<K, V> element) {
-        return treeSet.contains(element) ? treeSet.headSet(element).size() : -1;
+        return elements.indexOf(element);
     }
 
     /**
      * Happens before an item is Added or Removed from the list. At this point, you can
      * get the original item via use of getItemAt and getIndexOf.
+     *
+     * When the model is applied on a background scheduler, this is called on that scheduler, and
+     * getItemAt and getIndexOf reflect what is currently on screen.
      * @param element The element we are adding or removing
      */
     protected void preProcessElement(EventElement<K, V> element) { }
@@ -118,10 +428,78 @@ public abstract class RxRecyclerViewAdapter<K, V, VH extends RecyclerView.ViewHo
     /**
      * Happens after an item is Added or Removed from the list.  At this point the original
      * item is no longer available.
+     *
+     * When the model is applied on a background scheduler, this is called on that scheduler.
      * @param element The element we added or removed
      */
     protected void postProcessElement(EventElement<K, V> element) { }
 
+    /**
+     * Happens when an ADD replaces the element for an existing key, to decide what RecyclerView is
+     * told.  Compare the old and new values here rather than when binding.
+     *
+     * When the model is applied on a background scheduler, this is called on that scheduler.
+     * @param oldElement The element being replaced
+     * @param newElement The element replacing it
+     * @return A payload describing what changed, which is handed to onBindViewHolder, null to
+     *         rebind the item fully, or UNCHANGED to not notify RecyclerView at all.  Null by default.
+     */
+    protected Object getChangePayload(EventElement<K, V> oldElement, EventElement<K, V> newElement) {
+        return null;
+    }
+
+    private void apply(EventElement<K, V> rxEvent, ChangeSink sink) {
+        preProcessElement(rxEvent);
+        model.apply(rxEvent, sink);
+        final BindCache<K, V, ?> cache = bindCache;
+        if (cache != null)
+            cache.onApplied(rxEvent);
+        postProcessElement(rxEvent);
+    }
+
+    private class AdapterChangeSink implements ChangeSink {
+
+        @Override
+        public void onInserted(int position, int count) {
+            if (isMetered)
+                metrics.onNotification(AdapterMetrics.NOTIFICATION.INSERTED, count);
+            if (count == 1) {
+                notifyItemInserted(position);
+            } else {
+                notifyItemRangeInserted(position, count);
+            }
+        }
+
+        @Override
+        public void onRemoved(int position, int count) {
+            if (isMetered)
+                metrics.onNotification(AdapterMetrics.NOTIFICATION.REMOVED, count);
+            if (count == 1) {
+                notifyItemRemoved(position);
+            } else {
+                notifyItemRangeRemoved(position, count);
+            }
+        }
+
+        @Override
+        public void onMoved(int fromPosition, int toPosition) {
+            if (isMetered)
+                metrics.onNotification(AdapterMetrics.NOTIFICATION.MOVED, 1);
+            notifyItemMoved(fromPosition, toPosition);
+        }
+
+        @Override
+        public void onChanged(int position, int count, Object payload) {
+            if (isMetered)
+                metrics.onNotification(AdapterMetrics.NOTIFICATION.CHANGED, count);
+            if (count == 1) {
+                notifyItemChanged(position, payload);
+            } else {
+                notifyItemRangeChanged(position, count, payload);
+            }
+        }
+    }
+
     private class RxSubscriber extends Subscriber<EventElement<K, V>> {
 
         @Override
@@ -136,54 +514,172 @@ public abstract class RxRecyclerViewAdapter<K, V, VH extends RecyclerView.ViewHo
 
         @Override
         public void onNext(EventElement<K, V> rxEvent) {
-            preProcessElement(rxEvent);
-
-            int eventType = rxEvent.getViewType() >> EventElement.MASK_SHIFT;
-            if (eventType == EventElement.HEADER_MASK || eventType == EventElement.FOOTER_MASK) {
-                switch (rxEvent.getData().getType()) {
-                    case ADD:
-                        treeSet.add(rxEvent);
-                        notifyItemInserted(getIndexOf(rxEvent));
-                        break;
-                    case REMOVE:
-                        int pos = getIndexOf(rxEvent);
-                        if (pos != -1) {
-                            treeSet.remove(rxEvent);
-                            notifyItemRemoved(pos);
-                        }
-                        break;
-                }
+            if (!isMetered) {
+                apply(rxEvent, notifier);
+                return;
+            }
+
+            final long start = System.nanoTime();
+            metrics.onQueueDepth(queueDepth.decrementAndGet());
+            apply(rxEvent, notifier);
+            final long elapsed = System.nanoTime() - start;
+            metrics.onEventsApplied(1, elapsed);
+            metrics.onModelSize(model.size());
+            metrics.onMainThreadTime(elapsed);
+        }
+    }
+
+    private class RxBatchSubscriber extends Subscriber<List<EventElement<K, V>>> implements FrameSlicer.Target<EventElement<K, V>> {
+
+        private final ChangeBatch changeBatch = new ChangeBatch();
+        // Only when there is a frame budget
+        private final FrameSlicer<EventElement<K, V>> slicer;
+
+        RxBatchSubscriber(Scheduler mainScheduler, AdapterOptions options) {
+            if (options.getFrameBudgetNanos() > 0 && !isDiffing) {
+                final Scheduler.Worker mainWorker = mainScheduler.createWorker();
+                add(mainWorker);
+                slicer = new FrameSlicer<>(mainWorker, options.getFrameBudgetNanos(), options.getFrameClock(), this);
             } else {
-                EventElement<K, V> currentRxEvent;
-                switch (rxEvent.getData().getType()) {
-                    case ADD:
-                        if ((currentRxEvent = items.put(rxEvent.getData().getKey(), rxEvent)) != null) {
-                            final int orgPos = getIndexOf(currentRxEvent);
-                            treeSet.remove(currentRxEvent);
-                            treeSet.add(rxEvent);
-                            final int newPos = getIndexOf(rxEvent);
-                            if (orgPos != newPos) {
-                                notifyItemMoved(orgPos, newPos);
-                            }
-                            notifyItemChanged(newPos);
-                        }
-                        else {
-                            treeSet.add(rxEvent);
-                            notifyItemInserted(getIndexOf(rxEvent));
-                        }
-                        break;
-                    case REMOVE:
-                        currentRxEvent = items.remove(rxEvent.getData().getKey());
-                        if (currentRxEvent != null) {
-                            int index = getIndexOf(currentRxEvent);
-                            if (treeSet.remove(currentRxEvent)) {
-                                notifyItemRemoved(index);
-                            }
-                        }
-                        break;
+                slicer = null;
+            }
+        }
+
+        @Override
+        public void onCompleted() {
+            unsubscribe();
+        }
+
+        @Override
+        public void onError(Throwable e) {
+            RxRecyclerViewAdapter.this.onError(this.getClass(), e);
+        }
+
+        @Override
+        public void onNext(List<EventElement<K, V>> rxEvents) {
+            final long start = isMetered ? System.nanoTime() : 0;
+            if (isMetered)
+                metrics.onQueueDepth(queueDepth.addAndGet(-rxEvents.size()));
+            if (slicer != null) {
+                slicer.offer(rxEvents);
+                return;
+            }
+
+            applyBatch(rxEvents, changeBatch);
+            changeBatch.dispatch(notifier);
+
+            if (isMetered) {
+                final long elapsed = System.nanoTime() - start;
+                metrics.onEventsApplied(rxEvents.size(), elapsed);
+                metrics.onModelSize(model.size());
+                metrics.onMainThreadTime(elapsed);
+            }
+        }
+
+        @Override
+        public void apply(EventElement<K, V> element) {
+            RxRecyclerViewAdapter.this.apply(element, changeBatch);
+        }
+
+        @Override
+        public void onSliceEnd(int count, long elapsedNanos) {
+            changeBatch.dispatch(notifier);
+            if (isMetered) {
+                metrics.onEventsApplied(count, elapsedNanos);
+                metrics.onModelSize(model.size());
+                metrics.onMainThreadTime(elapsedNanos);
+            }
+        }
+    }
+
+    /**
+     * Applies batches to the model off the main thread.  The main thread only swaps in the new
+     * snapshot and replays the changes which lead to it.  If the main thread falls behind, pending
+     * changes are merged and only the newest snapshot is kept.
+     */
+    private class RxBackgroundSubscriber extends Subscriber<List<EventElement<K, V>>> {
+
+        private final Scheduler.Worker mainWorker;
+
+        private ElementSnapshot<K, V> pendingSnapshot;
+        private ChangeBatch pendingChanges;
+        // Only kept when metered
+        private int pendingCount;
+        private long pendingSinceNanos;
+
+        private final Action0 swapAction = new Action0() {
+            @Override
+            public void call() {
+                final long start = isMetered ? System.nanoTime() : 0;
+                final ElementSnapshot<K, V> snapshot;
+                final ChangeBatch changes;
+                final int count;
+                final long since;
+                synchronized (RxBackgroundSubscriber.this) {
+                    snapshot = pendingSnapshot;
+                    changes = pendingChanges;
+                    count = pendingCount;
+                    since = pendingSinceNanos;
+                    pendingSnapshot = null;
+                    pendingChanges = null;
+                    pendingCount = 0;
+                }
+                if (snapshot != null) {
+                    elements = snapshot;
+                    changes.dispatch(notifier);
+                    if (isMetered) {
+                        final long end = System.nanoTime();
+                        metrics.onEventsApplied(count, end - since);
+                        metrics.onMainThreadTime(end - start);
+                    }
+                }
+            }
+        };
+
+        RxBackgroundSubscriber(Scheduler mainScheduler) {
+            mainWorker = mainScheduler.createWorker();
+            add(mainWorker);
+        }
+
+        @Override
+        public void onCompleted() {
+            unsubscribe();
+        }
+
+        @Override
+        public void onError(Throwable e) {
+            RxRecyclerViewAdapter.this.onError(this.getClass(), e);
+        }
+
+        @Override
+        public void onNext(List<EventElement<K, V>> rxEvents) {
+            final long start = isMetered ? System.nanoTime() : 0;
+            if (isMetered)
+                metrics.onQueueDepth(queueDepth.addAndGet(-rxEvents.size()));
+
+            ChangeBatch changes = new ChangeBatch();
+            applyBatch(rxEvents, changes);
+            if (isMetered)
+                metrics.onModelSize(model.size());
+            if (changes.isEmpty()) {
+                // Nothing for the main thread to do
+                if (isMetered)
+                    metrics.onEventsApplied(rxEvents.size(), System.nanoTime() - start);
+                return;
+            }
+
+            ElementSnapshot<K, V> snapshot = model.snapshot();
+            synchronized (this) {
+                if (pendingSnapshot == null) {
+                    pendingChanges = changes;
+                    pendingSinceNanos = start;
+                    mainWorker.schedule(swapAction);
+                } else {
+                    changes.dispatch(pendingChanges);
                 }
+                pendingSnapshot = snapshot;
+                pendingCount += rxEvents.size();
             }
-            postProcessElement(rxEvent);
         }
     }
 }
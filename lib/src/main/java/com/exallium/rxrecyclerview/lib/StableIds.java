@@ -0,0 +1,68 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2015 Alex Hart
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.exallium.rxrecyclerview.lib;
+
+import com.exallium.rxrecyclerview.lib.element.EventElement;
+
+/**
+ * The stable IDs RxRecyclerViewAdapter hands to RecyclerView.
+ *
+ * Data elements get the ID of their key, with every bit the KeyHasher returned.  Header, footer
+ * and empty elements get IDs in a reserved range at the very bottom of the long range, made from
+ * their mask and the hash of their group key, so they stay the same however often a group empties
+ * and starts again.  A key whose ID falls in the reserved range is rejected, which for
+ * KeyHasher.LONG means keys within 2^34 of Long.MIN_VALUE.
+ */
+public final class StableIds {
+
+    private static final int MASK_SHIFT = 32;
+
+    /**
+     * The lowest ID a data element can have.  Everything below is reserved for decorations.
+     */
+    public static final long MIN_DATA_ID = Long.MIN_VALUE + (4L << MASK_SHIFT);
+
+    private StableIds() { }
+
+    /**
+     * @param keyId The ID a KeyHasher returned for the key
+     * @return The ID of the data element with that key
+     * @throws IllegalArgumentException If the ID falls in the range reserved for decorations
+     */
+    public static long ofData(long keyId) {
+        if (keyId < MIN_DATA_ID)
+            throw new IllegalArgumentException("Key ID " + keyId + " is reserved for headers, footers and empty elements");
+        return keyId;
+    }
+
+    /**
+     * @param element A header, footer or empty element
+     * @return Its ID, from its mask and group key
+     */
+    public static long ofDecoration(EventElement<?, ?> element) {
+        final long mask = element.getViewType() >> EventElement.MASK_SHIFT;
+        return Long.MIN_VALUE + (mask << MASK_SHIFT) + (element.getElementGroup().getKey().hashCode() & 0xffffffffL);
+    }
+}
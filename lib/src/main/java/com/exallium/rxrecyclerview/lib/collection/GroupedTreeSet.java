@@ -0,0 +1,495 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2015 Alex Hart
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.exallium.rxrecyclerview.lib.collection;
+
+import rx.functions.Func1;
+
+import java.util.AbstractSet;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.ConcurrentModificationException;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * Sorted Set of elements which belong to groups, which also knows the position of each element
+ * and where each group starts.
+ *
+ * Groups are kept in an AVL tree where each node knows how many elements its subtree holds, and
+ * each group keeps its own elements in an IndexedTreeSet.  With g groups of around k elements,
+ * adding, removing, get and indexOf are O(log g + log k), and so are finding where a group starts
+ * and which group a position is in.
+ *
+ * Elements must sort by group first, so that every group's elements are next to each other.  Like
+ * TreeSet, elements which compare as equal are considered the same element.
+ *
+ * Not thread safe.
+ *
+ * @param <G> The type of group
+ * @param <E> The type of element we are storing
+ */
+public class GroupedTreeSet<G extends Comparable<? super G>, E extends Comparable<? super E>> extends AbstractSet<E> {
+
+    private static final class Group<G, E extends Comparable<? super E>> {
+        G key;
+        IndexedTreeSet<E> bucket;
+        Group<G, E> left;
+        Group<G, E> right;
+        int height = 1;
+        // The number of elements in this subtree's buckets
+        int weight;
+
+        Group(G key, IndexedTreeSet<E> bucket) {
+            this.key = key;
+            this.bucket = bucket;
+            this.weight = bucket.size();
+        }
+    }
+
+    private final Func1<? super E, ? extends G> groupOf;
+
+    private Group<G, E> root;
+    private int groupCount;
+    private int modCount;
+
+    /**
+     * @param groupOf Returns the group of an element
+     */
+    public GroupedTreeSet(Func1<? super E, ? extends G> groupOf) {
+        this.groupOf = groupOf;
+    }
+
+    @Override
+    public final int size() {
+        return weight(root);
+    }
+
+    @Override
+    public final boolean isEmpty() {
+        return root == null;
+    }
+
+    @Override
+    public final void clear() {
+        root = null;
+        groupCount = 0;
+        modCount++;
+    }
+
+    /**
+     * @return The number of groups with at least one element in them
+     */
+    public final int getGroupCount() {
+        return groupCount;
+    }
+
+    /**
+     * Replaces the contents of this set in O(n).
+     * @param sorted Elements in ascending order, where no two elements compare as equal
+     */
+    public final void buildFromSorted(List<? extends E> sorted) {
+        final List<Group<G, E>> groups = new ArrayList<>();
+        int start = 0;
+        while (start < sorted.size()) {
+            final G key = groupOf.call(sorted.get(start));
+            int end = start + 1;
+            while (end < sorted.size() && key.compareTo(groupOf.call(sorted.get(end))) == 0)
+                end++;
+            final IndexedTreeSet<E> bucket = new IndexedTreeSet<>();
+            bucket.buildFromSorted(sorted.subList(start, end));
+            groups.add(new Group<>(key, bucket));
+            start = end;
+        }
+        root = build(groups, 0, groups.size());
+        groupCount = groups.size();
+        modCount++;
+    }
+
+    /**
+     * Adds an element to the set if an equal element does not already exist.
+     * @param element The element to add
+     * @return true if the set changed
+     */
+    @Override
+    public final boolean add(E element) {
+        if (element == null)
+            throw new NullPointerException();
+        final G key = groupOf.call(element);
+        Group<G, E> group = findGroup(key);
+        if (group == null) {
+            final IndexedTreeSet<E> bucket = new IndexedTreeSet<>();
+            bucket.add(element);
+            root = insert(root, new Group<>(key, bucket));
+            groupCount++;
+        } else if (group.bucket.add(element)) {
+            adjustWeight(key, 1);
+        } else {
+            return false;
+        }
+        modCount++;
+        return true;
+    }
+
+    /**
+     * Removes the element equal to the given one.
+     * @param o The element to remove
+     * @return true if the set changed
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public final boolean remove(Object o) {
+        if (o == null)
+            return false;
+        final E element = (E) o;
+        final G key = groupOf.call(element);
+        final Group<G, E> group = findGroup(key);
+        if (group == null || !group.bucket.remove(element))
+            return false;
+        if (group.bucket.isEmpty()) {
+            root = delete(root, key);
+            groupCount--;
+        } else {
+            adjustWeight(key, -1);
+        }
+        modCount++;
+        return true;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public final boolean contains(Object o) {
+        return o != null && find((E) o) != null;
+    }
+
+    /**
+     * @param element The element to look for
+     * @return The element in this set which is equal to the given one, or null
+     */
+    public final E find(E element) {
+        final Group<G, E> group = findGroup(groupOf.call(element));
+        return group == null ? null : group.bucket.find(element);
+    }
+
+    /**
+     * @param position The position of the element, between 0 and size - 1
+     * @return The element at the given position
+     */
+    public final E get(int position) {
+        if (position < 0 || position >= size())
+            throw new IndexOutOfBoundsException("Position " + position + ", Size " + size());
+
+        Group<G, E> node = root;
+        while (true) {
+            int leftWeight = weight(node.left);
+            if (position < leftWeight) {
+                node = node.left;
+                continue;
+            }
+            position -= leftWeight;
+            if (position < node.bucket.size())
+                return node.bucket.get(position);
+            position -= node.bucket.size();
+            node = node.right;
+        }
+    }
+
+    /**
+     * @param element The element to find
+     * @return -1 if the element does not exist in the set, otherwise the element's position
+     */
+    public final int indexOf(E element) {
+        final G key = groupOf.call(element);
+        int start = 0;
+        Group<G, E> node = root;
+        while (node != null) {
+            int comparison = key.compareTo(node.key);
+            if (comparison < 0) {
+                node = node.left;
+            } else if (comparison > 0) {
+                start += weight(node.left) + node.bucket.size();
+                node = node.right;
+            } else {
+                int index = node.bucket.indexOf(element);
+                return index == -1 ? -1 : start + weight(node.left) + index;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * @param element Any element, in the set or not
+     * @return The number of elements which sort before the given one, which is its position if it
+     *         is in the set, or the position it would be added at if not
+     */
+    public final int rank(E element) {
+        final G key = groupOf.call(element);
+        int start = 0;
+        Group<G, E> node = root;
+        while (node != null) {
+            int comparison = key.compareTo(node.key);
+            if (comparison < 0) {
+                node = node.left;
+            } else if (comparison > 0) {
+                start += weight(node.left) + node.bucket.size();
+                node = node.right;
+            } else {
+                return start + weight(node.left) + node.bucket.rank(element);
+            }
+        }
+        return start;
+    }
+
+    /**
+     * @param key The group to find
+     * @return -1 if the group has no elements, otherwise the position of its first element
+     */
+    public final int getGroupStart(G key) {
+        int start = 0;
+        Group<G, E> node = root;
+        while (node != null) {
+            int comparison = key.compareTo(node.key);
+            if (comparison < 0) {
+                node = node.left;
+            } else if (comparison > 0) {
+                start += weight(node.left) + node.bucket.size();
+                node = node.right;
+            } else {
+                return start + weight(node.left);
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * @param key The group to find
+     * @return The number of elements in the group
+     */
+    public final int getGroupSize(G key) {
+        final Group<G, E> group = findGroup(key);
+        return group == null ? 0 : group.bucket.size();
+    }
+
+    /**
+     * @param position A position between 0 and size - 1
+     * @return The group of the element at the given position
+     */
+    public final G getGroupAt(int position) {
+        if (position < 0 || position >= size())
+            throw new IndexOutOfBoundsException("Position " + position + ", Size " + size());
+
+        Group<G, E> node = root;
+        while (true) {
+            int leftWeight = weight(node.left);
+            if (position < leftWeight) {
+                node = node.left;
+                continue;
+            }
+            position -= leftWeight;
+            if (position < node.bucket.size())
+                return node.key;
+            position -= node.bucket.size();
+            node = node.right;
+        }
+    }
+
+    @Override
+    public final Iterator<E> iterator() {
+        return new InOrderIterator();
+    }
+
+    private Group<G, E> findGroup(G key) {
+        Group<G, E> node = root;
+        while (node != null) {
+            int comparison = key.compareTo(node.key);
+            if (comparison == 0)
+                return node;
+            node = comparison < 0 ? node.left : node.right;
+        }
+        return null;
+    }
+
+    // Adds delta to the weight of every node from the root down to the given group
+    private void adjustWeight(G key, int delta) {
+        Group<G, E> node = root;
+        while (node != null) {
+            node.weight += delta;
+            int comparison = key.compareTo(node.key);
+            if (comparison == 0)
+                return;
+            node = comparison < 0 ? node.left : node.right;
+        }
+    }
+
+    private Group<G, E> build(List<Group<G, E>> groups, int from, int to) {
+        if (from >= to)
+            return null;
+        int middle = (from + to) >>> 1;
+        Group<G, E> node = groups.get(middle);
+        node.left = build(groups, from, middle);
+        node.right = build(groups, middle + 1, to);
+        update(node);
+        return node;
+    }
+
+    private Group<G, E> insert(Group<G, E> node, Group<G, E> group) {
+        if (node == null)
+            return group;
+
+        if (group.key.compareTo(node.key) < 0) {
+            node.left = insert(node.left, group);
+        } else {
+            node.right = insert(node.right, group);
+        }
+        return balance(node);
+    }
+
+    private Group<G, E> delete(Group<G, E> node, G key) {
+        if (node == null)
+            return null;
+
+        int comparison = key.compareTo(node.key);
+        if (comparison < 0) {
+            node.left = delete(node.left, key);
+        } else if (comparison > 0) {
+            node.right = delete(node.right, key);
+        } else {
+            if (node.left == null)
+                return node.right;
+            if (node.right == null)
+                return node.left;
+
+            Group<G, E> successor = node.right;
+            while (successor.left != null)
+                successor = successor.left;
+            node.key = successor.key;
+            node.bucket = successor.bucket;
+            node.right = deleteFirst(node.right);
+        }
+        return balance(node);
+    }
+
+    private Group<G, E> deleteFirst(Group<G, E> node) {
+        if (node.left == null)
+            return node.right;
+        node.left = deleteFirst(node.left);
+        return balance(node);
+    }
+
+    private Group<G, E> balance(Group<G, E> node) {
+        update(node);
+        int factor = height(node.left) - height(node.right);
+        if (factor > 1) {
+            if (height(node.left.left) < height(node.left.right))
+                node.left = rotateLeft(node.left);
+            return rotateRight(node);
+        } else if (factor < -1) {
+            if (height(node.right.right) < height(node.right.left))
+                node.right = rotateRight(node.right);
+            return rotateLeft(node);
+        }
+        return node;
+    }
+
+    private Group<G, E> rotateLeft(Group<G, E> node) {
+        Group<G, E> pivot = node.right;
+        node.right = pivot.left;
+        pivot.left = node;
+        update(node);
+        update(pivot);
+        return pivot;
+    }
+
+    private Group<G, E> rotateRight(Group<G, E> node) {
+        Group<G, E> pivot = node.left;
+        node.left = pivot.right;
+        pivot.right = node;
+        update(node);
+        update(pivot);
+        return pivot;
+    }
+
+    private static <G, E extends Comparable<? super E>> void update(Group<G, E> node) {
+        node.height = Math.max(height(node.left), height(node.right)) + 1;
+        node.weight = weight(node.left) + node.bucket.size() + weight(node.right);
+    }
+
+    private static int height(Group<?, ?> node) {
+        return node == null ? 0 : node.height;
+    }
+
+    private static int weight(Group<?, ?> node) {
+        return node == null ? 0 : node.weight;
+    }
+
+    private final class InOrderIterator implements Iterator<E> {
+
+        private final Deque<Group<G, E>> stack = new ArrayDeque<>();
+        private final int expectedModCount = modCount;
+        private Iterator<E> bucket;
+
+        InOrderIterator() {
+            pushLeft(root);
+            advance();
+        }
+
+        private void pushLeft(Group<G, E> node) {
+            while (node != null) {
+                stack.push(node);
+                node = node.left;
+            }
+        }
+
+        private void advance() {
+            while ((bucket == null || !bucket.hasNext()) && !stack.isEmpty()) {
+                Group<G, E> node = stack.pop();
+                pushLeft(node.right);
+                bucket = node.bucket.iterator();
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            return bucket != null && bucket.hasNext();
+        }
+
+        @Override
+        public E next() {
+            if (modCount != expectedModCount)
+                throw new ConcurrentModificationException();
+            if (!hasNext())
+                throw new NoSuchElementException();
+            E element = bucket.next();
+            advance();
+            return element;
+        }
+
+        @Override
+        public void remove() {
+            throw new UnsupportedOperationException();
+        }
+    }
+}
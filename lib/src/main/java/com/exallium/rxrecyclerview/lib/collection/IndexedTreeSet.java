@@ -0,0 +1,357 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2015 Alex Hart
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.exallium.rxrecyclerview.lib.collection;
+
+import java.util.AbstractSet;
+import java.util.ArrayDeque;
+import java.util.ConcurrentModificationException;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * Sorted Set which also knows the position of each of its elements.
+ *
+ * Backed by an AVL tree where each node keeps the size of its subtree, so that both
+ * position to element (get) and element to position (indexOf) lookups are O(log n), as are
+ * add and remove.  Like TreeSet, elements which compare as equal are considered the same element.
+ *
+ * Not thread safe.
+ *
+ * @param <E> The type of element we are storing
+ */
+public class IndexedTreeSet<E extends Comparable<? super E>> extends AbstractSet<E> {
+
+    private static final class Node<E> {
+        E element;
+        Node<E> left;
+        Node<E> right;
+        int height = 1;
+        int size = 1;
+
+        Node(E element) {
+            this.element = element;
+        }
+    }
+
+    private Node<E> root;
+    private boolean isModified;
+    private int modCount;
+
+    @Override
+    public final int size() {
+        return size(root);
+    }
+
+    @Override
+    public final boolean isEmpty() {
+        return root == null;
+    }
+
+    @Override
+    public final void clear() {
+        root = null;
+        modCount++;
+    }
+
+    /**
+     * Replaces the contents of this set in O(n), rather than the O(n log n) it would take to add
+     * the elements one by one.
+     * @param sorted Elements in ascending order, where no two elements compare as equal
+     */
+    public final void buildFromSorted(List<? extends E> sorted) {
+        root = build(sorted, 0, sorted.size());
+        modCount++;
+    }
+
+    /**
+     * Adds an element to the set if an equal element does not already exist.
+     * @param element The element to add
+     * @return true if the set changed
+     */
+    @Override
+    public final boolean add(E element) {
+        if (element == null)
+            throw new NullPointerException();
+        isModified = false;
+        root = insert(root, element);
+        if (isModified)
+            modCount++;
+        return isModified;
+    }
+
+    /**
+     * Removes the element equal to the given one.
+     * @param o The element to remove
+     * @return true if the set changed
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public final boolean remove(Object o) {
+        if (o == null)
+            return false;
+        isModified = false;
+        root = delete(root, (E) o);
+        if (isModified)
+            modCount++;
+        return isModified;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public final boolean contains(Object o) {
+        return o != null && find((E) o) != null;
+    }
+
+    /**
+     * @param element The element to look for
+     * @return The element in this set which is equal to the given one, or null
+     */
+    public final E find(E element) {
+        Node<E> node = root;
+        while (node != null) {
+            int comparison = element.compareTo(node.element);
+            if (comparison == 0)
+                return node.element;
+            node = comparison < 0 ? node.left : node.right;
+        }
+        return null;
+    }
+
+    /**
+     * @param position The position of the element, between 0 and size - 1
+     * @return The element at the given position
+     */
+    public final E get(int position) {
+        if (position < 0 || position >= size())
+            throw new IndexOutOfBoundsException("Position " + position + ", Size " + size());
+
+        Node<E> node = root;
+        while (true) {
+            int leftSize = size(node.left);
+            if (position < leftSize) {
+                node = node.left;
+            } else if (position > leftSize) {
+                position -= leftSize + 1;
+                node = node.right;
+            } else {
+                return node.element;
+            }
+        }
+    }
+
+    /**
+     * @param element The element to find
+     * @return -1 if the element does not exist in the set, otherwise the element's position
+     */
+    public final int indexOf(E element) {
+        int index = 0;
+        Node<E> node = root;
+        while (node != null) {
+            int comparison = element.compareTo(node.element);
+            if (comparison < 0) {
+                node = node.left;
+            } else if (comparison > 0) {
+                index += size(node.left) + 1;
+                node = node.right;
+            } else {
+                return index + size(node.left);
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * @param element Any element, in the set or not
+     * @return The number of elements which sort before the given one, which is its position if it
+     *         is in the set, or the position it would be added at if not
+     */
+    public final int rank(E element) {
+        int index = 0;
+        Node<E> node = root;
+        while (node != null) {
+            int comparison = element.compareTo(node.element);
+            if (comparison < 0) {
+                node = node.left;
+            } else if (comparison > 0) {
+                index += size(node.left) + 1;
+                node = node.right;
+            } else {
+                return index + size(node.left);
+            }
+        }
+        return index;
+    }
+
+    @Override
+    public final Iterator<E> iterator() {
+        return new InOrderIterator();
+    }
+
+    private Node<E> build(List<? extends E> sorted, int from, int to) {
+        if (from >= to)
+            return null;
+        int middle = (from + to) >>> 1;
+        Node<E> node = new Node<>(sorted.get(middle));
+        node.left = build(sorted, from, middle);
+        node.right = build(sorted, middle + 1, to);
+        update(node);
+        return node;
+    }
+
+    private Node<E> insert(Node<E> node, E element) {
+        if (node == null) {
+            isModified = true;
+            return new Node<>(element);
+        }
+
+        int comparison = element.compareTo(node.element);
+        if (comparison < 0) {
+            node.left = insert(node.left, element);
+        } else if (comparison > 0) {
+            node.right = insert(node.right, element);
+        } else {
+            return node;
+        }
+        return isModified ? balance(node) : node;
+    }
+
+    private Node<E> delete(Node<E> node, E element) {
+        if (node == null)
+            return null;
+
+        int comparison = element.compareTo(node.element);
+        if (comparison < 0) {
+            node.left = delete(node.left, element);
+        } else if (comparison > 0) {
+            node.right = delete(node.right, element);
+        } else {
+            isModified = true;
+            if (node.left == null)
+                return node.right;
+            if (node.right == null)
+                return node.left;
+
+            Node<E> successor = node.right;
+            while (successor.left != null)
+                successor = successor.left;
+            node.element = successor.element;
+            node.right = deleteFirst(node.right);
+        }
+        return isModified ? balance(node) : node;
+    }
+
+    private Node<E> deleteFirst(Node<E> node) {
+        if (node.left == null)
+            return node.right;
+        node.left = deleteFirst(node.left);
+        return balance(node);
+    }
+
+    private Node<E> balance(Node<E> node) {
+        update(node);
+        int factor = height(node.left) - height(node.right);
+        if (factor > 1) {
+            if (height(node.left.left) < height(node.left.right))
+                node.left = rotateLeft(node.left);
+            return rotateRight(node);
+        } else if (factor < -1) {
+            if (height(node.right.right) < height(node.right.left))
+                node.right = rotateRight(node.right);
+            return rotateLeft(node);
+        }
+        return node;
+    }
+
+    private Node<E> rotateLeft(Node<E> node) {
+        Node<E> pivot = node.right;
+        node.right = pivot.left;
+        pivot.left = node;
+        update(node);
+        update(pivot);
+        return pivot;
+    }
+
+    private Node<E> rotateRight(Node<E> node) {
+        Node<E> pivot = node.left;
+        node.left = pivot.right;
+        pivot.right = node;
+        update(node);
+        update(pivot);
+        return pivot;
+    }
+
+    private static <E> void update(Node<E> node) {
+        node.height = Math.max(height(node.left), height(node.right)) + 1;
+        node.size = size(node.left) + size(node.right) + 1;
+    }
+
+    private static int height(Node<?> node) {
+        return node == null ? 0 : node.height;
+    }
+
+    private static int size(Node<?> node) {
+        return node == null ? 0 : node.size;
+    }
+
+    private final class InOrderIterator implements Iterator<E> {
+
+        private final Deque<Node<E>> stack = new ArrayDeque<>();
+        private final int expectedModCount = modCount;
+
+        InOrderIterator() {
+            pushLeft(root);
+        }
+
+        private void pushLeft(Node<E> node) {
+            while (node != null) {
+                stack.push(node);
+                node = node.left;
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            return !stack.isEmpty();
+        }
+
+        @Override
+        public E next() {
+            if (modCount != expectedModCount)
+                throw new ConcurrentModificationException();
+            if (stack.isEmpty())
+                throw new NoSuchElementException();
+            Node<E> node = stack.pop();
+            pushLeft(node.right);
+            return node.element;
+        }
+
+        @Override
+        public void remove() {
+            throw new UnsupportedOperationException();
+        }
+    }
+}
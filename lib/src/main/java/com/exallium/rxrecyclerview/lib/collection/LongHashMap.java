@@ -0,0 +1,185 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2015 Alex Hart
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.exallium.rxrecyclerview.lib.collection;
+
+import java.util.Arrays;
+
+/**
+ * Map from primitive long keys to non null values.
+ *
+ * Uses open addressing with linear probing over parallel arrays, so unlike HashMap&lt;Long, V&gt;
+ * there is no boxed key and no entry object per mapping.  Removal shifts later entries back into
+ * the freed slot instead of leaving a tombstone, so lookups stay short under heavy churn.
+ *
+ * Not thread safe.
+ *
+ * @param <V> The type of value we are storing
+ */
+public class LongHashMap<V> {
+
+    private static final int MIN_CAPACITY = 16;
+
+    private long[] keys;
+    private Object[] values;
+    private int mask;
+    private int size;
+
+    public LongHashMap() {
+        this(MIN_CAPACITY);
+    }
+
+    /**
+     * @param expectedSize The number of mappings to size the table for
+     */
+    public LongHashMap(int expectedSize) {
+        int capacity = MIN_CAPACITY;
+        while (capacity < expectedSize * 2 && capacity < (1 << 30))
+            capacity <<= 1;
+        allocate(capacity);
+    }
+
+    public final int size() {
+        return size;
+    }
+
+    public final boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * @param key The key to look up
+     * @return The value for the given key, or null if there is none
+     */
+    @SuppressWarnings("unchecked")
+    public final V get(long key) {
+        int slot = hash(key) & mask;
+        Object value;
+        while ((value = values[slot]) != null) {
+            if (keys[slot] == key)
+                return (V) value;
+            slot = (slot + 1) & mask;
+        }
+        return null;
+    }
+
+    public final boolean containsKey(long key) {
+        return get(key) != null;
+    }
+
+    /**
+     * @param key   The key to map
+     * @param value The value to map it to, which may not be null
+     * @return The value previously mapped to the key, or null if there was none
+     */
+    @SuppressWarnings("unchecked")
+    public final V put(long key, V value) {
+        if (value == null)
+            throw new NullPointerException("LongHashMap does not support null values");
+        int slot = hash(key) & mask;
+        Object current;
+        while ((current = values[slot]) != null) {
+            if (keys[slot] == key) {
+                values[slot] = value;
+                return (V) current;
+            }
+            slot = (slot + 1) & mask;
+        }
+        keys[slot] = key;
+        values[slot] = value;
+        // Keep the table at most half full
+        if (++size * 2 > values.length)
+            resize(values.length * 2);
+        return null;
+    }
+
+    /**
+     * @param key The key to remove
+     * @return The value which was mapped to the key, or null if there was none
+     */
+    @SuppressWarnings("unchecked")
+    public final V remove(long key) {
+        int slot = hash(key) & mask;
+        Object current;
+        while ((current = values[slot]) != null) {
+            if (keys[slot] == key) {
+                shiftBack(slot);
+                size--;
+                return (V) current;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return null;
+    }
+
+    public final void clear() {
+        Arrays.fill(values, null);
+        size = 0;
+    }
+
+    // Moves entries after the freed slot back, as long as that doesn't put them before their home slot
+    private void shiftBack(int free) {
+        int slot = free;
+        while (true) {
+            slot = (slot + 1) & mask;
+            if (values[slot] == null)
+                break;
+            int home = hash(keys[slot]) & mask;
+            // Skip entries whose home lies cyclically within (free, slot]
+            if (free <= slot ? (free < home && home <= slot) : (free < home || home <= slot))
+                continue;
+            keys[free] = keys[slot];
+            values[free] = values[slot];
+            free = slot;
+        }
+        values[free] = null;
+    }
+
+    private void resize(int capacity) {
+        final long[] oldKeys = keys;
+        final Object[] oldValues = values;
+        allocate(capacity);
+        for (int i = 0; i < oldValues.length; i++) {
+            if (oldValues[i] == null)
+                continue;
+            int slot = hash(oldKeys[i]) & mask;
+            while (values[slot] != null)
+                slot = (slot + 1) & mask;
+            keys[slot] = oldKeys[i];
+            values[slot] = oldValues[i];
+        }
+    }
+
+    private void allocate(int capacity) {
+        keys = new long[capacity];
+        values = new Object[capacity];
+        mask = capacity - 1;
+    }
+
+    private static int hash(long key) {
+        // Sequential keys such as timestamps would otherwise fill runs of neighbouring slots
+        int h = (int) (key ^ (key >>> 32)) * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+}
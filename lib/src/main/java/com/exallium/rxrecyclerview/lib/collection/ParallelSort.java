@@ -0,0 +1,152 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2015 Alex Hart
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.exallium.rxrecyclerview.lib.collection;
+
+import rx.Scheduler;
+import rx.exceptions.Exceptions;
+import rx.functions.Action0;
+import rx.subscriptions.CompositeSubscription;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Runs work in chunks spread over the workers of a Scheduler and the calling thread.  Sorting
+ * sorts chunks in parallel, then merges them pairwise, each round of merges in parallel too.
+ * Anything no bigger than one chunk is handled on the calling thread alone.
+ */
+public final class ParallelSort {
+
+    public static final int DEFAULT_CHUNK_SIZE = 4096;
+
+    private ParallelSort() { }
+
+    public interface ChunkTask {
+        void run(int chunk);
+    }
+
+    /**
+     * Sorts the whole array, which is stable like Arrays.sort.
+     * @param items      What to sort, in place
+     * @param comparator The order to sort in
+     * @param chunkSize  The number of items each parallel task sorts
+     * @param scheduler  Whose workers help sort
+     */
+    public static <T> void sort(final T[] items, final Comparator<? super T> comparator,
+                                final int chunkSize, Scheduler scheduler) {
+        final int size = items.length;
+        inParallel((size + chunkSize - 1) / chunkSize, scheduler, new ChunkTask() {
+            @Override
+            public void run(int chunk) {
+                Arrays.sort(items, chunk * chunkSize, Math.min(size, (chunk + 1) * chunkSize), comparator);
+            }
+        });
+        if (size <= chunkSize)
+            return;
+
+        T[] from = items;
+        T[] to = Arrays.copyOf(items, size);
+        for (int width = chunkSize; width < size; width *= 2) {
+            final T[] source = from;
+            final T[] target = to;
+            final int run = width;
+            inParallel((size + 2 * run - 1) / (2 * run), scheduler, new ChunkTask() {
+                @Override
+                public void run(int pair) {
+                    final int start = pair * 2 * run;
+                    final int middle = Math.min(size, start + run);
+                    final int end = Math.min(size, start + 2 * run);
+                    int left = start;
+                    int right = middle;
+                    for (int i = start; i < end; i++) {
+                        if (right >= end || (left < middle && comparator.compare(source[left], source[right]) <= 0)) {
+                            target[i] = source[left++];
+                        } else {
+                            target[i] = source[right++];
+                        }
+                    }
+                }
+            });
+            from = target;
+            to = source;
+        }
+        if (from != items)
+            System.arraycopy(from, 0, items, 0, size);
+    }
+
+    /**
+     * Runs every chunk of a task and returns once all of them are done.  The first error any chunk
+     * throws is rethrown.
+     * @param chunks    The number of chunks
+     * @param scheduler Whose workers help run them
+     * @param task      Run once for each chunk
+     */
+    public static void inParallel(final int chunks, Scheduler scheduler, final ChunkTask task) {
+        final AtomicInteger nextChunk = new AtomicInteger();
+        final CountDownLatch done = new CountDownLatch(chunks);
+        final AtomicReference<Throwable> error = new AtomicReference<>();
+
+        // Chunks are claimed rather than assigned, and the calling thread claims them too, so this
+        // finishes even if none of the helpers ever gets a thread
+        final Action0 runChunks = new Action0() {
+            @Override
+            public void call() {
+                int chunk;
+                while ((chunk = nextChunk.getAndIncrement()) < chunks) {
+                    try {
+                        task.run(chunk);
+                    } catch (Throwable e) {
+                        error.compareAndSet(null, e);
+                    } finally {
+                        done.countDown();
+                    }
+                }
+            }
+        };
+
+        final CompositeSubscription helpers = new CompositeSubscription();
+        final int helperCount = Math.min(chunks, Runtime.getRuntime().availableProcessors()) - 1;
+        for (int i = 0; i < helperCount; i++) {
+            final Scheduler.Worker helper = scheduler.createWorker();
+            helpers.add(helper);
+            helper.schedule(runChunks);
+        }
+        runChunks.call();
+        try {
+            done.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw Exceptions.propagate(e);
+        } finally {
+            helpers.unsubscribe();
+        }
+
+        if (error.get() != null)
+            throw Exceptions.propagate(error.get());
+    }
+}
@@ -0,0 +1,241 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2015 Alex Hart
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.exallium.rxrecyclerview.lib.collection;
+
+import java.util.List;
+
+/**
+ * Immutable sorted set which also knows the position of each of its elements.  Adding or removing
+ * an element returns a new tree and leaves this one as it was, copying only the O(log n) nodes on
+ * the path to the change and sharing the rest.  Since a tree never changes once built, it can be
+ * read from any thread without locking, however the latest version is being written.
+ *
+ * Backed by a weight balanced tree where each node keeps the size of its subtree, so get and
+ * indexOf are O(log n), as are add and remove.  Like TreeSet, elements which compare as equal are
+ * considered the same element.
+ *
+ * @param <E> The type of element we are storing
+ */
+public final class PersistentIndexedTree<E extends Comparable<? super E>> {
+
+    // Balance parameters from Hirai and Yamamoto, "Balancing weight-balanced trees"
+    private static final int DELTA = 3;
+    private static final int RATIO = 2;
+
+    private static final PersistentIndexedTree<?> EMPTY = new PersistentIndexedTree<>(null);
+
+    private static final class Node<E> {
+        final E element;
+        final Node<E> left;
+        final Node<E> right;
+        final int size;
+
+        Node(E element, Node<E> left, Node<E> right) {
+            this.element = element;
+            this.left = left;
+            this.right = right;
+            this.size = size(left) + size(right) + 1;
+        }
+    }
+
+    private final Node<E> root;
+
+    private PersistentIndexedTree(Node<E> root) {
+        this.root = root;
+    }
+
+    @SuppressWarnings("unchecked")
+    public static <E extends Comparable<? super E>> PersistentIndexedTree<E> empty() {
+        return (PersistentIndexedTree<E>) EMPTY;
+    }
+
+    /**
+     * Builds a perfectly balanced tree.  O(n)
+     * @param sorted Elements in ascending order, where no two elements compare as equal
+     */
+    public static <E extends Comparable<? super E>> PersistentIndexedTree<E> fromSorted(List<? extends E> sorted) {
+        return sorted.isEmpty() ? PersistentIndexedTree.<E>empty()
+                : new PersistentIndexedTree<>(PersistentIndexedTree.<E>build(sorted, 0, sorted.size()));
+    }
+
+    private static <E> Node<E> build(List<? extends E> sorted, int from, int to) {
+        if (from >= to)
+            return null;
+        final int middle = (from + to) >>> 1;
+        return new Node<E>(sorted.get(middle), PersistentIndexedTree.<E>build(sorted, from, middle),
+                PersistentIndexedTree.<E>build(sorted, middle + 1, to));
+    }
+
+    public int size() {
+        return size(root);
+    }
+
+    public boolean isEmpty() {
+        return root == null;
+    }
+
+    /**
+     * @return A tree which also holds the element, or this tree if it already held an equal one
+     */
+    public PersistentIndexedTree<E> add(E element) {
+        final Node<E> added = add(root, element);
+        return added == root ? this : new PersistentIndexedTree<>(added);
+    }
+
+    /**
+     * @return A tree without the element, or this tree if it held no equal one
+     */
+    public PersistentIndexedTree<E> remove(E element) {
+        final Node<E> removed = remove(root, element);
+        return removed == root ? this : new PersistentIndexedTree<>(removed);
+    }
+
+    /**
+     * @param position The position of the element, between 0 and size - 1
+     */
+    public E get(int position) {
+        if (position < 0 || position >= size())
+            throw new IndexOutOfBoundsException("Position " + position + " of " + size());
+        Node<E> node = root;
+        for (;;) {
+            final int leftSize = size(node.left);
+            if (position < leftSize) {
+                node = node.left;
+            } else if (position > leftSize) {
+                position -= leftSize + 1;
+                node = node.right;
+            } else {
+                return node.element;
+            }
+        }
+    }
+
+    /**
+     * @return -1 if no equal element is in the tree, otherwise the element's position
+     */
+    public int indexOf(E element) {
+        Node<E> node = root;
+        int offset = 0;
+        while (node != null) {
+            final int comparison = element.compareTo(node.element);
+            if (comparison < 0) {
+                node = node.left;
+            } else if (comparison > 0) {
+                offset += size(node.left) + 1;
+                node = node.right;
+            } else {
+                return offset + size(node.left);
+            }
+        }
+        return -1;
+    }
+
+    private static int size(Node<?> node) {
+        return node == null ? 0 : node.size;
+    }
+
+    private static <E extends Comparable<? super E>> Node<E> add(Node<E> node, E element) {
+        if (node == null)
+            return new Node<>(element, null, null);
+        final int comparison = element.compareTo(node.element);
+        if (comparison < 0) {
+            final Node<E> left = add(node.left, element);
+            return left == node.left ? node : balance(node.element, left, node.right);
+        } else if (comparison > 0) {
+            final Node<E> right = add(node.right, element);
+            return right == node.right ? node : balance(node.element, node.left, right);
+        }
+        return node;
+    }
+
+    private static <E extends Comparable<? super E>> Node<E> remove(Node<E> node, E element) {
+        if (node == null)
+            return null;
+        final int comparison = element.compareTo(node.element);
+        if (comparison < 0) {
+            final Node<E> left = remove(node.left, element);
+            return left == node.left ? node : balance(node.element, left, node.right);
+        } else if (comparison > 0) {
+            final Node<E> right = remove(node.right, element);
+            return right == node.right ? node : balance(node.element, node.left, right);
+        }
+        return glue(node.left, node.right);
+    }
+
+    // Joins two subtrees which were balanced against each other, replacing the node between them
+    private static <E> Node<E> glue(Node<E> left, Node<E> right) {
+        if (left == null)
+            return right;
+        if (right == null)
+            return left;
+        if (left.size > right.size) {
+            Node<E> max = left;
+            while (max.right != null)
+                max = max.right;
+            return balance(max.element, removeMax(left), right);
+        }
+        Node<E> min = right;
+        while (min.left != null)
+            min = min.left;
+        return balance(min.element, left, removeMin(right));
+    }
+
+    private static <E> Node<E> removeMin(Node<E> node) {
+        return node.left == null ? node.right : balance(node.element, removeMin(node.left), node.right);
+    }
+
+    private static <E> Node<E> removeMax(Node<E> node) {
+        return node.right == null ? node.left : balance(node.element, node.left, removeMax(node.right));
+    }
+
+    // Restores balance after one side grew or shrank by one element
+    private static <E> Node<E> balance(E element, Node<E> left, Node<E> right) {
+        final int leftSize = size(left);
+        final int rightSize = size(right);
+        if (leftSize + rightSize <= 1)
+            return new Node<>(element, left, right);
+        if (rightSize > DELTA * leftSize)
+            return rotateLeft(element, left, right);
+        if (leftSize > DELTA * rightSize)
+            return rotateRight(element, left, right);
+        return new Node<>(element, left, right);
+    }
+
+    private static <E> Node<E> rotateLeft(E element, Node<E> left, Node<E> right) {
+        final Node<E> inner = right.left;
+        if (size(inner) < RATIO * size(right.right))
+            return new Node<>(right.element, new Node<>(element, left, inner), right.right);
+        return new Node<>(inner.element, new Node<>(element, left, inner.left),
+                new Node<>(right.element, inner.right, right.right));
+    }
+
+    private static <E> Node<E> rotateRight(E element, Node<E> left, Node<E> right) {
+        final Node<E> inner = left.right;
+        if (size(inner) < RATIO * size(left.left))
+            return new Node<>(left.element, left.left, new Node<>(element, inner, right));
+        return new Node<>(inner.element, new Node<>(left.element, left.left, inner.left),
+                new Node<>(element, inner.right, right));
+    }
+}
@@ -0,0 +1,61 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2015 Alex Hart
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.exallium.rxrecyclerview.lib.element;
+
+import com.exallium.rxrecyclerview.lib.GroupComparator;
+import com.exallium.rxrecyclerview.lib.event.BulkEvent;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Wraps the sorted Elements generated from a BulkEvent.  Never ends up in the adapter itself, only
+ * the Elements it carries do.
+ *
+ * @param <K> The Event Key
+ * @param <V> The Event Value
+ */
+public class BulkElement<K, V> extends EventElement<K, V> {
+
+    private static final ElementGroup NO_GROUP = new ElementGroup("", 0, false, null);
+
+    private final List<EventElement<K, V>> elements;
+
+    /**
+     * @param event    The BulkEvent the Elements were generated from
+     * @param elements Elements, sorted and without two Elements comparing as equal
+     */
+    public BulkElement(BulkEvent<K, V> event, GroupComparator<K, V> groupComparator, List<EventElement<K, V>> elements) {
+        super(event, groupComparator, NO_GROUP);
+        this.elements = Collections.unmodifiableList(elements);
+    }
+
+    /**
+     * @return The sorted Elements to load
+     */
+    public final List<EventElement<K, V>> getElements() {
+        return elements;
+    }
+}
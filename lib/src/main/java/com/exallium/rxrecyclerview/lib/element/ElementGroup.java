@@ -0,0 +1,88 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2015 Alex Hart
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.exallium.rxrecyclerview.lib.element;
+
+/**
+ * An interned group key.  Elements hold on to their ElementGroup so that the group key is only
+ * computed once per element, and comparing two groups never has to ask the GroupComparator again.
+ *
+ * Groups from the same GroupRegistry usually carry a rank which follows the order of their keys,
+ * in which case they are compared as longs.  Otherwise their keys are compared as Strings.
+ */
+public final class ElementGroup implements Comparable<ElementGroup> {
+
+    private final String key;
+    private final long rank;
+    private final boolean isRanked;
+    private final GroupRegistry registry;
+
+    ElementGroup(String key, long rank, boolean isRanked, GroupRegistry registry) {
+        if (key == null)
+            throw new NullPointerException("Group keys can not be null");
+        this.key = key;
+        this.rank = rank;
+        this.isRanked = isRanked;
+        this.registry = registry;
+    }
+
+    /**
+     * @return The group key, as returned by GroupComparator.getGroupKey
+     */
+    public String getKey() {
+        return key;
+    }
+
+    boolean isRanked() {
+        return isRanked;
+    }
+
+    long getRank() {
+        return rank;
+    }
+
+    @Override
+    public int compareTo(ElementGroup another) {
+        if (this == another)
+            return 0;
+        if (isRanked && another.isRanked && registry == another.registry)
+            return rank < another.rank ? -1 : (rank == another.rank ? 0 : 1);
+        return key.compareTo(another.key);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return this == o || (o instanceof ElementGroup && key.equals(((ElementGroup) o).key));
+    }
+
+    @Override
+    public int hashCode() {
+        return key.hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return key;
+    }
+}
@@ -49,17 +49,35 @@ public class EventElement<K, V> implements Comparable<EventElement<K, V>> {
 
     private final Event<K, V> event;
     private final GroupComparator<K, V> eventGroupComparator;
+    private final ElementGroup group;
 
     public EventElement(Event<K, V> event, GroupComparator<K, V> groupComparator) {
         this.event = event;
         this.eventGroupComparator = groupComparator;
+        this.group = GroupRegistry.of(groupComparator).intern(groupComparator.getGroupKey(event));
+    }
+
+    /**
+     * Creates an element in the given group, rather than the group its event belongs to.
+     */
+    public EventElement(Event<K, V> event, GroupComparator<K, V> groupComparator, ElementGroup group) {
+        this.event = event;
+        this.eventGroupComparator = groupComparator;
+        this.group = group;
     }
 
     /**
      * @return The Group Key for the Wrapped Event
      */
     public final String getGroup() {
-        return eventGroupComparator.getGroupKey(event);
+        return group.getKey();
+    }
+
+    /**
+     * @return The interned Group for the Wrapped Event, computed once when this element was created
+     */
+    public final ElementGroup getElementGroup() {
+        return group;
     }
 
     /**
@@ -82,7 +100,7 @@ public class EventElement<K, V> implements Comparable<EventElement<K, V>> {
      * @return Comparator result (-1, 0, 1)
      */
     public int compareTo(EventElement<K, V> another) {
-        int groupComparison = getGroup().compareTo(another.getGroup());
+        int groupComparison = group.compareTo(another.group);
         if (groupComparison != 0) {
             return groupComparison;
         }
@@ -33,6 +33,10 @@ public class FooterElement<K, V> extends EventElement<K, V> {
         super(event, groupComparator);
     }
 
+    public FooterElement(Event<K, V> event, GroupComparator<K, V> groupComparator, ElementGroup group) {
+        super(event, groupComparator, group);
+    }
+
     @Override
     public int getViewType() {
         return FOOTER_MASK << MASK_SHIFT;
@@ -40,7 +44,7 @@ public class FooterElement<K, V> extends EventElement<K, V> {
 
     @Override
     public int compareTo(EventElement<K, V> another) {
-        int groupComparison = getGroup().compareTo(another.getGroup());
+        int groupComparison = getElementGroup().compareTo(another.getElementGroup());
         if (groupComparison != 0) {
             return groupComparison;
         }
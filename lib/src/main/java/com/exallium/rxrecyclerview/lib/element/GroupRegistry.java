@@ -0,0 +1,134 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2015 Alex Hart
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.exallium.rxrecyclerview.lib.element;
+
+import com.exallium.rxrecyclerview.lib.GroupComparator;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Interns group keys for a single GroupComparator, handing out one ElementGroup per key.
+ *
+ * Each new group is given a rank between the ranks of its neighbours, so that ranks sort the
+ * same way the keys do and never have to change once given out.  When there is no room left
+ * between two neighbours the group is left unranked and compares by key instead.
+ *
+ * Only the first MAX_GROUPS keys are kept.  Comparators with a group per element, such as
+ * InsertionOrderComparator, fall back to comparing keys after that.  Interned keys are looked up
+ * without locking, and once the registry is full so are the keys it no longer takes.
+ */
+public final class GroupRegistry {
+
+    public static final int MAX_GROUPS = 4096;
+
+    private static final long MIN_RANK = Long.MIN_VALUE / 2;
+    private static final long MAX_RANK = Long.MAX_VALUE / 2;
+    private static final long RANK_STEP = 1L << 32;
+
+    private static final Map<GroupComparator<?, ?>, GroupRegistry> registries = new WeakHashMap<>();
+
+    // Guarded by this, and only used to find the neighbours of a new key
+    private final TreeMap<String, ElementGroup> groups = new TreeMap<>();
+    // Every group in groups, for lookups which don't take the lock
+    private final ConcurrentHashMap<String, ElementGroup> interned = new ConcurrentHashMap<>();
+    private volatile boolean isFull = false;
+
+    private GroupRegistry() { }
+
+    /**
+     * @param groupComparator The comparator whose group keys we want to intern
+     * @return The registry for the given comparator
+     */
+    public static GroupRegistry of(GroupComparator<?, ?> groupComparator) {
+        synchronized (registries) {
+            GroupRegistry registry = registries.get(groupComparator);
+            if (registry == null) {
+                registry = new GroupRegistry();
+                registries.put(groupComparator, registry);
+            }
+            return registry;
+        }
+    }
+
+    /**
+     * @param key A group key
+     * @return The ElementGroup for the given key
+     */
+    public ElementGroup intern(String key) {
+        final ElementGroup group = interned.get(key);
+        if (group != null)
+            return group;
+        if (isFull)
+            return new ElementGroup(key, 0, false, this);
+        return internLocked(key);
+    }
+
+    private synchronized ElementGroup internLocked(String key) {
+        ElementGroup group = groups.get(key);
+        if (group != null)
+            return group;
+
+        if (groups.size() >= MAX_GROUPS) {
+            isFull = true;
+            return new ElementGroup(key, 0, false, this);
+        }
+
+        ElementGroup lower = lowerRanked(key);
+        ElementGroup higher = higherRanked(key);
+        long low = lower == null ? MIN_RANK : lower.getRank();
+        long high = higher == null ? MAX_RANK : higher.getRank();
+
+        final long rank;
+        if (lower == null && higher != null && high - low > RANK_STEP) {
+            rank = high - RANK_STEP;
+        } else if (higher == null && lower != null && high - low > RANK_STEP) {
+            rank = low + RANK_STEP;
+        } else {
+            rank = low + (high - low) / 2;
+        }
+
+        group = new ElementGroup(key, rank, rank != low && rank != high, this);
+        groups.put(key, group);
+        interned.put(key, group);
+        return group;
+    }
+
+    private ElementGroup lowerRanked(String key) {
+        Map.Entry<String, ElementGroup> entry = groups.lowerEntry(key);
+        while (entry != null && !entry.getValue().isRanked())
+            entry = groups.lowerEntry(entry.getKey());
+        return entry == null ? null : entry.getValue();
+    }
+
+    private ElementGroup higherRanked(String key) {
+        Map.Entry<String, ElementGroup> entry = groups.higherEntry(key);
+        while (entry != null && !entry.getValue().isRanked())
+            entry = groups.higherEntry(entry.getKey());
+        return entry == null ? null : entry.getValue();
+    }
+}
@@ -32,6 +32,10 @@ public class HeaderElement<K, V> extends EventElement<K, V> {
         super(event, groupComparator);
     }
 
+    public HeaderElement(Event<K, V> event, GroupComparator<K, V> groupComparator, ElementGroup group) {
+        super(event, groupComparator, group);
+    }
+
     @Override
     public int getViewType() {
         return HEADER_MASK << MASK_SHIFT;
@@ -39,7 +43,7 @@ public class HeaderElement<K, V> extends EventElement<K, V> {
 
     @Override
     public int compareTo(EventElement<K, V> another) {
-        int groupComparison = getGroup().compareTo(another.getGroup());
+        int groupComparison = getElementGroup().compareTo(another.getElementGroup());
         if (groupComparison != 0) {
             return groupComparison;
         }
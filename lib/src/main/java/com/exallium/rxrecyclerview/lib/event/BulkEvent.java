@@ -0,0 +1,57 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2015 Alex Hart
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.exallium.rxrecyclerview.lib.event;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Carries a whole collection of ADD Events at once, such as the contents of a cache on startup.
+ * ElementGenerationOperator turns it into a single, sorted BulkElement, which the adapter loads in
+ * one pass with range notifications instead of one notification per Event.
+ *
+ * Events which are not ADD Events are ignored.  If a key appears more than once, the last Event wins.
+ *
+ * @param <K> The Key for the Events
+ * @param <V> The Value for the Events
+ */
+public class BulkEvent<K, V> extends Event<K, V> {
+
+    private final List<Event<K, V>> events;
+
+    public BulkEvent(Collection<? extends Event<K, V>> events) {
+        super(TYPE.ADD, null, null);
+        this.events = Collections.unmodifiableList(new ArrayList<Event<K, V>>(events));
+    }
+
+    /**
+     * @return The wrapped Events
+     */
+    public final List<Event<K, V>> getEvents() {
+        return events;
+    }
+}
@@ -0,0 +1,66 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2015 Alex Hart
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.exallium.rxrecyclerview.lib.event;
+
+/**
+ * Event with a primitive long Key.  The key is only boxed when getKey is called, so long keyed
+ * models such as LongRxRecyclerViewAdapter can go from Event to Element without allocating a Long.
+ *
+ * @param <V> The Value for this object (The object itself)
+ */
+public class LongEvent<V> extends Event<Long, V> {
+
+    private final long key;
+
+    public LongEvent(TYPE type, long key, V value) {
+        super(type, null, value);
+        this.key = key;
+    }
+
+    /**
+     * @return The Event's Key, boxed.  Prefer getLongKey
+     */
+    @Override
+    public final Long getKey() {
+        return key;
+    }
+
+    /**
+     * @return The Event's Key
+     */
+    public final long getLongKey() {
+        return key;
+    }
+
+    /**
+     * @param event Any Long keyed Event
+     * @return The Event's Key, without boxing it if the Event is a LongEvent
+     */
+    public static long keyOf(Event<Long, ?> event) {
+        if (event instanceof LongEvent)
+            return ((LongEvent<?>) event).key;
+        return event.getKey();
+    }
+}
@@ -0,0 +1,57 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2015 Alex Hart
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.exallium.rxrecyclerview.lib.event;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Wraps Events which should be applied as one unit, such as replacing a whole group after a sync.
+ * The adapter applies all of them before RecyclerView sees any, then notifies the net change in a
+ * single pass, so there are no torn intermediate states and no animation per Event.
+ *
+ * Unlike a BulkEvent, the wrapped Events may be ADD or REMOVE Events and are applied in order.
+ *
+ * @param <K> The Key for the Events
+ * @param <V> The Value for the Events
+ */
+public class TransactionEvent<K, V> extends Event<K, V> {
+
+    private final List<Event<K, V>> events;
+
+    public TransactionEvent(Collection<? extends Event<K, V>> events) {
+        super(TYPE.ADD, null, null);
+        this.events = Collections.unmodifiableList(new ArrayList<Event<K, V>>(events));
+    }
+
+    /**
+     * @return The wrapped Events, in the order they are applied
+     */
+    public final List<Event<K, V>> getEvents() {
+        return events;
+    }
+}
@@ -0,0 +1,247 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2015 Alex Hart
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.exallium.rxrecyclerview.lib.ingest;
+
+import com.exallium.rxrecyclerview.lib.event.Event;
+import rx.Observable;
+import rx.Producer;
+import rx.Scheduler;
+import rx.Subscriber;
+import rx.functions.Action0;
+import rx.subscriptions.Subscriptions;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * A bounded queue which Events can be offered to from any number of threads without locking, and
+ * which one subscriber drains in batches.  Use it in place of a serialized PublishSubject when
+ * network, database and sync threads all feed the same adapter:
+ *
+ * <pre>
+ * buffer.observe(Schedulers.computation()).lift(elementGenerationOperator)
+ * </pre>
+ *
+ * A producer claims a slot with a single compare-and-set and publishes its Event with a single
+ * volatile write, so producers never wait on each other or on the consumer.  When every slot is
+ * taken, offer returns false instead of blocking or growing, and the producer decides whether to
+ * retry, drop or conflate.  The drain only takes as many Events as are requested downstream, so
+ * a consumer which falls behind fills the buffer and is felt by the producers.
+ *
+ * @param <K> The Event Key
+ * @param <V> The Event Value
+ */
+public final class EventRingBuffer<K, V> {
+
+    private static final int MAX_CAPACITY = 1 << 30;
+
+    private final int capacity;
+    private final int mask;
+    private final AtomicReferenceArray<Event<K, V>> slots;
+    // The position a slot is free for, or one past the position it was published for
+    private final AtomicLongArray sequences;
+    private final AtomicLong tail = new AtomicLong();
+    // Only the consumer moves the head
+    private volatile long head;
+    private final AtomicLong rejected = new AtomicLong();
+    private final AtomicReference<Drain> consumer = new AtomicReference<>();
+
+    /**
+     * @param capacity The most Events held at once, rounded up to a power of two.  At least two
+     *                 are held, since a slot's sequence has to tell a lap apart from a publish.
+     */
+    public EventRingBuffer(int capacity) {
+        if (capacity <= 0 || capacity > MAX_CAPACITY)
+            throw new IllegalArgumentException("capacity must be between 1 and " + MAX_CAPACITY);
+        this.capacity = capacity <= 2 ? 2 : Integer.highestOneBit(capacity - 1) << 1;
+        this.mask = this.capacity - 1;
+        this.slots = new AtomicReferenceArray<>(this.capacity);
+        this.sequences = new AtomicLongArray(this.capacity);
+        for (int i = 0; i < this.capacity; i++)
+            sequences.set(i, i);
+    }
+
+    /**
+     * Adds an Event without blocking.  Can be called from any thread.
+     * @param event The Event to add
+     * @return false if the buffer is full, in which case the Event was not added
+     */
+    public boolean offer(Event<K, V> event) {
+        if (event == null)
+            throw new NullPointerException("event can not be null");
+        long position;
+        int index;
+        for (;;) {
+            position = tail.get();
+            index = (int) position & mask;
+            final long sequence = sequences.get(index);
+            if (sequence == position) {
+                if (tail.compareAndSet(position, position + 1))
+                    break;
+            } else if (sequence < position) {
+                // The Event from one lap ago has not been drained yet
+                rejected.incrementAndGet();
+                return false;
+            }
+            // Otherwise another producer claimed this slot first
+        }
+        slots.lazySet(index, event);
+        sequences.set(index, position + 1);
+
+        final Drain drain = consumer.get();
+        if (drain != null)
+            drain.signal();
+        return true;
+    }
+
+    /**
+     * @return The number of Events waiting to be drained.  Only a hint while producers are offering.
+     */
+    public int size() {
+        return (int) Math.max(0, Math.min(capacity, tail.get() - head));
+    }
+
+    public int capacity() {
+        return capacity;
+    }
+
+    /**
+     * @return How many times offer has returned false, for monitoring producer side backpressure
+     */
+    public long getRejectedCount() {
+        return rejected.get();
+    }
+
+    /**
+     * Drains the buffer on the given scheduler.  Only one subscriber can drain at a time, and a
+     * second one receives an IllegalStateException.  Events are emitted in the order their slots
+     * were claimed, which for any one producer is the order it offered them in.
+     * @param scheduler Where Events are emitted
+     */
+    public Observable<Event<K, V>> observe(final Scheduler scheduler) {
+        return Observable.create(new Observable.OnSubscribe<Event<K, V>>() {
+            @Override
+            public void call(Subscriber<? super Event<K, V>> child) {
+                final Drain drain = new Drain(child, scheduler.createWorker());
+                if (!consumer.compareAndSet(null, drain)) {
+                    drain.worker.unsubscribe();
+                    child.onError(new IllegalStateException("EventRingBuffer can only be drained by one subscriber at a time"));
+                    return;
+                }
+                child.add(drain.worker);
+                child.add(Subscriptions.create(new Action0() {
+                    @Override
+                    public void call() {
+                        consumer.compareAndSet(drain, null);
+                    }
+                }));
+                child.setProducer(drain);
+            }
+        });
+    }
+
+    private Event<K, V> poll() {
+        final long position = head;
+        final int index = (int) position & mask;
+        if (sequences.get(index) != position + 1)
+            return null;
+        final Event<K, V> event = slots.get(index);
+        slots.lazySet(index, null);
+        // Frees the slot for the producer one lap ahead
+        sequences.lazySet(index, position + capacity);
+        head = position + 1;
+        return event;
+    }
+
+    private boolean isEmpty() {
+        return sequences.get((int) head & mask) != head + 1;
+    }
+
+    /**
+     * Emits Events to one subscriber.  A single drain task is scheduled at a time; producers and
+     * requests only schedule one when none is running.
+     */
+    private final class Drain implements Producer, Action0 {
+
+        private final Subscriber<? super Event<K, V>> child;
+        private final Scheduler.Worker worker;
+        private final AtomicLong requested = new AtomicLong();
+        private final AtomicBoolean draining = new AtomicBoolean();
+
+        Drain(Subscriber<? super Event<K, V>> child, Scheduler.Worker worker) {
+            this.child = child;
+            this.worker = worker;
+        }
+
+        @Override
+        public void request(long n) {
+            if (n <= 0)
+                return;
+            for (;;) {
+                final long current = requested.get();
+                final long next = current + n < 0 ? Long.MAX_VALUE : current + n;
+                if (requested.compareAndSet(current, next))
+                    break;
+            }
+            signal();
+        }
+
+        void signal() {
+            if (!draining.get() && draining.compareAndSet(false, true))
+                worker.schedule(this);
+        }
+
+        @Override
+        public void call() {
+            for (;;) {
+                final long limit = Math.min(requested.get(), capacity);
+                long emitted = 0;
+                Event<K, V> event;
+                while (emitted < limit && !child.isUnsubscribed() && (event = poll()) != null) {
+                    child.onNext(event);
+                    emitted++;
+                }
+                if (child.isUnsubscribed())
+                    return;
+                if (emitted != 0 && requested.get() != Long.MAX_VALUE)
+                    requested.addAndGet(-emitted);
+
+                // A full lap makes way for other tasks on the worker before carrying on
+                if (emitted == capacity) {
+                    worker.schedule(this);
+                    return;
+                }
+
+                draining.set(false);
+                // Something offered or requested since the last poll may have seen us draining
+                if (isEmpty() || requested.get() == 0 || !draining.compareAndSet(false, true))
+                    return;
+            }
+        }
+    }
+}
@@ -0,0 +1,178 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2015 Alex Hart
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.exallium.rxrecyclerview.lib.model;
+
+import rx.Scheduler;
+import rx.Subscription;
+import rx.functions.Action0;
+import rx.subscriptions.Subscriptions;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Keeps track of attached listeners for a SnapshotSource.  The source is connected to its stream
+ * when the first listener attaches and disconnected when the last one detaches.  Each listener is
+ * handed the latest snapshot along with its own merged changes since the snapshot it last saw, so
+ * one which falls behind only sees the net positional changes.
+ *
+ * @param <K> The Event Key
+ * @param <V> The Event Value
+ */
+public abstract class AbstractSnapshotSource<K, V> implements SnapshotSource<K, V> {
+
+    private final List<Attachment> attachments = new ArrayList<>();
+    private ElementSnapshot<K, V> latest = ElementSnapshot.empty();
+    private Subscription connection;
+    private boolean isTerminated = false;
+    private Throwable error = null;
+
+    /**
+     * Starts applying the stream, called when the first listener attaches.
+     * @return Unsubscribed when the last listener detaches
+     */
+    protected abstract Subscription connect();
+
+    /**
+     * Called after the last listener has detached and the connection is unsubscribed, while still
+     * holding this source's lock, so no listener can attach until it returns.
+     */
+    protected void onDisconnected() { }
+
+    @Override
+    public final synchronized Subscription attach(Listener<K, V> listener, Scheduler scheduler) {
+        final Attachment attachment = new Attachment(listener, scheduler.createWorker());
+        final ChangeBatch initial = new ChangeBatch();
+        initial.onInserted(0, latest.size());
+        attachment.publish(latest, initial);
+        if (isTerminated)
+            attachment.terminate(error);
+        attachments.add(attachment);
+        if (attachments.size() == 1)
+            connection = connect();
+
+        return Subscriptions.create(new Action0() {
+            @Override
+            public void call() {
+                detach(attachment);
+            }
+        });
+    }
+
+    private void detach(Attachment attachment) {
+        synchronized (this) {
+            if (!attachments.remove(attachment))
+                return;
+            attachment.worker.unsubscribe();
+            if (!attachments.isEmpty())
+                return;
+            connection.unsubscribe();
+            connection = null;
+            latest = ElementSnapshot.empty();
+            isTerminated = false;
+            error = null;
+            onDisconnected();
+        }
+    }
+
+    /**
+     * Hands a new snapshot to every attached listener.
+     * @param snapshot The model as it is now
+     * @param changes  The changes from the previously published snapshot
+     */
+    protected final synchronized void publish(ElementSnapshot<K, V> snapshot, ChangeBatch changes) {
+        if (attachments.isEmpty())
+            return;
+        latest = snapshot;
+        for (Attachment attachment : attachments)
+            attachment.publish(snapshot, changes);
+    }
+
+    /**
+     * Tells every attached listener, and any which attaches later, that the stream has ended.
+     * @param error Why the stream failed, or null if it completed
+     */
+    protected final synchronized void publishTerminated(Throwable error) {
+        if (attachments.isEmpty() || isTerminated)
+            return;
+        isTerminated = true;
+        this.error = error;
+        for (Attachment attachment : attachments)
+            attachment.terminate(error);
+    }
+
+    private final class Attachment implements Action0 {
+
+        private final Listener<K, V> listener;
+        private final Scheduler.Worker worker;
+
+        private ElementSnapshot<K, V> pendingSnapshot;
+        private ChangeBatch pendingChanges;
+
+        Attachment(Listener<K, V> listener, Scheduler.Worker worker) {
+            this.listener = listener;
+            this.worker = worker;
+        }
+
+        synchronized void publish(ElementSnapshot<K, V> snapshot, ChangeBatch changes) {
+            final boolean isIdle = pendingSnapshot == null;
+            if (isIdle)
+                pendingChanges = new ChangeBatch();
+            changes.replay(pendingChanges);
+            pendingSnapshot = snapshot;
+            // Last, since a synchronous scheduler runs the listener right away
+            if (isIdle)
+                worker.schedule(this);
+        }
+
+        // Scheduled after any pending update, which the worker runs first
+        void terminate(final Throwable error) {
+            worker.schedule(new Action0() {
+                @Override
+                public void call() {
+                    if (error != null) {
+                        listener.onError(error);
+                    } else {
+                        listener.onCompleted();
+                    }
+                }
+            });
+        }
+
+        @Override
+        public void call() {
+            final ElementSnapshot<K, V> snapshot;
+            final ChangeBatch changes;
+            synchronized (this) {
+                snapshot = pendingSnapshot;
+                changes = pendingChanges;
+                pendingSnapshot = null;
+                pendingChanges = null;
+            }
+            if (snapshot != null)
+                listener.onUpdate(snapshot, changes);
+        }
+    }
+}
@@ -0,0 +1,193 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2015 Alex Hart
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.exallium.rxrecyclerview.lib.model;
+
+import java.util.Arrays;
+
+/**
+ * Records changes in the order they happen and collapses each change into the one before it
+ * when they touch, so that a burst of single item changes can be dispatched as a few range
+ * notifications.  Changes are only ever merged with the last recorded change, which keeps the
+ * replayed sequence equivalent to the original one.
+ *
+ * Not thread safe.
+ */
+public class ChangeBatch implements ChangeSink {
+
+    private static final int INSERT = 0;
+    private static final int REMOVE = 1;
+    private static final int MOVE = 2;
+    private static final int CHANGE = 3;
+
+    // Each change is stored as (type, position, count) or (MOVE, from, to)
+    private int[] changes = new int[48];
+    // The payload of each CHANGE, by change rather than by int
+    private Object[] payloads = new Object[16];
+    private int size = 0;
+
+    @Override
+    public void onInserted(int position, int count) {
+        if (count <= 0)
+            return;
+        if (isLast(INSERT)) {
+            int start = changes[size - 2];
+            int length = changes[size - 1];
+            if (position >= start && position <= start + length) {
+                changes[size - 1] = length + count;
+                return;
+            }
+        }
+        append(INSERT, position, count);
+    }
+
+    @Override
+    public void onRemoved(int position, int count) {
+        if (count <= 0)
+            return;
+        if (isLast(REMOVE)) {
+            int start = changes[size - 2];
+            if (position == start) {
+                changes[size - 1] += count;
+                return;
+            } else if (position + count == start) {
+                changes[size - 2] = position;
+                changes[size - 1] += count;
+                return;
+            }
+        } else if (isLast(INSERT)) {
+            int start = changes[size - 2];
+            int length = changes[size - 1];
+            // Removing something we just inserted cancels out
+            if (position >= start && position + count <= start + length) {
+                if (length == count) {
+                    size -= 3;
+                } else {
+                    changes[size - 1] = length - count;
+                }
+                return;
+            }
+        }
+        append(REMOVE, position, count);
+    }
+
+    @Override
+    public void onMoved(int fromPosition, int toPosition) {
+        if (fromPosition != toPosition)
+            append(MOVE, fromPosition, toPosition);
+    }
+
+    @Override
+    public void onChanged(int position, int count, Object payload) {
+        if (count <= 0)
+            return;
+        // Only changes with the same payload can share a notification
+        if (isLast(CHANGE) && payloads[size / 3 - 1] == payload) {
+            int start = changes[size - 2];
+            int end = start + changes[size - 1];
+            if (position <= end && position + count >= start) {
+                int newStart = Math.min(start, position);
+                changes[size - 2] = newStart;
+                changes[size - 1] = Math.max(end, position + count) - newStart;
+                return;
+            }
+        } else if (isLast(INSERT)) {
+            // Freshly inserted items are bound anyway
+            int start = changes[size - 2];
+            if (position >= start && position + count <= start + changes[size - 1])
+                return;
+        }
+        append(CHANGE, position, count);
+        payloads[size / 3 - 1] = payload;
+    }
+
+    /**
+     * @return true if no changes are pending
+     */
+    public final boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * @return the number of notifications dispatch would currently send
+     */
+    public final int getChangeCount() {
+        return size / 3;
+    }
+
+    /**
+     * Replays all recorded changes, in order, into the given sink and forgets them.
+     * @param sink The sink to replay into
+     */
+    public final void dispatch(ChangeSink sink) {
+        replay(sink);
+        clear();
+    }
+
+    /**
+     * Replays all recorded changes, in order, into the given sink and keeps them.
+     * @param sink The sink to replay into
+     */
+    public final void replay(ChangeSink sink) {
+        for (int i = 0; i < size; i += 3) {
+            switch (changes[i]) {
+                case INSERT:
+                    sink.onInserted(changes[i + 1], changes[i + 2]);
+                    break;
+                case REMOVE:
+                    sink.onRemoved(changes[i + 1], changes[i + 2]);
+                    break;
+                case MOVE:
+                    sink.onMoved(changes[i + 1], changes[i + 2]);
+                    break;
+                case CHANGE:
+                    sink.onChanged(changes[i + 1], changes[i + 2], payloads[i / 3]);
+                    break;
+            }
+        }
+    }
+
+    /**
+     * Forgets all recorded changes.
+     */
+    public final void clear() {
+        Arrays.fill(payloads, 0, size / 3, null);
+        size = 0;
+    }
+
+    private boolean isLast(int type) {
+        return size != 0 && changes[size - 3] == type;
+    }
+
+    private void append(int type, int first, int second) {
+        if (size + 3 > changes.length) {
+            changes = Arrays.copyOf(changes, changes.length * 2);
+            payloads = Arrays.copyOf(payloads, changes.length / 3);
+        }
+        payloads[size / 3] = null;
+        changes[size++] = type;
+        changes[size++] = first;
+        changes[size++] = second;
+    }
+}
@@ -0,0 +1,78 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2015 Alex Hart
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.exallium.rxrecyclerview.lib.model;
+
+import com.exallium.rxrecyclerview.lib.element.EventElement;
+import rx.functions.Func2;
+
+/**
+ * Finds the changes between two lists of elements sorted the same way, in one merge pass.
+ */
+final class ElementDiff {
+
+    private ElementDiff() { }
+
+    /**
+     * Reports every inserted and removed element, and every element whose Event changed.  Elements
+     * which move are reported as a removal and an insertion.  O(n)
+     * @param from          The elements before
+     * @param to            The elements after
+     * @param changePayload Gives the payload for a changed data element, as in ElementModel, or null
+     * @param sink          Receives the changes
+     */
+    static <K, V> void diff(ElementList<K, V> from, ElementList<K, V> to,
+                            Func2<? super EventElement<K, V>, ? super EventElement<K, V>, ?> changePayload,
+                            ChangeSink sink) {
+        int i = 0;
+        int j = 0;
+        int position = 0;
+        while (i < from.size() && j < to.size()) {
+            final EventElement<K, V> before = from.get(i);
+            final EventElement<K, V> after = to.get(j);
+            final int comparison = before.compareTo(after);
+            if (comparison < 0) {
+                sink.onRemoved(position, 1);
+                i++;
+            } else if (comparison > 0) {
+                sink.onInserted(position, 1);
+                position++;
+                j++;
+            } else {
+                // Headers and footers may now show a different Event of their group too
+                if (before.getData() != after.getData()) {
+                    final Object payload = changePayload == null || after.getViewType() >> EventElement.MASK_SHIFT != EventElement.DATA_MASK
+                            ? null : changePayload.call(before, after);
+                    if (payload != ElementModel.UNCHANGED)
+                        sink.onChanged(position, 1, payload);
+                }
+                position++;
+                i++;
+                j++;
+            }
+        }
+        sink.onRemoved(position, from.size() - i);
+        sink.onInserted(position, to.size() - j);
+    }
+}
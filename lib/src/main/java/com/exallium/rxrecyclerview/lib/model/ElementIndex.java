@@ -0,0 +1,55 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2015 Alex Hart
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.exallium.rxrecyclerview.lib.model;
+
+import com.exallium.rxrecyclerview.lib.element.EventElement;
+import com.exallium.rxrecyclerview.lib.event.Event;
+
+/**
+ * Finds the data element currently in an ElementModel for an Event's key.
+ *
+ * @param <K> The Event Key
+ * @param <V> The Event Value
+ */
+public interface ElementIndex<K, V> {
+
+    /**
+     * @param event The event whose key we are looking up
+     * @return The element with the same key, or null
+     */
+    EventElement<K, V> get(Event<K, V> event);
+
+    /**
+     * @param element The element to index under its event's key
+     * @return The element previously indexed under that key, or null
+     */
+    EventElement<K, V> put(EventElement<K, V> element);
+
+    /**
+     * @param event The event whose key we are removing
+     * @return The element which was indexed under that key, or null
+     */
+    EventElement<K, V> remove(Event<K, V> event);
+}
@@ -0,0 +1,448 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2015 Alex Hart
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.exallium.rxrecyclerview.lib.model;
+
+import com.exallium.rxrecyclerview.lib.collection.GroupedTreeSet;
+import com.exallium.rxrecyclerview.lib.collection.PersistentIndexedTree;
+import com.exallium.rxrecyclerview.lib.element.BulkElement;
+import com.exallium.rxrecyclerview.lib.element.ElementGroup;
+import com.exallium.rxrecyclerview.lib.element.EventElement;
+import com.exallium.rxrecyclerview.lib.element.TransactionElement;
+import com.exallium.rxrecyclerview.lib.event.Event;
+import rx.functions.Func1;
+import rx.functions.Func2;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The sorted list of Elements behind an RxRecyclerViewAdapter.  Applies ADD and REMOVE elements
+ * and reports the resulting positional changes to a ChangeSink.
+ *
+ * Not thread safe, but not tied to any thread either.  The adapter either drives it from the
+ * main thread, or from a background thread while publishing ElementSnapshots to the main thread.
+ * Once versioning is enabled, getVersionedSnapshot can also be called from any thread while the
+ * model is being applied.
+ *
+ * @param <K> The Event Key
+ * @param <V> The Event Value
+ */
+public class ElementModel<K, V> implements ElementList<K, V> {
+
+    /**
+     * Returned by a change payload function when an update changed nothing worth showing.
+     */
+    public static final Object UNCHANGED = new Object();
+
+    private static final ChangeSink DISCARD = new ChangeSink() {
+        @Override
+        public void onInserted(int position, int count) { }
+
+        @Override
+        public void onRemoved(int position, int count) { }
+
+        @Override
+        public void onMoved(int fromPosition, int toPosition) { }
+
+        @Override
+        public void onChanged(int position, int count, Object payload) { }
+    };
+
+    private final ElementIndex<K, V> items;
+
+    private Func2<? super EventElement<K, V>, ? super EventElement<K, V>, ?> changePayload;
+
+    // Elements are bucketed by group, so that finding where a group starts is as cheap as any lookup
+    private final GroupedTreeSet<ElementGroup, EventElement<K, V>> treeSet = new GroupedTreeSet<>(
+            new Func1<EventElement<K, V>, ElementGroup>() {
+                @Override
+                public ElementGroup call(EventElement<K, V> element) {
+                    return element.getElementGroup();
+                }
+            });
+
+    // Only kept once versioning is enabled
+    private PersistentIndexedTree<EventElement<K, V>> versionedTree;
+    private volatile VersionedSnapshot<K, V> published;
+    // How deep in apply, applyBulk and applyTransaction we are, since they call each other
+    private int applying;
+
+    public ElementModel() {
+        this(new HashElementIndex<K, V>());
+    }
+
+    /**
+     * @param items The index used to find the current element for a key, such as LongElementIndex
+     */
+    public ElementModel(ElementIndex<K, V> items) {
+        this.items = items;
+    }
+
+    /**
+     * Sets what an update reports as changed.  Without one, every update is reported with a null
+     * payload, which rebinds the item fully.
+     * @param changePayload Given the old and the new element for a key, returns the payload for the
+     *                      change, null for a full rebind, or UNCHANGED to report no change at all
+     */
+    public void setChangePayload(Func2<? super EventElement<K, V>, ? super EventElement<K, V>, ?> changePayload) {
+        this.changePayload = changePayload;
+    }
+
+    /**
+     * Adds, replaces or removes the given element.
+     * @param rxEvent The element to apply
+     * @param sink    Receives the positional changes this caused
+     */
+    public void apply(EventElement<K, V> rxEvent, ChangeSink sink) {
+        applying++;
+        try {
+            applyElement(rxEvent, sink);
+        } finally {
+            finishApplying();
+        }
+    }
+
+    private void applyElement(EventElement<K, V> rxEvent, ChangeSink sink) {
+        if (rxEvent instanceof BulkElement) {
+            applyBulk(((BulkElement<K, V>) rxEvent).getElements(), sink);
+            return;
+        }
+        if (rxEvent instanceof TransactionElement) {
+            applyTransaction(((TransactionElement<K, V>) rxEvent).getElements(), sink);
+            return;
+        }
+
+        if (isDecoration(rxEvent)) {
+            switch (rxEvent.getData().getType()) {
+                case ADD:
+                    if (insert(rxEvent))
+                        sink.onInserted(indexOf(rxEvent), 1);
+                    break;
+                case REMOVE:
+                    int pos = indexOf(rxEvent);
+                    if (pos != -1) {
+                        delete(rxEvent);
+                        sink.onRemoved(pos, 1);
+                    }
+                    break;
+            }
+        } else {
+            EventElement<K, V> currentRxEvent;
+            switch (rxEvent.getData().getType()) {
+                case ADD:
+                    if ((currentRxEvent = items.put(rxEvent)) != null) {
+                        final int orgPos = indexOf(currentRxEvent);
+                        delete(currentRxEvent);
+                        insert(rxEvent);
+                        final int newPos = indexOf(rxEvent);
+                        if (orgPos != newPos) {
+                            sink.onMoved(orgPos, newPos);
+                        }
+                        final Object payload = changePayload == null ? null
+                                : changePayload.call(currentRxEvent, rxEvent);
+                        if (payload != UNCHANGED)
+                            sink.onChanged(newPos, 1, payload);
+                    } else {
+                        insert(rxEvent);
+                        sink.onInserted(indexOf(rxEvent), 1);
+                    }
+                    break;
+                case REMOVE:
+                    currentRxEvent = items.remove(rxEvent.getData());
+                    if (currentRxEvent != null) {
+                        int index = indexOf(currentRxEvent);
+                        if (delete(currentRxEvent)) {
+                            sink.onRemoved(index, 1);
+                        }
+                    }
+                    break;
+            }
+        }
+    }
+
+    /**
+     * Loads many sorted elements at once.  Existing elements are merged with the new ones and the
+     * tree is rebuilt in O(n), and the changes are reported as ranges.
+     * @param sorted Elements in ascending order, where no two elements compare as equal
+     * @param sink   Receives the positional changes this caused
+     */
+    public void applyBulk(List<EventElement<K, V>> sorted, ChangeSink sink) {
+        applying++;
+        try {
+            applySorted(sorted, sink);
+        } finally {
+            finishApplying();
+        }
+    }
+
+    private void applySorted(List<EventElement<K, V>> sorted, ChangeSink sink) {
+        final ChangeBatch changes = new ChangeBatch();
+        final List<EventElement<K, V>> additions = new ArrayList<>(sorted.size());
+        for (EventElement<K, V> element : sorted) {
+            if (element.getData().getType() == Event.TYPE.ADD) {
+                additions.add(element);
+            } else {
+                apply(element, changes);
+            }
+        }
+
+        // Replaced elements are removed first, from the bottom up so that positions stay valid
+        final Map<EventElement<K, V>, Boolean> replaced = new IdentityHashMap<>();
+        final List<Integer> replacedPositions = new ArrayList<>();
+        for (EventElement<K, V> element : additions) {
+            if (isDecoration(element))
+                continue;
+            final EventElement<K, V> current = items.get(element.getData());
+            if (current != null && replaced.put(current, Boolean.TRUE) == null)
+                replacedPositions.add(indexOf(current));
+        }
+        Collections.sort(replacedPositions, Collections.reverseOrder());
+        for (Integer position : replacedPositions) {
+            changes.onRemoved(position, 1);
+        }
+
+        final List<EventElement<K, V>> merged = new ArrayList<>(treeSet.size() - replaced.size() + additions.size());
+        final Iterator<EventElement<K, V>> existing = treeSet.iterator();
+        EventElement<K, V> next = nextRemaining(existing, replaced);
+        for (EventElement<K, V> element : additions) {
+            while (next != null && next.compareTo(element) < 0) {
+                merged.add(next);
+                next = nextRemaining(existing, replaced);
+            }
+            if (next != null && next.compareTo(element) == 0) {
+                // Already there.  A replaced element's key can't point at it any more though.
+                if (!isDecoration(element) && replaced.containsKey(items.get(element.getData())))
+                    items.remove(element.getData());
+                continue;
+            }
+            changes.onInserted(merged.size(), 1);
+            merged.add(element);
+            if (!isDecoration(element))
+                items.put(element);
+        }
+        while (next != null) {
+            merged.add(next);
+            next = nextRemaining(existing, replaced);
+        }
+
+        treeSet.buildFromSorted(merged);
+        if (versionedTree != null)
+            versionedTree = PersistentIndexedTree.fromSorted(merged);
+        changes.dispatch(sink);
+    }
+
+    /**
+     * Applies every element in order, then reports the net difference in one pass, so that
+     * intermediate states are never seen.  Elements which changed places are reported as moves, as
+     * few as the reordering allows.  Only the window between the first and the last position the
+     * elements touch is compared, so for k elements spanning w positions this costs
+     * O(k log n + w log w) on top of applying them.  A re-sort of the whole list is O(n log n).
+     * @param elements Elements in the order they should be applied
+     * @param sink     Receives the positional changes the elements caused together
+     */
+    public void applyTransaction(List<EventElement<K, V>> elements, ChangeSink sink) {
+        applying++;
+        try {
+            // Everything ahead of top and the last tail elements stay as they are
+            final int size = treeSet.size();
+            final int[] window = {size, size};
+            for (int i = 0; i < elements.size(); i++)
+                widen(window, elements.get(i), size);
+            final int top = window[0];
+            final int tail = Math.min(window[1], size - top);
+            final ElementSnapshot<K, V> before = slice(top, size - tail);
+
+            // Payloads are worked out once, against the state before the transaction
+            final Func2<? super EventElement<K, V>, ? super EventElement<K, V>, ?> payload = changePayload;
+            changePayload = null;
+            try {
+                for (int i = 0; i < elements.size(); i++)
+                    apply(elements.get(i), DISCARD);
+            } finally {
+                changePayload = payload;
+            }
+            MoveDiff.diff(before, slice(top, treeSet.size() - tail), top, payload, sink);
+        } finally {
+            finishApplying();
+        }
+    }
+
+    // Widens the window to every position the element may add, replace or remove an element at
+    private void widen(int[] window, EventElement<K, V> element, int size) {
+        final List<EventElement<K, V>> nested = element instanceof BulkElement ? ((BulkElement<K, V>) element).getElements()
+                : element instanceof TransactionElement ? ((TransactionElement<K, V>) element).getElements() : null;
+        if (nested != null) {
+            for (int i = 0; i < nested.size(); i++)
+                widen(window, nested.get(i), size);
+            return;
+        }
+        if (isDecoration(element)) {
+            widen(window, treeSet.rank(element), size);
+            return;
+        }
+        // A removal is found by key, and its Event need not sort where the key's element is
+        if (element.getData().getType() == Event.TYPE.ADD)
+            widen(window, treeSet.rank(element), size);
+        final EventElement<K, V> current = items.get(element.getData());
+        if (current != null)
+            widen(window, indexOf(current), size);
+    }
+
+    private static void widen(int[] window, int position, int size) {
+        window[0] = Math.min(window[0], position);
+        window[1] = Math.min(window[1], Math.max(0, size - position - 1));
+    }
+
+    private ElementSnapshot<K, V> slice(int from, int to) {
+        final Object[] slice = new Object[to - from];
+        for (int i = from; i < to; i++)
+            slice[i - from] = treeSet.get(i);
+        return new ElementSnapshot<>(slice);
+    }
+
+    private boolean insert(EventElement<K, V> element) {
+        if (!treeSet.add(element))
+            return false;
+        if (versionedTree != null)
+            versionedTree = versionedTree.add(element);
+        return true;
+    }
+
+    private boolean delete(EventElement<K, V> element) {
+        if (!treeSet.remove(element))
+            return false;
+        if (versionedTree != null)
+            versionedTree = versionedTree.remove(element);
+        return true;
+    }
+
+    // Readers only ever see the model between applies, never half way through one
+    private void finishApplying() {
+        if (--applying == 0 && versionedTree != null && versionedTree != published.getTree())
+            published = new VersionedSnapshot<>(versionedTree, published.getVersion() + 1);
+    }
+
+    private EventElement<K, V> nextRemaining(Iterator<EventElement<K, V>> iterator,
+                                            Map<EventElement<K, V>, Boolean> skip) {
+        while (iterator.hasNext()) {
+            EventElement<K, V> element = iterator.next();
+            if (!skip.containsKey(element))
+                return element;
+        }
+        return null;
+    }
+
+    private static boolean isDecoration(EventElement<?, ?> element) {
+        int eventType = element.getViewType() >> EventElement.MASK_SHIFT;
+        return eventType == EventElement.HEADER_MASK || eventType == EventElement.FOOTER_MASK;
+    }
+
+    @Override
+    public int size() {
+        return treeSet.size();
+    }
+
+    @Override
+    public EventElement<K, V> get(int position) {
+        return treeSet.get(position);
+    }
+
+    @Override
+    public int indexOf(EventElement<K, V> element) {
+        return treeSet.indexOf(element);
+    }
+
+    /**
+     * @param group A group
+     * @return The position of the group's first element, which is its header if it has one, or -1
+     *         if the group is not in the model.  O(log g)
+     */
+    public int getGroupStart(ElementGroup group) {
+        return treeSet.getGroupStart(group);
+    }
+
+    /**
+     * @param group A group
+     * @return The number of elements in the group, including its header and footer.  O(log g)
+     */
+    public int getGroupSize(ElementGroup group) {
+        return treeSet.getGroupSize(group);
+    }
+
+    /**
+     * @param position The position of an element
+     * @return The group the element belongs to.  O(log g)
+     */
+    public ElementGroup getGroupAt(int position) {
+        return treeSet.getGroupAt(position);
+    }
+
+    /**
+     * @return The number of groups in the model, counting the empty element's group
+     */
+    public int getGroupCount() {
+        return treeSet.getGroupCount();
+    }
+
+    /**
+     * Starts keeping a persistent copy of the model's order alongside it, which every apply
+     * updates in O(log n) more time and allocations.  In return getVersionedSnapshot costs
+     * nothing and can be called from any thread.  Call it from the thread which applies the model.
+     */
+    public void enableVersioning() {
+        if (versionedTree != null)
+            return;
+        final List<EventElement<K, V>> sorted = new ArrayList<>(treeSet.size());
+        for (EventElement<K, V> element : treeSet)
+            sorted.add(element);
+        versionedTree = PersistentIndexedTree.fromSorted(sorted);
+        published = new VersionedSnapshot<>(versionedTree, 0);
+    }
+
+    /**
+     * Safe to call from any thread without locking, even while the model is being applied.
+     * Background work such as exporting or indexing can hold on to a version for as long as it
+     * needs, without copying the model or blocking whoever applies it.
+     * @return The newest version the model finished applying
+     */
+    public VersionedSnapshot<K, V> getVersionedSnapshot() {
+        final VersionedSnapshot<K, V> snapshot = published;
+        if (snapshot == null)
+            throw new IllegalStateException("Versioning is not enabled, see enableVersioning");
+        return snapshot;
+    }
+
+    /**
+     * Copies the model into an immutable snapshot.  O(n)
+     * @return The current state of the model
+     */
+    public ElementSnapshot<K, V> snapshot() {
+        return new ElementSnapshot<>(treeSet.toArray());
+    }
+}
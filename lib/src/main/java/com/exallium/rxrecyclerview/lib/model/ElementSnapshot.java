@@ -0,0 +1,82 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2015 Alex Hart
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.exallium.rxrecyclerview.lib.model;
+
+import com.exallium.rxrecyclerview.lib.element.EventElement;
+
+/**
+ * Immutable copy of an ElementModel at a point in time.  Safe to hand from the thread which built
+ * it to any other thread.
+ *
+ * @param <K> The Event Key
+ * @param <V> The Event Value
+ */
+public final class ElementSnapshot<K, V> implements ElementList<K, V> {
+
+    private static final Object[] EMPTY = new Object[0];
+
+    private final Object[] elements;
+
+    ElementSnapshot(Object[] elements) {
+        this.elements = elements;
+    }
+
+    /**
+     * @return A snapshot with no elements in it
+     */
+    public static <K, V> ElementSnapshot<K, V> empty() {
+        return new ElementSnapshot<>(EMPTY);
+    }
+
+    @Override
+    public int size() {
+        return elements.length;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public EventElement<K, V> get(int position) {
+        return (EventElement<K, V>) elements[position];
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public int indexOf(EventElement<K, V> element) {
+        int low = 0;
+        int high = elements.length - 1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            int comparison = ((EventElement<K, V>) elements[middle]).compareTo(element);
+            if (comparison < 0) {
+                low = middle + 1;
+            } else if (comparison > 0) {
+                high = middle - 1;
+            } else {
+                return middle;
+            }
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,491 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2015 Alex Hart
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.exallium.rxrecyclerview.lib.model;
+
+import com.exallium.rxrecyclerview.lib.AdapterOptions;
+import com.exallium.rxrecyclerview.lib.GroupComparator;
+import com.exallium.rxrecyclerview.lib.collection.ParallelSort;
+import com.exallium.rxrecyclerview.lib.element.EventElement;
+import com.exallium.rxrecyclerview.lib.event.BulkEvent;
+import com.exallium.rxrecyclerview.lib.event.Event;
+import com.exallium.rxrecyclerview.lib.event.TransactionEvent;
+import com.exallium.rxrecyclerview.lib.operators.BatchOperator;
+import com.exallium.rxrecyclerview.lib.operators.ElementGenerationOperator;
+import rx.Observable;
+import rx.Observer;
+import rx.Scheduler;
+import rx.Subscriber;
+import rx.Subscription;
+import rx.exceptions.Exceptions;
+import rx.functions.Action0;
+import rx.functions.Func1;
+import rx.schedulers.Schedulers;
+import rx.subscriptions.CompositeSubscription;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The Events of a stream which match a predicate, sorted and grouped exactly as
+ * ElementGenerationOperator would if only those Events had been sent.
+ *
+ * Arriving Events are checked against the predicate as they come in.  Setting a new predicate
+ * checks every Event again, in parallel chunks on the scheduler, builds the new projection in one
+ * pass and publishes only the ranges which were inserted or removed, so filtering as the user types
+ * never replays the stream.  Setting a new GroupComparator sorts the shown Events again the same
+ * way, with new headers and footers for the new groups, and publishes the transition as moves and
+ * ranges.  A predicate or comparator set while the last one is still being applied replaces it.
+ *
+ * Everything happens off the main thread; show it with an RxRecyclerViewAdapter.  If the stream
+ * fails, or a predicate or comparator throws, the model stops and attached listeners are handed
+ * the error.
+ *
+ * @param <K> The Event Key
+ * @param <V> The Event Value
+ */
+public final class FilteredElementModel<K, V> extends AbstractSnapshotSource<K, V> {
+
+    public static final int DEFAULT_CHUNK_SIZE = ParallelSort.DEFAULT_CHUNK_SIZE;
+
+    private final Observable<Event<K, V>> stream;
+    private final int chunkSize;
+    private final Scheduler scheduler;
+
+    private volatile Func1<? super Event<K, V>, Boolean> predicate;
+    private volatile ElementGenerationOperator.Builder<K, V> elements;
+    private Connection connection;
+
+    private FilteredElementModel(Builder<K, V> builder) {
+        this.stream = builder.stream;
+        this.elements = builder.elements;
+        this.predicate = builder.predicate;
+        this.chunkSize = builder.chunkSize;
+        this.scheduler = builder.scheduler;
+    }
+
+    /**
+     * Filters by a new predicate.  Can be called from any thread.
+     * @param predicate Returns true for the Events to show
+     */
+    public void setPredicate(Func1<? super Event<K, V>, Boolean> predicate) {
+        if (predicate == null)
+            throw new NullPointerException("predicate can not be null");
+        this.predicate = predicate;
+        synchronized (this) {
+            if (connection != null)
+                connection.rebuild();
+        }
+    }
+
+    /**
+     * Sorts and groups by a new comparator, keeping every other option the Elements were made
+     * with.  Can be called from any thread.
+     * @param groupComparator The new sort order and grouping
+     */
+    public void setGroupComparator(GroupComparator<K, V> groupComparator) {
+        if (groupComparator == null)
+            throw new NullPointerException("groupComparator can not be null");
+        synchronized (this) {
+            elements = new ElementGenerationOperator.Builder<>(elements, groupComparator);
+            if (connection != null)
+                connection.rebuild();
+        }
+    }
+
+    @Override
+    protected synchronized Subscription connect() {
+        final Connection newConnection = new Connection();
+        connection = newConnection;
+        // Ahead of the stream, whose first batch can arrive before subscribe returns
+        newConnection.schedule(new Action0() {
+            @Override
+            public void call() {
+                newConnection.start();
+            }
+        });
+        newConnection.subscriptions.add(stream
+                .lift(new BatchOperator<Event<K, V>>(AdapterOptions.DEFAULT_MAX_BATCH_SIZE,
+                        AdapterOptions.DEFAULT_BATCH_LATENCY_MS, TimeUnit.MILLISECONDS, Schedulers.computation()))
+                .subscribe(new Subscriber<List<Event<K, V>>>() {
+                    @Override
+                    public void onCompleted() {
+                        // Predicates and comparators can still change what is shown
+                    }
+
+                    @Override
+                    public void onError(final Throwable e) {
+                        newConnection.schedule(new Action0() {
+                            @Override
+                            public void call() {
+                                newConnection.fail(e);
+                            }
+                        });
+                    }
+
+                    @Override
+                    public void onNext(final List<Event<K, V>> events) {
+                        newConnection.schedule(new Action0() {
+                            @Override
+                            public void call() {
+                                newConnection.apply(events);
+                            }
+                        });
+                    }
+                }));
+        return newConnection.subscriptions;
+    }
+
+    @Override
+    protected synchronized void onDisconnected() {
+        connection = null;
+    }
+
+    /**
+     * Everything seen on one subscription to the stream.  Only touched on its worker, which runs
+     * one task at a time, so arriving Events, new predicates and new comparators are applied in
+     * order.
+     */
+    private final class Connection {
+
+        private final Scheduler.Worker worker = scheduler.createWorker();
+        // The worker and the subscription to the stream
+        private final CompositeSubscription subscriptions = new CompositeSubscription(worker);
+
+        // Every live Event, matching or not
+        private final Map<K, Event<K, V>> events = new HashMap<>();
+        private Projection projection;
+
+        void start() {
+            projection = new Projection(predicate, elements);
+            final ChangeBatch changes = projection.flush();
+            if (!worker.isUnsubscribed())
+                publish(projection.snapshot, changes);
+        }
+
+        // Whatever a task throws stops the connection, rather than leaving it half applied
+        void schedule(final Action0 task) {
+            worker.schedule(new Action0() {
+                @Override
+                public void call() {
+                    try {
+                        task.call();
+                    } catch (Throwable e) {
+                        Exceptions.throwIfFatal(e);
+                        fail(e);
+                    }
+                }
+            });
+        }
+
+        void fail(Throwable e) {
+            subscriptions.unsubscribe();
+            publishTerminated(e);
+        }
+
+        void rebuild() {
+            schedule(new Action0() {
+                @Override
+                public void call() {
+                    // Only the latest predicate and comparator are worth applying
+                    final Func1<? super Event<K, V>, Boolean> newPredicate = predicate;
+                    final ElementGenerationOperator.Builder<K, V> newElements = elements;
+                    if (projection == null
+                            || (projection.predicate == newPredicate && projection.elements == newElements))
+                        return;
+
+                    final List<Event<K, V>> matching = new ArrayList<>();
+                    if (projection.predicate == newPredicate) {
+                        for (K key : projection.visible)
+                            matching.add(events.get(key));
+                    } else {
+                        final List<Event<K, V>> all = new ArrayList<>(events.values());
+                        final boolean[] matches = evaluate(all, newPredicate);
+                        for (int i = 0; i < all.size(); i++) {
+                            if (matches[i])
+                                matching.add(all.get(i));
+                        }
+                    }
+
+                    final Projection next = new Projection(newPredicate, newElements);
+                    next.add(sort(matching, newElements.getGroupComparator()));
+                    next.flush();
+                    final ChangeBatch changes = new ChangeBatch();
+                    if (projection.elements == newElements) {
+                        ElementDiff.diff(projection.snapshot, next.snapshot, null, changes);
+                    } else {
+                        MoveDiff.diff(projection.snapshot, next.snapshot, null, changes);
+                    }
+                    projection = next;
+                    if (!worker.isUnsubscribed())
+                        publish(next.snapshot, changes);
+                }
+            });
+        }
+
+        void apply(List<Event<K, V>> batch) {
+            // The last Event for each key decides whether it is shown
+            final Map<K, Event<K, V>> latest = new LinkedHashMap<>();
+            for (Event<K, V> event : batch)
+                collect(event, latest);
+
+            final List<Event<K, V>> additions = new ArrayList<>();
+            for (Event<K, V> event : latest.values()) {
+                if (event.getType() == Event.TYPE.REMOVE) {
+                    events.remove(event.getKey());
+                    projection.remove(event);
+                } else {
+                    events.put(event.getKey(), event);
+                    if (projection.predicate.call(event)) {
+                        additions.add(event);
+                    } else {
+                        projection.remove(new Event<>(Event.TYPE.REMOVE, event.getKey(), event.getValue()));
+                    }
+                }
+            }
+            projection.add(additions);
+
+            final ChangeBatch changes = projection.flush();
+            if (!changes.isEmpty() && !worker.isUnsubscribed())
+                publish(projection.snapshot, changes);
+        }
+
+        // A whole batch is published at once, so a transaction only needs unwrapping
+        private void collect(Event<K, V> event, Map<K, Event<K, V>> latest) {
+            if (event instanceof BulkEvent) {
+                for (Event<K, V> bulked : ((BulkEvent<K, V>) event).getEvents()) {
+                    if (bulked.getType() == Event.TYPE.ADD)
+                        latest.put(bulked.getKey(), bulked);
+                }
+            } else if (event instanceof TransactionEvent) {
+                for (Event<K, V> transacted : ((TransactionEvent<K, V>) event).getEvents())
+                    collect(transacted, latest);
+            } else if (event.getType() == Event.TYPE.ADD || event.getType() == Event.TYPE.REMOVE) {
+                latest.put(event.getKey(), event);
+            }
+        }
+    }
+
+    /**
+     * The matching Events run through their own ElementGenerationOperator into their own model,
+     * which keeps header, footer and empty elements in step with them.
+     */
+    private final class Projection implements Observer<EventElement<K, V>> {
+
+        private final Func1<? super Event<K, V>, Boolean> predicate;
+        private final ElementGenerationOperator.Builder<K, V> elements;
+        private final ElementModel<K, V> model = new ElementModel<>();
+        private final Set<K> visible = new HashSet<>();
+        private final Subscriber<? super Event<K, V>> input;
+
+        private ChangeBatch changes = new ChangeBatch();
+        private ElementSnapshot<K, V> snapshot = ElementSnapshot.empty();
+
+        Projection(Func1<? super Event<K, V>, Boolean> predicate, ElementGenerationOperator.Builder<K, V> elements) {
+            this.predicate = predicate;
+            this.elements = elements;
+            this.input = elements.build().call(new Subscriber<EventElement<K, V>>() {
+                @Override
+                public void onCompleted() { }
+
+                @Override
+                public void onError(Throwable e) {
+                    Projection.this.onError(e);
+                }
+
+                @Override
+                public void onNext(EventElement<K, V> element) {
+                    Projection.this.onNext(element);
+                }
+            });
+            // Emits the empty element, if there is one
+            input.onStart();
+        }
+
+        void add(List<Event<K, V>> additions) {
+            for (Event<K, V> event : additions)
+                visible.add(event.getKey());
+            if (additions.size() == 1) {
+                input.onNext(additions.get(0));
+            } else if (!additions.isEmpty()) {
+                input.onNext(new BulkEvent<>(additions));
+            }
+        }
+
+        void remove(Event<K, V> removal) {
+            if (visible.remove(removal.getKey()))
+                input.onNext(removal);
+        }
+
+        /**
+         * @return The changes since the last flush, after which snapshot is up to date
+         */
+        ChangeBatch flush() {
+            final ChangeBatch flushed = changes;
+            changes = new ChangeBatch();
+            if (!flushed.isEmpty() || snapshot.size() != model.size())
+                snapshot = model.snapshot();
+            return flushed;
+        }
+
+        @Override
+        public void onCompleted() { }
+
+        // Events are fed in on the connection's worker, which stops on whatever is thrown here
+        @Override
+        public void onError(Throwable e) {
+            throw Exceptions.propagate(e);
+        }
+
+        @Override
+        public void onNext(EventElement<K, V> element) {
+            model.apply(element, changes);
+        }
+    }
+
+    private boolean[] evaluate(final List<Event<K, V>> all, final Func1<? super Event<K, V>, Boolean> predicate) {
+        final boolean[] matches = new boolean[all.size()];
+        ParallelSort.inParallel((all.size() + chunkSize - 1) / chunkSize, scheduler, new ParallelSort.ChunkTask() {
+            @Override
+            public void run(int chunk) {
+                final int end = Math.min(all.size(), (chunk + 1) * chunkSize);
+                for (int i = chunk * chunkSize; i < end; i++)
+                    matches[i] = predicate.call(all.get(i));
+            }
+        });
+        return matches;
+    }
+
+    /**
+     * Sorts Events the way their data elements will be sorted, so that sorting the elements made
+     * from them takes a single pass.  Group keys are found and the Events sorted in parallel
+     * chunks.  Whatever a comparator throws is rethrown, which leaves the previous one in place.
+     */
+    private List<Event<K, V>> sort(List<Event<K, V>> events, final GroupComparator<K, V> groupComparator) {
+        final int size = events.size();
+        final Sortable<K, V>[] sorted = newSortables(size);
+        for (int i = 0; i < size; i++)
+            sorted[i] = new Sortable<>(events.get(i));
+
+        ParallelSort.inParallel((size + chunkSize - 1) / chunkSize, scheduler, new ParallelSort.ChunkTask() {
+            @Override
+            public void run(int chunk) {
+                final int end = Math.min(size, (chunk + 1) * chunkSize);
+                for (int i = chunk * chunkSize; i < end; i++)
+                    sorted[i].group = groupComparator.getGroupKey(sorted[i].event);
+            }
+        });
+        ParallelSort.sort(sorted, new Comparator<Sortable<K, V>>() {
+            @Override
+            public int compare(Sortable<K, V> lhs, Sortable<K, V> rhs) {
+                final int groupComparison = lhs.group.compareTo(rhs.group);
+                return groupComparison != 0 ? groupComparison : groupComparator.compare(lhs.event, rhs.event);
+            }
+        }, chunkSize, scheduler);
+
+        final List<Event<K, V>> result = new ArrayList<>(size);
+        for (Sortable<K, V> sortable : sorted)
+            result.add(sortable.event);
+        return result;
+    }
+
+    // Generic arrays can't be made directly, and the raw array only ever holds Sortable<K, V>
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static <K, V> Sortable<K, V>[] newSortables(int size) {
+        return new Sortable[size];
+    }
+
+    private static final class Sortable<K, V> {
+        private final Event<K, V> event;
+        private String group;
+
+        Sortable(Event<K, V> event) {
+            this.event = event;
+        }
+    }
+
+    public static class Builder<K, V> {
+        private final Observable<Event<K, V>> stream;
+        private final ElementGenerationOperator.Builder<K, V> elements;
+        private Func1<? super Event<K, V>, Boolean> predicate = new Func1<Event<K, V>, Boolean>() {
+            @Override
+            public Boolean call(Event<K, V> event) {
+                return Boolean.TRUE;
+            }
+        };
+        private int chunkSize = DEFAULT_CHUNK_SIZE;
+        private Scheduler scheduler = Schedulers.computation();
+
+        /**
+         * @param stream   The Event stream, such as ObjectModel.getEventObservable()
+         * @param elements How to turn the matching Events into Elements.  A new operator is built
+         *                 from it whenever the predicate or GroupComparator changes.
+         */
+        public Builder(Observable<Event<K, V>> stream, ElementGenerationOperator.Builder<K, V> elements) {
+            this.stream = stream;
+            this.elements = elements;
+        }
+
+        /**
+         * @param predicate Returns true for the Events to show.  Shows everything by default.
+         */
+        public Builder<K, V> predicate(Func1<? super Event<K, V>, Boolean> predicate) {
+            if (predicate == null)
+                throw new NullPointerException("predicate can not be null");
+            this.predicate = predicate;
+            return this;
+        }
+
+        /**
+         * @param chunkSize The number of Events each parallel task checks or sorts when the predicate
+         *                  or GroupComparator changes
+         */
+        public Builder<K, V> chunkSize(int chunkSize) {
+            if (chunkSize <= 0)
+                throw new IllegalArgumentException("chunkSize must be positive");
+            this.chunkSize = chunkSize;
+            return this;
+        }
+
+        /**
+         * @param scheduler Where Events are filtered and the projection is applied, the computation
+         *                  scheduler by default
+         */
+        public Builder<K, V> scheduler(Scheduler scheduler) {
+            this.scheduler = scheduler;
+            return this;
+        }
+
+        public FilteredElementModel<K, V> build() {
+            return new FilteredElementModel<>(this);
+        }
+    }
+}
@@ -0,0 +1,57 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2015 Alex Hart
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.exallium.rxrecyclerview.lib.model;
+
+import com.exallium.rxrecyclerview.lib.element.EventElement;
+import com.exallium.rxrecyclerview.lib.event.Event;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * ElementIndex for any type of key, backed by a HashMap.
+ *
+ * @param <K> The Event Key
+ * @param <V> The Event Value
+ */
+public class HashElementIndex<K, V> implements ElementIndex<K, V> {
+
+    private final Map<K, EventElement<K, V>> items = new HashMap<>();
+
+    @Override
+    public EventElement<K, V> get(Event<K, V> event) {
+        return items.get(event.getKey());
+    }
+
+    @Override
+    public EventElement<K, V> put(EventElement<K, V> element) {
+        return items.put(element.getData().getKey(), element);
+    }
+
+    @Override
+    public EventElement<K, V> remove(Event<K, V> event) {
+        return items.remove(event.getKey());
+    }
+}
@@ -0,0 +1,55 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2015 Alex Hart
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.exallium.rxrecyclerview.lib.model;
+
+import com.exallium.rxrecyclerview.lib.collection.LongHashMap;
+import com.exallium.rxrecyclerview.lib.element.EventElement;
+import com.exallium.rxrecyclerview.lib.event.Event;
+import com.exallium.rxrecyclerview.lib.event.LongEvent;
+
+/**
+ * ElementIndex for Long keys, backed by a LongHashMap.  Keys of LongEvents are never boxed.
+ *
+ * @param <V> The Event Value
+ */
+public class LongElementIndex<V> implements ElementIndex<Long, V> {
+
+    private final LongHashMap<EventElement<Long, V>> items = new LongHashMap<>();
+
+    @Override
+    public EventElement<Long, V> get(Event<Long, V> event) {
+        return items.get(LongEvent.keyOf(event));
+    }
+
+    @Override
+    public EventElement<Long, V> put(EventElement<Long, V> element) {
+        return items.put(LongEvent.keyOf(element.getData()), element);
+    }
+
+    @Override
+    public EventElement<Long, V> remove(Event<Long, V> event) {
+        return items.remove(LongEvent.keyOf(event));
+    }
+}
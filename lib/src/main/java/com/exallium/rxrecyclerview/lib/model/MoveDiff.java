@@ -0,0 +1,211 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2015 Alex Hart
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.exallium.rxrecyclerview.lib.model;
+
+import com.exallium.rxrecyclerview.lib.element.ElementGroup;
+import com.exallium.rxrecyclerview.lib.element.EventElement;
+import rx.functions.Func2;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Finds the changes between two orderings of the same elements, such as before and after a batch
+ * which re-ranks them.  Elements are matched by identity: data elements by Event key, headers and
+ * footers by view type and group.  The longest run of matched elements which kept their relative
+ * order stays in place, and only the others are moved, so a re-sort costs as few moves as it can.
+ */
+final class MoveDiff {
+
+    private MoveDiff() { }
+
+    /**
+     * Reports removals from the bottom up, then moves, then insertions from the top down, then
+     * changes at their final positions, so each position is valid when replayed in order.
+     * O(n log n)
+     * @param from          The elements before
+     * @param to            The elements after
+     * @param changePayload Gives the payload for a changed data element, as in ElementModel, or null
+     * @param sink          Receives the changes
+     */
+    static <K, V> void diff(ElementList<K, V> from, ElementList<K, V> to,
+                            Func2<? super EventElement<K, V>, ? super EventElement<K, V>, ?> changePayload,
+                            ChangeSink sink) {
+        diff(from, to, 0, changePayload, sink);
+    }
+
+    /**
+     * Diffs a window of a longer list, whose elements ahead of and behind it are the same before
+     * and after.
+     * @param offset Where the window starts in the longer list, which is added to every position
+     */
+    static <K, V> void diff(ElementList<K, V> from, ElementList<K, V> to, int offset,
+                            Func2<? super EventElement<K, V>, ? super EventElement<K, V>, ?> changePayload,
+                            ChangeSink sink) {
+        final int n = from.size();
+        final int m = to.size();
+
+        final Map<Object, Integer> targets = new HashMap<Object, Integer>(Math.max(16, m * 4 / 3 + 1));
+        for (int j = 0; j < m; j++)
+            targets.put(identity(to.get(j)), j);
+
+        // The survivors, in their order before, and where they end up
+        final int[] source = new int[m];
+        final int[] survivorTargets = new int[Math.min(n, m)];
+        int survivors = 0;
+        for (int j = 0; j < m; j++)
+            source[j] = -1;
+        for (int i = n - 1; i >= 0; i--) {
+            final Integer target = targets.get(identity(from.get(i)));
+            if (target == null || source[target] != -1) {
+                sink.onRemoved(offset + i, 1);
+            } else {
+                source[target] = i;
+            }
+        }
+        for (int i = 0; i < n; i++) {
+            final Integer target = targets.get(identity(from.get(i)));
+            if (target != null && source[target] == i)
+                survivorTargets[survivors++] = target;
+        }
+
+        // Each survivor is a slot, numbered from 1 in its order before.  Slot 0 is the top.  Moved
+        // survivors are appended behind the slot of the survivor they follow, so a position is the
+        // number of survivors in the slots ahead of it.
+        final boolean[] anchored = longestIncreasing(survivorTargets, survivors, m);
+        final int[] slotOf = new int[m];
+        final int[] tree = new int[survivors + 2];
+        for (int s = 0; s < survivors; s++) {
+            slotOf[survivorTargets[s]] = s + 1;
+            add(tree, s + 1, 1);
+        }
+        int previousSlot = 0;
+        for (int j = 0; j < m; j++) {
+            if (source[j] == -1)
+                continue;
+            if (anchored[j]) {
+                previousSlot = slotOf[j];
+            } else {
+                final int fromPosition = sum(tree, slotOf[j] - 1);
+                add(tree, slotOf[j], -1);
+                sink.onMoved(offset + fromPosition, offset + sum(tree, previousSlot));
+                add(tree, previousSlot, 1);
+            }
+        }
+
+        for (int j = 0; j < m; j++) {
+            if (source[j] == -1)
+                sink.onInserted(offset + j, 1);
+        }
+
+        for (int j = 0; j < m; j++) {
+            if (source[j] == -1)
+                continue;
+            final EventElement<K, V> before = from.get(source[j]);
+            final EventElement<K, V> after = to.get(j);
+            // Headers and footers may now show a different Event of their group too
+            if (before.getData() != after.getData()) {
+                final Object payload = changePayload == null || after.getViewType() >> EventElement.MASK_SHIFT != EventElement.DATA_MASK
+                        ? null : changePayload.call(before, after);
+                if (payload != ElementModel.UNCHANGED)
+                    sink.onChanged(offset + j, 1, payload);
+            }
+        }
+    }
+
+    private static Object identity(EventElement<?, ?> element) {
+        if (element.getViewType() >> EventElement.MASK_SHIFT == EventElement.DATA_MASK)
+            return element.getData().getKey();
+        return new Decoration(element.getViewType(), element.getElementGroup());
+    }
+
+    /**
+     * @return Indexed by target, whether that survivor is part of a longest increasing run of
+     *         targets, and may stay where it is
+     */
+    private static boolean[] longestIncreasing(int[] values, int count, int targets) {
+        // tails[l] is the index of the smallest value ending an increasing run of length l + 1
+        final int[] tails = new int[count];
+        final int[] previous = new int[count];
+        int length = 0;
+        for (int i = 0; i < count; i++) {
+            int low = 0;
+            int high = length;
+            while (low < high) {
+                final int mid = (low + high) >>> 1;
+                if (values[tails[mid]] < values[i])
+                    low = mid + 1;
+                else
+                    high = mid;
+            }
+            previous[i] = low > 0 ? tails[low - 1] : -1;
+            tails[low] = i;
+            if (low == length)
+                length++;
+        }
+        final boolean[] anchored = new boolean[targets];
+        for (int i = length > 0 ? tails[length - 1] : -1; i != -1; i = previous[i])
+            anchored[values[i]] = true;
+        return anchored;
+    }
+
+    // A Fenwick tree over the slots, counting the survivors in each
+
+    private static void add(int[] tree, int slot, int delta) {
+        for (int i = slot + 1; i < tree.length; i += i & -i)
+            tree[i] += delta;
+    }
+
+    private static int sum(int[] tree, int slot) {
+        int total = 0;
+        for (int i = slot + 1; i > 0; i -= i & -i)
+            total += tree[i];
+        return total;
+    }
+
+    private static final class Decoration {
+        private final int viewType;
+        private final ElementGroup group;
+
+        Decoration(int viewType, ElementGroup group) {
+            this.viewType = viewType;
+            this.group = group;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Decoration))
+                return false;
+            final Decoration other = (Decoration) o;
+            return viewType == other.viewType
+                    && (group == null ? other.group == null : group.equals(other.group));
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * viewType + (group == null ? 0 : group.hashCode());
+        }
+    }
+}
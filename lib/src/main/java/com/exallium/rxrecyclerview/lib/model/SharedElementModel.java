@@ -0,0 +1,140 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2015 Alex Hart
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.exallium.rxrecyclerview.lib.model;
+
+import com.exallium.rxrecyclerview.lib.AdapterOptions;
+import com.exallium.rxrecyclerview.lib.element.EventElement;
+import com.exallium.rxrecyclerview.lib.event.Event;
+import com.exallium.rxrecyclerview.lib.operators.BatchOperator;
+import com.exallium.rxrecyclerview.lib.operators.ElementGenerationOperator;
+import rx.Observable;
+import rx.Subscriber;
+import rx.Subscription;
+import rx.schedulers.Schedulers;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * One sorted model shared by every adapter which asks for it under the same key, so that each
+ * Event is turned into Elements, sorted and applied only once.
+ *
+ * The model subscribes to its stream when the first adapter attaches, and unsubscribes and is
+ * forgotten when the last one detaches.  Batches are applied on the computation scheduler, and
+ * each adapter is only handed the changes since the snapshot it last saw.  Errors and completion
+ * of the stream are passed on to every attached adapter.
+ *
+ * @param <K> The Event Key
+ * @param <V> The Event Value
+ */
+public final class SharedElementModel<K, V> extends AbstractSnapshotSource<K, V> {
+
+    private static final Map<Object, SharedElementModel<?, ?>> models = new HashMap<>();
+
+    private final Object key;
+    private final Observable<Event<K, V>> stream;
+    private final ElementGenerationOperator.Builder<K, V> elements;
+
+    private SharedElementModel(Object key, Observable<Event<K, V>> stream, ElementGenerationOperator.Builder<K, V> elements) {
+        this.key = key;
+        this.stream = stream;
+        this.elements = elements;
+    }
+
+    /**
+     * Only whoever asks for a key first decides its stream and how it is turned into Elements, so
+     * every caller should pass the same ones.  Streams are usually made anew by each call, such
+     * as ObjectModel.getEventObservable(), which is why they can't be the key themselves.  Asking
+     * for a key with a GroupComparator which doesn't equal the one it was made with throws, since
+     * the shared model would be sorted differently than the caller expects.
+     * @param key      Names the model, such as "contacts", compared with equals
+     * @param stream   The Event stream
+     * @param elements How the Events are turned into Elements.  A new operator is built from it
+     *                 each time the model connects to its stream.
+     * @return The model shared by everyone who asks for the same key
+     * @throws IllegalArgumentException If the key is already shared with another GroupComparator
+     */
+    @SuppressWarnings("unchecked")
+    public static <K, V> SharedElementModel<K, V> of(Object key, Observable<Event<K, V>> stream,
+                                                     ElementGenerationOperator.Builder<K, V> elements) {
+        synchronized (models) {
+            SharedElementModel<K, V> sharedModel = (SharedElementModel<K, V>) models.get(key);
+            if (sharedModel == null) {
+                sharedModel = new SharedElementModel<>(key, stream, elements);
+                models.put(key, sharedModel);
+            } else if (!sharedModel.elements.getGroupComparator().equals(elements.getGroupComparator())) {
+                throw new IllegalArgumentException("Model " + key + " is already shared with another GroupComparator");
+            }
+            return sharedModel;
+        }
+    }
+
+    @Override
+    protected Subscription connect() {
+        // Someone holding on to this model may attach again after it was forgotten
+        synchronized (models) {
+            if (!models.containsKey(key))
+                models.put(key, this);
+        }
+        final ElementModel<K, V> model = new ElementModel<>();
+        return stream
+                .lift(elements.build())
+                .lift(new BatchOperator<EventElement<K, V>>(AdapterOptions.DEFAULT_MAX_BATCH_SIZE,
+                        AdapterOptions.DEFAULT_BATCH_LATENCY_MS, TimeUnit.MILLISECONDS, Schedulers.computation()))
+                .observeOn(Schedulers.computation())
+                .subscribe(new Subscriber<List<EventElement<K, V>>>() {
+                    @Override
+                    public void onCompleted() {
+                        publishTerminated(null);
+                    }
+
+                    @Override
+                    public void onError(Throwable e) {
+                        publishTerminated(e);
+                    }
+
+                    @Override
+                    public void onNext(List<EventElement<K, V>> elements) {
+                        final ChangeBatch changes = new ChangeBatch();
+                        for (int i = 0; i < elements.size(); i++)
+                            model.apply(elements.get(i), changes);
+                        // A batch can race with the last adapter detaching
+                        if (!changes.isEmpty() && !isUnsubscribed())
+                            publish(model.snapshot(), changes);
+                    }
+                });
+    }
+
+    // Under this model's lock, so a listener attaching again can't be forgotten along with it
+    @Override
+    protected void onDisconnected() {
+        synchronized (models) {
+            if (models.get(key) == this)
+                models.remove(key);
+        }
+    }
+}
@@ -0,0 +1,70 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2015 Alex Hart
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.exallium.rxrecyclerview.lib.model;
+
+import rx.Scheduler;
+import rx.Subscription;
+
+/**
+ * A model which is applied elsewhere and handed to whoever attaches as immutable snapshots, each
+ * along with the changes since the previous one.  RxRecyclerViewAdapter can show any of them.
+ *
+ * @param <K> The Event Key
+ * @param <V> The Event Value
+ */
+public interface SnapshotSource<K, V> {
+
+    /**
+     * Receives updates for one attached adapter, on the scheduler it attached with.
+     */
+    interface Listener<K, V> {
+        /**
+         * @param snapshot The model as it is now
+         * @param changes  The changes from the previous snapshot given to this listener, or from an
+         *                 empty list for the first one.  Dispatch them before returning.
+         */
+        void onUpdate(ElementSnapshot<K, V> snapshot, ChangeBatch changes);
+
+        /**
+         * The source's stream completed, after the last update.  The last snapshot stays valid.
+         */
+        void onCompleted();
+
+        /**
+         * The source's stream failed, after the last update.  The last snapshot stays valid, but
+         * no more updates follow.
+         * @param error What went wrong
+         */
+        void onError(Throwable error);
+    }
+
+    /**
+     * Attaches a listener, which is first handed the current contents of the model.
+     * @param listener  Receives the model's updates
+     * @param scheduler The scheduler to call the listener on, such as the main thread
+     * @return Unsubscribe to detach
+     */
+    Subscription attach(Listener<K, V> listener, Scheduler scheduler);
+}
@@ -0,0 +1,73 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2015 Alex Hart
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.exallium.rxrecyclerview.lib.model;
+
+import com.exallium.rxrecyclerview.lib.collection.PersistentIndexedTree;
+import com.exallium.rxrecyclerview.lib.element.EventElement;
+
+/**
+ * One version of an ElementModel, which stays as it was however the model changes afterwards.
+ * Versions share everything but the paths to what changed between them, so taking one costs
+ * nothing, and it can be read from any thread.  get and indexOf are O(log n).
+ *
+ * @param <K> The Event Key
+ * @param <V> The Event Value
+ */
+public final class VersionedSnapshot<K, V> implements ElementList<K, V> {
+
+    private final PersistentIndexedTree<EventElement<K, V>> tree;
+    private final long version;
+
+    VersionedSnapshot(PersistentIndexedTree<EventElement<K, V>> tree, long version) {
+        this.tree = tree;
+        this.version = version;
+    }
+
+    /**
+     * @return Goes up by one each time the model finishes an apply which changed it
+     */
+    public long getVersion() {
+        return version;
+    }
+
+    PersistentIndexedTree<EventElement<K, V>> getTree() {
+        return tree;
+    }
+
+    @Override
+    public int size() {
+        return tree.size();
+    }
+
+    @Override
+    public EventElement<K, V> get(int position) {
+        return tree.get(position);
+    }
+
+    @Override
+    public int indexOf(EventElement<K, V> element) {
+        return tree.indexOf(element);
+    }
+}
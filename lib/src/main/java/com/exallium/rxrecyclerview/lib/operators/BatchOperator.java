@@ -0,0 +1,125 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2015 Alex Hart
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.exallium.rxrecyclerview.lib.operators;
+
+import rx.Observable;
+import rx.Scheduler;
+import rx.Subscriber;
+import rx.functions.Action0;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Collects items into batches.  A batch is emitted once it holds maxBatchSize items, or once
+ * maxLatency has passed since its first item arrived, whichever comes first.  Unlike buffer,
+ * no timer runs and no empty batches are emitted while the stream is idle.
+ *
+ * @param <T> The type of item being batched
+ */
+public class BatchOperator<T> implements Observable.Operator<List<T>, T> {
+
+    private final int maxBatchSize;
+    private final long maxLatency;
+    private final TimeUnit unit;
+    private final Scheduler scheduler;
+
+    public BatchOperator(int maxBatchSize, long maxLatency, TimeUnit unit, Scheduler scheduler) {
+        if (maxBatchSize <= 0)
+            throw new IllegalArgumentException("maxBatchSize must be positive");
+        this.maxBatchSize = maxBatchSize;
+        this.maxLatency = maxLatency;
+        this.unit = unit;
+        this.scheduler = scheduler;
+    }
+
+    @Override
+    public Subscriber<? super T> call(final Subscriber<? super List<T>> subscriber) {
+        final Scheduler.Worker worker = scheduler.createWorker();
+        final Subscriber<T> parent = new Subscriber<T>() {
+
+            private List<T> batch = new ArrayList<>();
+            private long batchId = 0;
+
+            @Override
+            public void onCompleted() {
+                synchronized (this) {
+                    emit();
+                    if (!subscriber.isUnsubscribed())
+                        subscriber.onCompleted();
+                }
+                worker.unsubscribe();
+            }
+
+            @Override
+            public void onError(Throwable e) {
+                synchronized (this) {
+                    batch.clear();
+                    if (!subscriber.isUnsubscribed())
+                        subscriber.onError(e);
+                }
+                worker.unsubscribe();
+            }
+
+            @Override
+            public void onNext(T t) {
+                synchronized (this) {
+                    batch.add(t);
+                    if (batch.size() >= maxBatchSize) {
+                        emit();
+                    } else if (batch.size() == 1) {
+                        final long id = batchId;
+                        worker.schedule(new Action0() {
+                            @Override
+                            public void call() {
+                                flush(id);
+                            }
+                        }, maxLatency, unit);
+                    }
+                }
+            }
+
+            private synchronized void flush(long id) {
+                // A batch that already filled up is not flushed twice
+                if (id == batchId)
+                    emit();
+            }
+
+            private void emit() {
+                if (batch.isEmpty())
+                    return;
+                List<T> toEmit = batch;
+                batch = new ArrayList<>(Math.min(toEmit.size(), maxBatchSize));
+                batchId++;
+                if (!subscriber.isUnsubscribed())
+                    subscriber.onNext(toEmit);
+            }
+        };
+        subscriber.add(worker);
+        subscriber.add(parent);
+        return parent;
+    }
+}
@@ -0,0 +1,152 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2015 Alex Hart
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.exallium.rxrecyclerview.lib.operators;
+
+import com.exallium.rxrecyclerview.lib.event.BulkEvent;
+import com.exallium.rxrecyclerview.lib.event.Event;
+import com.exallium.rxrecyclerview.lib.event.TransactionEvent;
+import rx.Observable;
+import rx.Scheduler;
+import rx.Subscriber;
+import rx.functions.Action0;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Conflates Events by key within a window, so that downstream work is proportional to the number
+ * of distinct keys rather than the number of raw events.
+ *
+ * Within a window:
+ *  * Only the latest event for a key is kept, so an ADD followed by a REMOVE leaves just the REMOVE
+ *  * Surviving events are emitted in the order their keys were first seen
+ *
+ * Nothing is remembered between windows, so a REMOVE may be let through for a key which never
+ * reached downstream, which the model ignores.
+ *
+ * A window is closed once it holds maxKeys distinct keys, or once the window time has passed
+ * since its first event, whichever comes first.  Place it before ElementGenerationOperator.
+ *
+ * BulkEvents and TransactionEvents are never conflated.  They close the window and are passed on
+ * whole, right after it.
+ *
+ * @param <K> The Event Key
+ * @param <V> The Event Value
+ */
+public class ConflationOperator<K, V> implements Observable.Operator<Event<K, V>, Event<K, V>> {
+
+    private final long window;
+    private final TimeUnit unit;
+    private final int maxKeys;
+    private final Scheduler scheduler;
+
+    public ConflationOperator(long window, TimeUnit unit, int maxKeys, Scheduler scheduler) {
+        if (maxKeys <= 0)
+            throw new IllegalArgumentException("maxKeys must be positive");
+        this.window = window;
+        this.unit = unit;
+        this.maxKeys = maxKeys;
+        this.scheduler = scheduler;
+    }
+
+    @Override
+    public Subscriber<? super Event<K, V>> call(final Subscriber<? super Event<K, V>> subscriber) {
+        final Scheduler.Worker worker = scheduler.createWorker();
+        final Subscriber<Event<K, V>> parent = new Subscriber<Event<K, V>>() {
+
+            private final LinkedHashMap<K, Event<K, V>> pending = new LinkedHashMap<>();
+            private long windowId = 0;
+
+            @Override
+            public void onCompleted() {
+                synchronized (this) {
+                    emit();
+                    if (!subscriber.isUnsubscribed())
+                        subscriber.onCompleted();
+                }
+                worker.unsubscribe();
+            }
+
+            @Override
+            public void onError(Throwable e) {
+                synchronized (this) {
+                    pending.clear();
+                    if (!subscriber.isUnsubscribed())
+                        subscriber.onError(e);
+                }
+                worker.unsubscribe();
+            }
+
+            @Override
+            public void onNext(Event<K, V> event) {
+                synchronized (this) {
+                    if (event instanceof BulkEvent || event instanceof TransactionEvent) {
+                        emit();
+                        if (!subscriber.isUnsubscribed())
+                            subscriber.onNext(event);
+                        return;
+                    }
+
+                    final boolean isFirst = pending.isEmpty();
+                    pending.put(event.getKey(), event);
+                    if (pending.size() >= maxKeys) {
+                        emit();
+                    } else if (isFirst) {
+                        final long id = windowId;
+                        worker.schedule(new Action0() {
+                            @Override
+                            public void call() {
+                                flush(id);
+                            }
+                        }, window, unit);
+                    }
+                }
+            }
+
+            private synchronized void flush(long id) {
+                // A window which already filled up is not flushed twice
+                if (id == windowId)
+                    emit();
+            }
+
+            private void emit() {
+                windowId++;
+                if (pending.isEmpty())
+                    return;
+                final List<Event<K, V>> events = new ArrayList<>(pending.values());
+                pending.clear();
+                for (Event<K, V> event : events) {
+                    if (!subscriber.isUnsubscribed())
+                        subscriber.onNext(event);
+                }
+            }
+        };
+        subscriber.add(worker);
+        subscriber.add(parent);
+        return parent;
+    }
+}
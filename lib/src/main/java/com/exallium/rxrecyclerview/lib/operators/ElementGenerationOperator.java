@@ -25,28 +25,89 @@
 package com.exallium.rxrecyclerview.lib.operators;
 
 import com.exallium.rxrecyclerview.lib.GroupComparator;
+import com.exallium.rxrecyclerview.lib.LongGroupComparator;
+import com.exallium.rxrecyclerview.lib.collection.LongHashMap;
+import com.exallium.rxrecyclerview.lib.collection.ParallelSort;
 import com.exallium.rxrecyclerview.lib.element.*;
+import com.exallium.rxrecyclerview.lib.event.BulkEvent;
 import com.exallium.rxrecyclerview.lib.event.Event;
+import com.exallium.rxrecyclerview.lib.event.LongEvent;
+import com.exallium.rxrecyclerview.lib.event.TransactionEvent;
 import rx.Observable;
+import rx.Observer;
+import rx.Producer;
 import rx.Subscriber;
+import rx.exceptions.MissingBackpressureException;
+import rx.functions.Action0;
+import rx.schedulers.Schedulers;
+import rx.subscriptions.Subscriptions;
 
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
-import java.util.TreeMap;
+import java.util.Queue;
 
 public class ElementGenerationOperator<K, V> implements Observable.Operator<EventElement<K, V>, Event<K, V>> {
 
-    Map<String, Integer> groupMap = new HashMap<>();
+    /**
+     * What to do when events arrive faster than they are requested and the buffer is full.  BLOCK
+     * and CONFLATE_BY_KEY wait on the producing thread, so never use them when events are produced
+     * on the main thread, or on the thread the elements are consumed on, which would deadlock.
+     */
+    public enum OVERFLOW {
+        ERROR,              // Fail with a MissingBackpressureException.  The default.
+        BLOCK,              // Block the producing thread until there is room
+        DROP_OLDEST,        // Drop the oldest buffered event.  The adapter will miss that change.
+        CONFLATE_BY_KEY,    // Only buffer the latest event for each key, and block when full
+    }
+
+    // Groups we have seen, with their key counts.  Empty groups are kept, up to
+    // GroupRegistry.MAX_GROUPS of them, so that a group which starts again reuses its state.
+    private final Map<ElementGroup, GroupState> groupStates = new HashMap<>();
+    // The number of groups with at least one key
+    private int liveGroups = 0;
+    // The element each key we have seen was last added as.  Long keyed comparators use
+    // longKeyElements instead, so that keys are never boxed.
+    private final Map<K, EventElement<K, V>> keyElements;
+    private final LongHashMap<EventElement<K, V>> longKeyElements;
+    private EmptyElement<K, V> emptyAdd;
+    private EmptyElement<K, V> emptyRemove;
     private final GroupComparator<K, V> groupComparator;
+    private final Comparator<EventElement<K, V>> elementOrder = new Comparator<EventElement<K, V>>() {
+        @Override
+        public int compare(EventElement<K, V> lhs, EventElement<K, V> rhs) {
+            return lhs.compareTo(rhs);
+        }
+    };
     private final boolean hasHeader;
     private final boolean hasFooter;
     private final boolean hasEmpty;
+    private final int bufferSize;
+    private final OVERFLOW overflow;
+
+    private static final class GroupState {
+        int size;
+    }
 
-    public ElementGenerationOperator(Builder builder) {
+    public ElementGenerationOperator(Builder<K, V> builder) {
         this.groupComparator = builder.groupComparator;
         this.hasFooter = builder.hasFooter;
         this.hasHeader = builder.hasHeader;
         this.hasEmpty = builder.hasEmpty;
+        this.bufferSize = builder.bufferSize;
+        this.overflow = builder.overflow;
+        if (groupComparator instanceof LongGroupComparator) {
+            this.keyElements = null;
+            this.longKeyElements = new LongHashMap<>();
+        } else {
+            this.keyElements = new HashMap<>();
+            this.longKeyElements = null;
+        }
     }
 
     public static class Builder<K, V> {
@@ -54,16 +115,42 @@ public class ElementGenerationOperator<K, V> implements Observable.Operator<Even
         private boolean hasHeader = false;
         private boolean hasFooter = false;
         private boolean hasEmpty = false;
+        private int bufferSize = 0;
+        private OVERFLOW overflow = OVERFLOW.ERROR;
 
         public Builder(GroupComparator<K, V> groupComparator) {
             this.groupComparator = groupComparator;
         }
 
+        /**
+         * Copies every option of another Builder, but sorts and groups with a different comparator.
+         */
+        public Builder(Builder<K, V> other, GroupComparator<K, V> groupComparator) {
+            this.groupComparator = groupComparator;
+            this.hasHeader = other.hasHeader;
+            this.hasFooter = other.hasFooter;
+            this.hasEmpty = other.hasEmpty;
+            this.bufferSize = other.bufferSize;
+            this.overflow = other.overflow;
+        }
+
+        public GroupComparator<K, V> getGroupComparator() {
+            return groupComparator;
+        }
+
+        /**
+         * A header is made whenever a group starts, from the Event which started it, and removed
+         * with the Event which ended it.  Its Event is not updated while the group lives, so it
+         * may hold a key which has since changed or left the group.
+         */
         public Builder<K, V> hasHeader(boolean hasHeader) {
             this.hasHeader = hasHeader;
             return this;
         }
 
+        /**
+         * Footers are made and removed the same way as headers.
+         */
         public Builder<K, V> hasFooter(boolean hasFooter) {
             this.hasFooter = hasFooter;
             return this;
@@ -74,20 +161,63 @@ public class ElementGenerationOperator<K, V> implements Observable.Operator<Even
             return this;
         }
 
+        /**
+         * Makes the operator honor downstream requests, buffering up to bufferSize elements.
+         * Since every event can turn into several elements, fewer events than that are buffered.
+         * By default there is no buffer and every element is passed along as soon as it is made.
+         * @param bufferSize The number of elements to buffer
+         */
+        public Builder<K, V> bufferSize(int bufferSize) {
+            if (bufferSize <= 0)
+                throw new IllegalArgumentException("bufferSize must be positive");
+            this.bufferSize = bufferSize;
+            return this;
+        }
+
+        /**
+         * @param overflow What to do when upstream ignores backpressure and the buffer fills up.
+         *                 ERROR by default, which never blocks the producing thread.
+         */
+        public Builder<K, V> overflow(OVERFLOW overflow) {
+            this.overflow = overflow;
+            return this;
+        }
+
         public ElementGenerationOperator<K, V> build() {
             return new ElementGenerationOperator<>(this);
         }
     }
 
+    /**
+     * @return The GroupComparator elements are made with
+     */
+    public GroupComparator<K, V> getGroupComparator() {
+        return groupComparator;
+    }
+
+    /**
+     * @return The most elements a single event can turn into
+     */
+    private int getMaxFanOut() {
+        // An update which moves a key between groups can close one group and open another
+        return 1 + 2 * ((hasHeader ? 1 : 0) + (hasFooter ? 1 : 0)) + (hasEmpty ? 1 : 0);
+    }
 
     @Override
     public Subscriber<? super Event<K, V>> call(final Subscriber<? super EventElement<K, V>> subscriber) {
-        return new Subscriber<Event<K, V>>() {
+        if (bufferSize > 0) {
+            BufferedSubscriber parent = new BufferedSubscriber(subscriber);
+            subscriber.add(parent);
+            subscriber.setProducer(parent.producer);
+            return parent;
+        }
+
+        final Subscriber<Event<K, V>> parent = new Subscriber<Event<K, V>>() {
 
             @Override
             public void onStart() {
                 if (!subscriber.isUnsubscribed() && hasEmpty)
-                    subscriber.onNext(new EmptyElement<>(groupComparator.getEmptyEvent(Event.TYPE.ADD), groupComparator));
+                    subscriber.onNext(emptyElement(Event.TYPE.ADD));
             }
 
             @Override
@@ -105,36 +235,465 @@ public class ElementGenerationOperator<K, V> implements Observable.Operator<Even
             @Override
             public void onNext(Event<K, V> event) {
                 if (!subscriber.isUnsubscribed()) {
-                    final EventElement<K, V> element = new EventElement<>(event, groupComparator);
-                    subscriber.onNext(element);
-                    final String groupKey = element.getGroup();
-                    final int groupSize = groupMap.containsKey(groupKey) ? groupMap.get(groupKey) : 0;
-
-                    switch (event.getType()) {
-
-                        case ADD:
-                            int startSize = groupMap.size();
-                            groupMap.put(groupKey, groupSize + 1);
-                            if (groupSize == 0) {
-                                if (hasHeader) subscriber.onNext(new HeaderElement<>(event, groupComparator));
-                                if (hasFooter) subscriber.onNext(new FooterElement<>(event, groupComparator));
-                            }
-                            if (hasEmpty && startSize == 0)
-                                subscriber.onNext(new EmptyElement<>(groupComparator.getEmptyEvent(Event.TYPE.REMOVE), groupComparator));
-                            break;
-                        case REMOVE:
-                            groupMap.put(groupKey, Math.max(0, groupSize - 1));
-                            if (groupMap.get(groupKey) == 0) {
-                                groupMap.remove(groupKey);
-                                if (hasHeader) subscriber.onNext(new HeaderElement<>(event, groupComparator));
-                                if (hasFooter) subscriber.onNext(new FooterElement<>(event, groupComparator));
-                            }
-                            if (hasEmpty && groupMap.size() == 0)
-                                subscriber.onNext(new EmptyElement<>(groupComparator.getEmptyEvent(Event.TYPE.ADD), groupComparator));
+                    generate(event, subscriber);
+                }
+            }
+        };
+        // Unsubscribing downstream should reach the source, but requests can't pass straight
+        // through since one event may become several elements
+        subscriber.add(parent);
+        return parent;
+    }
+
+    private void generate(Event<K, V> event, Observer<? super EventElement<K, V>> observer) {
+        if (event instanceof BulkEvent) {
+            observer.onNext(generateBulk((BulkEvent<K, V>) event));
+            return;
+        }
+        if (event instanceof TransactionEvent) {
+            observer.onNext(generateTransaction((TransactionEvent<K, V>) event));
+            return;
+        }
+
+        switch (event.getType()) {
+
+            case ADD:
+                final EventElement<K, V> previous = getElement(event);
+                // Resending the Event a key already holds needs no new element.  Equal values are
+                // not enough, since a value's equals may not cover everything that is shown.
+                if (previous != null && previous.getData() == event) {
+                    observer.onNext(previous);
+                    break;
+                }
+
+                final EventElement<K, V> element = new EventElement<>(event, groupComparator);
+                putElement(event, element);
+                observer.onNext(element);
+                final ElementGroup group = element.getElementGroup();
+                if (previous != null && group.equals(previous.getElementGroup()))
+                    break;
+                final int startGroups = liveGroups;
+                if (previous != null)
+                    leaveGroup(previous.getElementGroup(), event, observer);
+
+                GroupState groupState = groupStates.get(group);
+                if (groupState == null) {
+                    groupState = new GroupState();
+                    groupStates.put(group, groupState);
+                }
+                if (groupState.size++ == 0) {
+                    liveGroups++;
+                    if (hasHeader) observer.onNext(new HeaderElement<>(event, groupComparator, group));
+                    if (hasFooter) observer.onNext(new FooterElement<>(event, groupComparator, group));
+                }
+                if (hasEmpty && startGroups == 0)
+                    observer.onNext(emptyElement(Event.TYPE.REMOVE));
+                break;
+            case REMOVE:
+                final EventElement<K, V> removed = removeElement(event);
+                observer.onNext(new EventElement<>(event, groupComparator));
+                if (removed == null)
+                    break;
+                leaveGroup(removed.getElementGroup(), event, observer);
+                if (hasEmpty && liveGroups == 0)
+                    observer.onNext(emptyElement(Event.TYPE.ADD));
+                break;
+        }
+    }
+
+    // Only called with a LongGroupComparator, whose events all have Long keys
+    private static long longKeyOf(Event<?, ?> event) {
+        if (event instanceof LongEvent)
+            return ((LongEvent<?>) event).getLongKey();
+        return (Long) event.getKey();
+    }
+
+    private EventElement<K, V> getElement(Event<K, V> event) {
+        if (longKeyElements != null)
+            return longKeyElements.get(longKeyOf(event));
+        return keyElements.get(event.getKey());
+    }
+
+    private void putElement(Event<K, V> event, EventElement<K, V> element) {
+        if (longKeyElements != null) {
+            longKeyElements.put(longKeyOf(event), element);
+        } else {
+            keyElements.put(event.getKey(), element);
+        }
+    }
+
+    private EventElement<K, V> removeElement(Event<K, V> event) {
+        if (longKeyElements != null)
+            return longKeyElements.remove(longKeyOf(event));
+        return keyElements.remove(event.getKey());
+    }
+
+    private EmptyElement<K, V> emptyElement(Event.TYPE eventType) {
+        if (eventType == Event.TYPE.ADD) {
+            if (emptyAdd == null)
+                emptyAdd = new EmptyElement<>(groupComparator.getEmptyEvent(Event.TYPE.ADD), groupComparator);
+            return emptyAdd;
+        }
+        if (emptyRemove == null)
+            emptyRemove = new EmptyElement<>(groupComparator.getEmptyEvent(Event.TYPE.REMOVE), groupComparator);
+        return emptyRemove;
+    }
+
+    /**
+     * Generates the Elements for every ADD Event in the BulkEvent and sorts them.  This happens on
+     * whichever thread feeds this operator, so subscribe on a background Scheduler.  Large loads are
+     * sorted in parallel chunks, with the computation Scheduler's workers helping.
+     *
+     * Only the last ADD for each key counts, and each group gets at most one header and one footer
+     * change, for whether the group ends up with any keys, so that no two elements compare as equal.
+     */
+    private BulkElement<K, V> generateBulk(BulkEvent<K, V> bulkEvent) {
+        final Map<K, Event<K, V>> events = new LinkedHashMap<>();
+        for (Event<K, V> event : bulkEvent.getEvents()) {
+            if (event.getType() == Event.TYPE.ADD)
+                events.put(event.getKey(), event);
+        }
+
+        final List<EventElement<K, V>> data = new ArrayList<>(events.size());
+        final Map<ElementGroup, EventElement<K, V>> headers = new LinkedHashMap<>();
+        final Map<ElementGroup, EventElement<K, V>> footers = new LinkedHashMap<>();
+        final List<EventElement<K, V>> empties = new ArrayList<>(1);
+        final Observer<EventElement<K, V>> collector = new Observer<EventElement<K, V>>() {
+            @Override
+            public void onCompleted() { }
+
+            @Override
+            public void onError(Throwable e) { }
+
+            @Override
+            public void onNext(EventElement<K, V> element) {
+                // A group which ends and starts again keeps only its latest header and footer
+                switch (element.getViewType() >> EventElement.MASK_SHIFT) {
+                    case EventElement.DATA_MASK:
+                        data.add(element);
+                        break;
+                    case EventElement.HEADER_MASK:
+                        headers.put(element.getElementGroup(), element);
+                        break;
+                    case EventElement.FOOTER_MASK:
+                        footers.put(element.getElementGroup(), element);
+                        break;
+                    default:
+                        empties.add(element);
+                        break;
+                }
+            }
+        };
+
+        for (Event<K, V> event : events.values())
+            generate(event, collector);
+
+        final List<EventElement<K, V>> elements = new ArrayList<>(
+                data.size() + headers.size() + footers.size() + empties.size());
+        elements.addAll(data);
+        elements.addAll(headers.values());
+        elements.addAll(footers.values());
+        elements.addAll(empties);
+        final EventElement<K, V>[] sorted = elements.toArray(ElementGenerationOperator.<K, V>newElements(elements.size()));
+        ParallelSort.sort(sorted, elementOrder, ParallelSort.DEFAULT_CHUNK_SIZE, Schedulers.computation());
+        for (int i = 0; i < sorted.length; i++)
+            elements.set(i, sorted[i]);
+        return new BulkElement<>(bulkEvent, groupComparator, elements);
+    }
+
+    // Generic arrays can't be made directly, and the raw array only ever holds EventElement<K, V>
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static <K, V> EventElement<K, V>[] newElements(int size) {
+        return new EventElement[size];
+    }
+
+    /**
+     * Generates the Elements for every Event in the TransactionEvent, in order.
+     */
+    private TransactionElement<K, V> generateTransaction(TransactionEvent<K, V> transactionEvent) {
+        final List<EventElement<K, V>> elements = new ArrayList<>();
+        final Observer<EventElement<K, V>> collector = new Observer<EventElement<K, V>>() {
+            @Override
+            public void onCompleted() { }
+
+            @Override
+            public void onError(Throwable e) { }
+
+            @Override
+            public void onNext(EventElement<K, V> element) {
+                elements.add(element);
+            }
+        };
+
+        for (Event<K, V> event : transactionEvent.getEvents())
+            generate(event, collector);
+        return new TransactionElement<>(transactionEvent, groupComparator, elements);
+    }
+
+    private void leaveGroup(ElementGroup group, Event<K, V> event, Observer<? super EventElement<K, V>> observer) {
+        final GroupState groupState = groupStates.get(group);
+        if (groupState == null)
+            return;
+        if (groupState.size > 1) {
+            groupState.size--;
+            return;
+        }
+
+        groupState.size = 0;
+        liveGroups--;
+        if (groupStates.size() > GroupRegistry.MAX_GROUPS)
+            groupStates.remove(group);
+        if (!hasHeader && !hasFooter)
+            return;
+
+        // The key may be moving to another group, so the removal is made explicitly for the group it leaves
+        final Event<K, V> removeEvent = event.getType() == Event.TYPE.REMOVE ? event
+                : new Event<>(Event.TYPE.REMOVE, event.getKey(), event.getValue());
+        if (hasHeader) observer.onNext(new HeaderElement<>(removeEvent, groupComparator, group));
+        if (hasFooter) observer.onNext(new FooterElement<>(removeEvent, groupComparator, group));
+    }
+
+    /**
+     * Buffers events and only turns them into elements as downstream asks for them.
+     */
+    private final class BufferedSubscriber extends Subscriber<Event<K, V>> {
+
+        private final Subscriber<? super EventElement<K, V>> child;
+        private final EventBuffer events;
+        private final int maxEvents;
+
+        // Elements made from the current event which have not been requested yet
+        private final Queue<EventElement<K, V>> pending = new ArrayDeque<>();
+        private final Observer<EventElement<K, V>> pendingObserver = new Observer<EventElement<K, V>>() {
+            @Override
+            public void onCompleted() { }
+
+            @Override
+            public void onError(Throwable e) { }
+
+            @Override
+            public void onNext(EventElement<K, V> element) {
+                pending.offer(element);
+            }
+        };
+
+        private long requested = 0;
+        private int consumed = 0;
+        private boolean isEmitting = false;
+        private boolean isMissed = false;
+        private boolean isDone = false;
+        private Throwable error = null;
+
+        final Producer producer = new Producer() {
+            @Override
+            public void request(long n) {
+                if (n <= 0)
+                    return;
+                synchronized (BufferedSubscriber.this) {
+                    requested += n;
+                    if (requested < 0)
+                        requested = Long.MAX_VALUE;
+                }
+                drain();
+            }
+        };
+
+        BufferedSubscriber(Subscriber<? super EventElement<K, V>> child) {
+            this.child = child;
+            this.maxEvents = Math.max(1, bufferSize / getMaxFanOut());
+            this.events = overflow == OVERFLOW.CONFLATE_BY_KEY ? new ConflatingBuffer() : new QueueBuffer();
+            // Wake up a blocked producer when downstream goes away
+            add(Subscriptions.create(new Action0() {
+                @Override
+                public void call() {
+                    synchronized (BufferedSubscriber.this) {
+                        BufferedSubscriber.this.notifyAll();
+                    }
+                }
+            }));
+        }
+
+        @Override
+        public void onStart() {
+            if (hasEmpty) {
+                synchronized (this) {
+                    pending.offer(emptyElement(Event.TYPE.ADD));
+                }
+            }
+            request(maxEvents);
+        }
+
+        @Override
+        public void onCompleted() {
+            synchronized (this) {
+                isDone = true;
+            }
+            drain();
+        }
+
+        @Override
+        public void onError(Throwable e) {
+            synchronized (this) {
+                // Keeps an overflow error which already ended the stream
+                if (isDone)
+                    return;
+                error = e;
+                isDone = true;
+            }
+            drain();
+        }
+
+        @Override
+        public void onNext(Event<K, V> event) {
+            synchronized (this) {
+                if (isDone)
+                    return;
+                if (!events.offer(event)) {
+                    if (overflow == OVERFLOW.ERROR) {
+                        unsubscribe();
+                        error = new MissingBackpressureException();
+                        isDone = true;
+                    } else if (overflow == OVERFLOW.DROP_OLDEST) {
+                        events.poll();
+                        events.offer(event);
+                    } else {
+                        try {
+                            while (events.size() >= maxEvents && !child.isUnsubscribed())
+                                wait();
+                        } catch (InterruptedException e) {
+                            Thread.currentThread().interrupt();
+                            return;
+                        }
+                        events.offer(event);
+                    }
+                }
+            }
+            drain();
+        }
+
+        private void drain() {
+            synchronized (this) {
+                if (isEmitting) {
+                    isMissed = true;
+                    return;
+                }
+                isEmitting = true;
+            }
+
+            while (true) {
+                while (true) {
+                    final EventElement<K, V> element;
+                    synchronized (this) {
+                        if (requested == 0 || child.isUnsubscribed())
                             break;
+                        if (pending.isEmpty()) {
+                            Event<K, V> event = events.poll();
+                            if (event == null)
+                                break;
+                            consumed++;
+                            generate(event, pendingObserver);
+                            notifyAll();
+                            continue;
+                        }
+                        element = pending.poll();
+                        if (requested != Long.MAX_VALUE)
+                            requested--;
+                    }
+                    child.onNext(element);
+                }
+
+                final int toRequest;
+                final boolean isFinished;
+                final Throwable finalError;
+                synchronized (this) {
+                    toRequest = consumed >= maxEvents / 2 ? consumed : 0;
+                    if (toRequest != 0)
+                        consumed = 0;
+                    isFinished = isDone && pending.isEmpty() && (error != null || events.size() == 0);
+                    finalError = error;
+                }
+
+                if (isFinished) {
+                    if (!child.isUnsubscribed()) {
+                        if (finalError != null) {
+                            child.onError(finalError);
+                        } else {
+                            child.onCompleted();
+                        }
+                    }
+                    return;
+                }
+
+                if (toRequest != 0)
+                    request(toRequest);
+
+                synchronized (this) {
+                    if (!isMissed) {
+                        isEmitting = false;
+                        return;
                     }
+                    isMissed = false;
                 }
             }
-        };
+        }
+
+        private abstract class EventBuffer {
+            abstract boolean offer(Event<K, V> event);
+
+            abstract Event<K, V> poll();
+
+            abstract int size();
+        }
+
+        private final class QueueBuffer extends EventBuffer {
+            private final Queue<Event<K, V>> queue = new ArrayDeque<>();
+
+            @Override
+            boolean offer(Event<K, V> event) {
+                return queue.size() < maxEvents && queue.offer(event);
+            }
+
+            @Override
+            Event<K, V> poll() {
+                return queue.poll();
+            }
+
+            @Override
+            int size() {
+                return queue.size();
+            }
+        }
+
+        // Keeps the latest event for each key, in the order the keys were first buffered.  BulkEvents
+        // and TransactionEvents are buffered under themselves, so that they are never conflated.
+        private final class ConflatingBuffer extends EventBuffer {
+            private final LinkedHashMap<Object, Event<K, V>> map = new LinkedHashMap<>();
+
+            @Override
+            boolean offer(Event<K, V> event) {
+                final Object key = event instanceof BulkEvent || event instanceof TransactionEvent
+                        ? event : event.getKey();
+                if (map.containsKey(key) || map.size() < maxEvents) {
+                    map.put(key, event);
+                    return true;
+                }
+                return false;
+            }
+
+            @Override
+            Event<K, V> poll() {
+                Iterator<Event<K, V>> iterator = map.values().iterator();
+                if (!iterator.hasNext())
+                    return null;
+                Event<K, V> event = iterator.next();
+                iterator.remove();
+                return event;
+            }
+
+            @Override
+            int size() {
+                return map.size();
+            }
+        }
     }
 }
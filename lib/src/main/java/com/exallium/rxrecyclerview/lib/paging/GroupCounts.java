@@ -0,0 +1,131 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2015 Alex Hart
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.exallium.rxrecyclerview.lib.paging;
+
+import java.util.Arrays;
+
+/**
+ * The number of data rows in each group, which is all a PagedElementList needs to know about the
+ * rows it has not loaded.  Kept as two arrays no matter how many rows there are.
+ *
+ * Group keys must be in ascending order, which is the order ElementGroups sort in.  Groups with
+ * no rows are left out.
+ */
+public final class GroupCounts {
+
+    private static final GroupCounts EMPTY = new GroupCounts(new String[0], new int[0]);
+
+    private final String[] keys;
+    // starts[i] is the position of group i's first row, starts[keys.length] is the total
+    private final int[] starts;
+
+    /**
+     * @param keys   Group keys, in ascending order
+     * @param counts The number of data rows in each group
+     */
+    public GroupCounts(String[] keys, int[] counts) {
+        if (keys.length != counts.length)
+            throw new IllegalArgumentException("keys and counts must be the same length");
+
+        int groups = 0;
+        for (int count : counts) {
+            if (count < 0)
+                throw new IllegalArgumentException("counts can not be negative");
+            if (count > 0)
+                groups++;
+        }
+
+        this.keys = new String[groups];
+        this.starts = new int[groups + 1];
+        int group = 0;
+        for (int i = 0; i < keys.length; i++) {
+            if (counts[i] == 0)
+                continue;
+            if (group > 0 && this.keys[group - 1].compareTo(keys[i]) >= 0)
+                throw new IllegalArgumentException("Group keys must be in ascending order");
+            this.keys[group] = keys[i];
+            this.starts[group + 1] = this.starts[group] + counts[i];
+            group++;
+        }
+    }
+
+    public static GroupCounts empty() {
+        return EMPTY;
+    }
+
+    /**
+     * @return The total number of data rows
+     */
+    public int size() {
+        return starts[keys.length];
+    }
+
+    public int getGroupCount() {
+        return keys.length;
+    }
+
+    public String getGroupKey(int group) {
+        return keys[group];
+    }
+
+    /**
+     * @return The position of the group's first data row
+     */
+    public int getStart(int group) {
+        return starts[group];
+    }
+
+    public int getCount(int group) {
+        return starts[group + 1] - starts[group];
+    }
+
+    /**
+     * @param key A group key
+     * @return The group's index, or -1 if it has no rows
+     */
+    public int indexOf(String key) {
+        int index = Arrays.binarySearch(keys, key);
+        return index < 0 ? -1 : index;
+    }
+
+    /**
+     * @param position The position of a data row, between 0 and size - 1
+     * @return The index of the group the row is in
+     */
+    public int groupAt(int position) {
+        // The last group which starts at or before the position
+        int low = 0;
+        int high = keys.length - 1;
+        while (low < high) {
+            int middle = (low + high + 1) >>> 1;
+            if (starts[middle] <= position) {
+                low = middle;
+            } else {
+                high = middle - 1;
+            }
+        }
+        return low;
+    }
+}
@@ -0,0 +1,54 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2015 Alex Hart
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.exallium.rxrecyclerview.lib.paging;
+
+import com.exallium.rxrecyclerview.lib.event.Event;
+
+import java.util.List;
+
+/**
+ * Where a PagedRxRecyclerViewAdapter loads its data from, such as a database query.
+ *
+ * Positions count data rows only, in the order the adapter's GroupComparator sorts them.  Both
+ * methods are called on the paging Scheduler, so they may block.
+ *
+ * @param <K> The Event Key
+ * @param <V> The Event Value
+ */
+public interface PageSource<K, V> {
+
+    /**
+     * @return The number of data rows in each group, in group order
+     */
+    GroupCounts getGroupCounts();
+
+    /**
+     * @param position The position of the first row to load
+     * @param count    The number of rows to load
+     * @return The ADD Events for the rows, in order.  Fewer than count if the data has shrunk
+     *         since getGroupCounts was called.
+     */
+    List<Event<K, V>> loadPage(int position, int count);
+}
@@ -0,0 +1,263 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2015 Alex Hart
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.exallium.rxrecyclerview.lib.paging;
+
+import com.exallium.rxrecyclerview.lib.GroupComparator;
+import com.exallium.rxrecyclerview.lib.element.ElementGroup;
+import com.exallium.rxrecyclerview.lib.element.EventElement;
+import com.exallium.rxrecyclerview.lib.element.FooterElement;
+import com.exallium.rxrecyclerview.lib.element.GroupRegistry;
+import com.exallium.rxrecyclerview.lib.element.HeaderElement;
+import com.exallium.rxrecyclerview.lib.event.Event;
+import com.exallium.rxrecyclerview.lib.model.ElementList;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * An ElementList which only holds some pages of its data rows.  Where rows and groups are is
+ * worked out from GroupCounts alone, so the size of the list costs nothing but the number of groups.
+ *
+ * Pages are evicted least recently used first once more than maxPages are held.  Rows of pages
+ * which are not held come back as placeholder elements, whose Event has a null Key and Value.
+ * Headers take the Event of the first row of their group and footers the Event of the last, so
+ * that they only need the pages next to them.  Until that row is loaded their Event is a placeholder.
+ *
+ * Not thread safe.  PagedRxRecyclerViewAdapter uses it from the main thread.
+ *
+ * @param <K> The Event Key
+ * @param <V> The Event Value
+ */
+public class PagedElementList<K, V> implements ElementList<K, V> {
+
+    private final GroupComparator<K, V> groupComparator;
+    private final GroupCounts counts;
+    private final ElementGroup[] groups;
+    private final int pageSize;
+    private final boolean hasHeader;
+    private final boolean hasFooter;
+    private final int decorations;
+
+    private final Map<Integer, List<EventElement<K, V>>> pages;
+    private final Event<K, V> placeholderEvent = new Event<>(Event.TYPE.ADD, null, null);
+    // Made the first time each group needs them, and again whenever a header or footer's Event changes
+    private final HeaderElement<K, V>[] headers;
+    private final FooterElement<K, V>[] footers;
+    private final EventElement<K, V>[] placeholders;
+
+    // Generic arrays can't be made directly, and the raw arrays only ever hold elements of K and V
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public PagedElementList(GroupComparator<K, V> groupComparator, GroupCounts counts, int pageSize,
+                            final int maxPages, boolean hasHeader, boolean hasFooter) {
+        this.groupComparator = groupComparator;
+        this.counts = counts;
+        this.pageSize = pageSize;
+        this.hasHeader = hasHeader;
+        this.hasFooter = hasFooter;
+        this.decorations = (hasHeader ? 1 : 0) + (hasFooter ? 1 : 0);
+
+        final GroupRegistry registry = GroupRegistry.of(groupComparator);
+        this.groups = new ElementGroup[counts.getGroupCount()];
+        for (int i = 0; i < groups.length; i++)
+            groups[i] = registry.intern(counts.getGroupKey(i));
+        this.headers = new HeaderElement[hasHeader ? groups.length : 0];
+        this.footers = new FooterElement[hasFooter ? groups.length : 0];
+        this.placeholders = new EventElement[groups.length];
+
+        // Access ordered, so the eldest entry is the least recently used page
+        this.pages = new LinkedHashMap<Integer, List<EventElement<K, V>>>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Integer, List<EventElement<K, V>>> eldest) {
+                return size() > maxPages;
+            }
+        };
+    }
+
+    /**
+     * @return The counts this list was built from
+     */
+    public GroupCounts getGroupCounts() {
+        return counts;
+    }
+
+    @Override
+    public int size() {
+        return counts.size() + groups.length * decorations;
+    }
+
+    @Override
+    public EventElement<K, V> get(int position) {
+        if (position < 0 || position >= size())
+            throw new IndexOutOfBoundsException("Position " + position + ", Size " + size());
+
+        final int group = groupAtRow(position);
+        int offset = position - getRowStart(group);
+        if (hasHeader) {
+            if (offset == 0) {
+                final Event<K, V> event = eventAt(counts.getStart(group));
+                if (headers[group] == null || headers[group].getData() != event)
+                    headers[group] = new HeaderElement<>(event, groupComparator, groups[group]);
+                return headers[group];
+            }
+            offset--;
+        }
+        if (offset == counts.getCount(group)) {
+            final Event<K, V> event = eventAt(counts.getStart(group) + offset - 1);
+            if (footers[group] == null || footers[group].getData() != event)
+                footers[group] = new FooterElement<>(event, groupComparator, groups[group]);
+            return footers[group];
+        }
+
+        final int row = counts.getStart(group) + offset;
+        final List<EventElement<K, V>> page = pages.get(row / pageSize);
+        if (page != null && row % pageSize < page.size())
+            return page.get(row % pageSize);
+        if (placeholders[group] == null)
+            placeholders[group] = new EventElement<>(placeholderEvent, groupComparator, groups[group]);
+        return placeholders[group];
+    }
+
+    /**
+     * Headers and footers are always found.  Data elements are only found if their page is held.
+     */
+    @Override
+    public int indexOf(EventElement<K, V> element) {
+        final int mask = element.getViewType() >> EventElement.MASK_SHIFT;
+        if (mask == EventElement.HEADER_MASK || mask == EventElement.FOOTER_MASK) {
+            final int group = counts.indexOf(element.getGroup());
+            if (group == -1 || (mask == EventElement.HEADER_MASK ? !hasHeader : !hasFooter))
+                return -1;
+            return mask == EventElement.HEADER_MASK ? getRowStart(group)
+                    : getRowStart(group) + (hasHeader ? 1 : 0) + counts.getCount(group);
+        }
+
+        for (Map.Entry<Integer, List<EventElement<K, V>>> entry : pages.entrySet()) {
+            final List<EventElement<K, V>> page = entry.getValue();
+            if (page.isEmpty() || element.compareTo(page.get(0)) < 0
+                    || element.compareTo(page.get(page.size() - 1)) > 0)
+                continue;
+            int low = 0;
+            int high = page.size() - 1;
+            while (low <= high) {
+                int middle = (low + high) >>> 1;
+                int comparison = page.get(middle).compareTo(element);
+                if (comparison < 0) {
+                    low = middle + 1;
+                } else if (comparison > 0) {
+                    high = middle - 1;
+                } else {
+                    return getRowOfData(entry.getKey() * pageSize + middle);
+                }
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * @return The number of pages the data rows are split into
+     */
+    public int getPageCount() {
+        return (counts.size() + pageSize - 1) / pageSize;
+    }
+
+    /**
+     * @param position A position in the list
+     * @return The page holding the row at that position, or the row a header or footer takes its
+     *         Event from
+     */
+    public int getPageAt(int position) {
+        final int group = groupAtRow(position);
+        final int offset = position - getRowStart(group) - (hasHeader ? 1 : 0);
+        final int row = counts.getStart(group) + Math.max(0, Math.min(offset, counts.getCount(group) - 1));
+        return row / pageSize;
+    }
+
+    /**
+     * @return true if the page is held.  Does not count as using it.
+     */
+    public boolean isLoaded(int page) {
+        return pages.containsKey(page);
+    }
+
+    /**
+     * Holds the given page, which may evict the least recently used one.
+     * @param page     The page number
+     * @param elements The page's data elements, in order
+     */
+    public void putPage(int page, List<EventElement<K, V>> elements) {
+        pages.put(page, elements);
+    }
+
+    /**
+     * @return The position of the first element which shows something from the page, including
+     *         a header which takes its Event from it
+     */
+    public int getFirstPosition(int page) {
+        final int row = page * pageSize;
+        final int position = getRowOfData(row);
+        return hasHeader && counts.getStart(counts.groupAt(row)) == row ? position - 1 : position;
+    }
+
+    /**
+     * @return The position of the last element which shows something from the page, including
+     *         a footer which takes its Event from it
+     */
+    public int getLastPosition(int page) {
+        final int row = Math.min(counts.size(), (page + 1) * pageSize) - 1;
+        final int group = counts.groupAt(row);
+        final int position = getRowOfData(row);
+        return hasFooter && counts.getStart(group) + counts.getCount(group) - 1 == row ? position + 1 : position;
+    }
+
+    private Event<K, V> eventAt(int row) {
+        final List<EventElement<K, V>> page = pages.get(row / pageSize);
+        if (page != null && row % pageSize < page.size())
+            return page.get(row % pageSize).getData();
+        return placeholderEvent;
+    }
+
+    private int getRowStart(int group) {
+        return counts.getStart(group) + group * decorations;
+    }
+
+    private int getRowOfData(int row) {
+        return row + counts.groupAt(row) * decorations + (hasHeader ? 1 : 0);
+    }
+
+    private int groupAtRow(int position) {
+        int low = 0;
+        int high = groups.length - 1;
+        while (low < high) {
+            int middle = (low + high + 1) >>> 1;
+            if (getRowStart(middle) <= position) {
+                low = middle;
+            } else {
+                high = middle - 1;
+            }
+        }
+        return low;
+    }
+}
@@ -0,0 +1,80 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2015 Alex Hart
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.exallium.rxrecyclerview.lib.store;
+
+import java.nio.charset.Charset;
+
+/**
+ * Turns Event Keys or Values into bytes and back, for EventLog.
+ *
+ * @param <T> The type being stored
+ */
+public interface Codec<T> {
+
+    Codec<Long> LONG = new Codec<Long>() {
+        @Override
+        public byte[] encode(Long value) {
+            final long v = value;
+            final byte[] bytes = new byte[8];
+            for (int i = 7; i >= 0; i--)
+                bytes[7 - i] = (byte) (v >>> (i * 8));
+            return bytes;
+        }
+
+        @Override
+        public Long decode(byte[] bytes) {
+            long v = 0;
+            for (byte b : bytes)
+                v = (v << 8) | (b & 0xFF);
+            return v;
+        }
+    };
+
+    Codec<String> STRING = new Codec<String>() {
+        private final Charset utf8 = Charset.forName("UTF-8");
+
+        @Override
+        public byte[] encode(String value) {
+            return value.getBytes(utf8);
+        }
+
+        @Override
+        public String decode(byte[] bytes) {
+            return new String(bytes, utf8);
+        }
+    };
+
+    /**
+     * @param value A non null value
+     * @return The value's bytes
+     */
+    byte[] encode(T value);
+
+    /**
+     * @param bytes Bytes made by encode
+     * @return The value they were made from
+     */
+    T decode(byte[] bytes);
+}
@@ -0,0 +1,364 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2015 Alex Hart
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.exallium.rxrecyclerview.lib.store;
+
+import com.exallium.rxrecyclerview.lib.event.BulkEvent;
+import com.exallium.rxrecyclerview.lib.event.Event;
+import com.exallium.rxrecyclerview.lib.event.TransactionEvent;
+import rx.Observable;
+import rx.Subscriber;
+import rx.exceptions.Exceptions;
+import rx.functions.Action1;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Persists Events, so that a model can be rebuilt from disk after the process restarts instead of
+ * from the network.
+ *
+ * Events are appended to a memory mapped log.  Once the log grows past the compaction threshold, the
+ * latest Event for every key which was not removed is written to a snapshot, sorted by key, and the
+ * log starts over.  replay emits everything as a single BulkEvent, for the bulk load path.
+ *
+ * Each record is written before its length, so a record torn by a crash is never read back.  When
+ * the log is opened everything after the last complete record is zeroed, so that what is left of
+ * a torn record can't be read back as part of a later, shorter one.
+ *
+ * Thread safe.
+ *
+ * @param <K> The Event Key
+ * @param <V> The Event Value
+ */
+public class EventLog<K, V> implements Closeable {
+
+    public static final long DEFAULT_COMPACTION_THRESHOLD = 16 << 20;
+
+    private static final int INITIAL_CAPACITY = 1 << 20;
+    // length, type, key length, value length
+    private static final int RECORD_HEADER = 4 + 1 + 4 + 4;
+    private static final byte ADD = 0;
+    private static final byte REMOVE = 1;
+
+    private final File logFile;
+    private final File snapshotFile;
+    private final Codec<K> keyCodec;
+    private final Codec<V> valueCodec;
+    private final Comparator<? super K> keyOrder;
+    private final long compactionThreshold;
+
+    private RandomAccessFile file;
+    private MappedByteBuffer buffer;
+    private int position;
+
+    private EventLog(Builder<K, V> builder) throws IOException {
+        this.logFile = builder.file;
+        this.snapshotFile = new File(builder.file.getPath() + ".snapshot");
+        this.keyCodec = builder.keyCodec;
+        this.valueCodec = builder.valueCodec;
+        this.keyOrder = builder.keyOrder;
+        this.compactionThreshold = builder.compactionThreshold;
+        openLog();
+    }
+
+    public static class Builder<K, V> {
+        private final File file;
+        private final Codec<K> keyCodec;
+        private final Codec<V> valueCodec;
+        private final Comparator<? super K> keyOrder;
+        private long compactionThreshold = DEFAULT_COMPACTION_THRESHOLD;
+
+        /**
+         * @param file       The log file.  The snapshot is kept next to it.
+         * @param keyCodec   Encodes keys
+         * @param valueCodec Encodes values
+         * @param keyOrder   The order keys are written to the snapshot in
+         */
+        public Builder(File file, Codec<K> keyCodec, Codec<V> valueCodec, Comparator<? super K> keyOrder) {
+            this.file = file;
+            this.keyCodec = keyCodec;
+            this.valueCodec = valueCodec;
+            this.keyOrder = keyOrder;
+        }
+
+        /**
+         * @param bytes The log is compacted into the snapshot once it holds this many bytes
+         */
+        public Builder<K, V> compactionThreshold(long bytes) {
+            if (bytes <= 0 || bytes > Integer.MAX_VALUE)
+                throw new IllegalArgumentException("compactionThreshold must be positive and fit in an int");
+            this.compactionThreshold = bytes;
+            return this;
+        }
+
+        /**
+         * Opens the log, creating it if it does not exist yet.
+         */
+        public EventLog<K, V> build() throws IOException {
+            return new EventLog<>(this);
+        }
+    }
+
+    /**
+     * Appends an Event, or every Event in a BulkEvent or TransactionEvent.  May compact the log.
+     * @param event The Event to append
+     */
+    public synchronized void append(Event<K, V> event) throws IOException {
+        if (event instanceof BulkEvent) {
+            for (Event<K, V> bulked : ((BulkEvent<K, V>) event).getEvents())
+                append(bulked);
+            return;
+        }
+        if (event instanceof TransactionEvent) {
+            for (Event<K, V> transacted : ((TransactionEvent<K, V>) event).getEvents())
+                append(transacted);
+            return;
+        }
+
+        final byte[] key = keyCodec.encode(event.getKey());
+        final byte[] value = event.getType() == Event.TYPE.ADD && event.getValue() != null
+                ? valueCodec.encode(event.getValue()) : null;
+        final int length = RECORD_HEADER - 4 + key.length + (value == null ? 0 : value.length);
+        ensureCapacity(position + 4 + length);
+
+        final ByteBuffer record = buffer.duplicate();
+        record.position(position + 4);
+        record.put(event.getType() == Event.TYPE.ADD ? ADD : REMOVE);
+        record.putInt(key.length);
+        record.putInt(value == null ? -1 : value.length);
+        record.put(key);
+        if (value != null)
+            record.put(value);
+        // Written last, so that a torn record reads as the end of the log
+        buffer.putInt(position, length);
+        position += 4 + length;
+
+        if (position >= compactionThreshold)
+            compact();
+    }
+
+    /**
+     * @return An action which appends each Event it is given, such as for doOnNext.  IOExceptions
+     *         are rethrown unchecked.
+     */
+    public Action1<Event<K, V>> appender() {
+        return new Action1<Event<K, V>>() {
+            @Override
+            public void call(Event<K, V> event) {
+                try {
+                    append(event);
+                } catch (IOException e) {
+                    throw Exceptions.propagate(e);
+                }
+            }
+        };
+    }
+
+    /**
+     * Forces appended Events out to disk.  Without this they are written whenever the OS chooses,
+     * which still survives the process dying but not the device losing power.
+     */
+    public synchronized void flush() {
+        buffer.force();
+    }
+
+    /**
+     * @return Emits one BulkEvent holding the latest ADD Event for every key which is not removed,
+     *         on whichever thread subscribes, then completes
+     */
+    public Observable<Event<K, V>> replay() {
+        return Observable.create(new Observable.OnSubscribe<Event<K, V>>() {
+            @Override
+            public void call(Subscriber<? super Event<K, V>> subscriber) {
+                final BulkEvent<K, V> events;
+                try {
+                    events = new BulkEvent<>(readState().values());
+                } catch (IOException e) {
+                    subscriber.onError(e);
+                    return;
+                }
+                if (!subscriber.isUnsubscribed()) {
+                    subscriber.onNext(events);
+                    subscriber.onCompleted();
+                }
+            }
+        });
+    }
+
+    /**
+     * Writes the latest state to the snapshot and empties the log.
+     */
+    public synchronized void compact() throws IOException {
+        final List<Event<K, V>> events = new ArrayList<>(readState().values());
+        Collections.sort(events, new Comparator<Event<K, V>>() {
+            @Override
+            public int compare(Event<K, V> lhs, Event<K, V> rhs) {
+                return keyOrder.compare(lhs.getKey(), rhs.getKey());
+            }
+        });
+
+        final File temp = new File(snapshotFile.getPath() + ".tmp");
+        final FileOutputStream fileOut = new FileOutputStream(temp);
+        try {
+            final DataOutputStream out = new DataOutputStream(new BufferedOutputStream(fileOut));
+            for (Event<K, V> event : events) {
+                final byte[] key = keyCodec.encode(event.getKey());
+                final byte[] value = event.getValue() == null ? null : valueCodec.encode(event.getValue());
+                out.writeInt(RECORD_HEADER - 4 + key.length + (value == null ? 0 : value.length));
+                out.writeByte(ADD);
+                out.writeInt(key.length);
+                out.writeInt(value == null ? -1 : value.length);
+                out.write(key);
+                if (value != null)
+                    out.write(value);
+            }
+            out.flush();
+            fileOut.getFD().sync();
+        } finally {
+            fileOut.close();
+        }
+        if (!temp.renameTo(snapshotFile))
+            throw new IOException("Could not replace " + snapshotFile);
+
+        // A crash before the log is emptied just replays it over a snapshot which already has it
+        file.close();
+        if (!logFile.delete())
+            throw new IOException("Could not empty " + logFile);
+        openLog();
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        buffer.force();
+        file.close();
+    }
+
+    private synchronized Map<K, Event<K, V>> readState() throws IOException {
+        final Map<K, Event<K, V>> state = new LinkedHashMap<>();
+        if (snapshotFile.exists()) {
+            final RandomAccessFile snapshot = new RandomAccessFile(snapshotFile, "r");
+            try {
+                final FileChannel channel = snapshot.getChannel();
+                readRecords(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()), (int) channel.size(), state);
+            } finally {
+                snapshot.close();
+            }
+        }
+        readRecords(buffer, position, state);
+        return state;
+    }
+
+    // The mapping a previous log or a smaller buffer used is never unmapped, as neither Java nor
+    // Android has a public way to.  It is let go of once the buffer is garbage collected.
+    private void openLog() throws IOException {
+        file = new RandomAccessFile(logFile, "rw");
+        buffer = file.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, Math.max(file.length(), INITIAL_CAPACITY));
+        position = readRecords(buffer, buffer.capacity(), null);
+        clearFrom(position);
+    }
+
+    /**
+     * Zeroes the buffer from the given position to its end, if anything is left there.
+     */
+    private void clearFrom(int start) {
+        int dirty = buffer.capacity();
+        while (dirty > start && buffer.get(dirty - 1) == 0)
+            dirty--;
+        if (dirty == start)
+            return;
+        final ByteBuffer tail = buffer.duplicate();
+        tail.position(start);
+        final byte[] zeroes = new byte[Math.min(8192, dirty - start)];
+        while (tail.position() < dirty)
+            tail.put(zeroes, 0, Math.min(zeroes.length, dirty - tail.position()));
+        // Before anything is appended over it
+        buffer.force();
+    }
+
+    private void ensureCapacity(int capacity) throws IOException {
+        if (capacity <= buffer.capacity())
+            return;
+        buffer.force();
+        buffer = file.getChannel().map(FileChannel.MapMode.READ_WRITE, 0,
+                Math.max(capacity, (long) buffer.capacity() * 2));
+    }
+
+    /**
+     * Reads records up to the first empty, incomplete or malformed one.
+     * @param state Receives the records, or null to only find where they end
+     * @return The position after the last complete record
+     */
+    private int readRecords(ByteBuffer source, int limit, Map<K, Event<K, V>> state) {
+        final ByteBuffer records = source.duplicate();
+        int position = 0;
+        while (position + RECORD_HEADER <= limit) {
+            final int length = records.getInt(position);
+            if (length < RECORD_HEADER - 4 || length > limit - position - 4)
+                break;
+            final byte type = records.get(position + 4);
+            final int keyLength = records.getInt(position + 5);
+            final int valueLength = records.getInt(position + 9);
+            // A record's lengths must add up to exactly what it says it holds
+            if ((type != ADD && type != REMOVE) || keyLength < 0 || valueLength < -1
+                    || (type == REMOVE && valueLength != -1)
+                    || keyLength > length - (RECORD_HEADER - 4)
+                    || Math.max(valueLength, 0) != length - (RECORD_HEADER - 4) - keyLength)
+                break;
+            if (state != null) {
+                records.position(position + RECORD_HEADER);
+                final byte[] key = new byte[keyLength];
+                records.get(key);
+                final K k = keyCodec.decode(key);
+                if (type == ADD) {
+                    V value = null;
+                    if (valueLength >= 0) {
+                        final byte[] bytes = new byte[valueLength];
+                        records.get(bytes);
+                        value = valueCodec.decode(bytes);
+                    }
+                    state.put(k, new Event<>(Event.TYPE.ADD, k, value));
+                } else {
+                    state.remove(k);
+                }
+            }
+            position += 4 + length;
+        }
+        return position;
+    }
+}
@@ -0,0 +1,159 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2015 Alex Hart
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.exallium.rxrecyclerview.lib;
+
+import com.exallium.rxrecyclerview.lib.element.EventElement;
+import com.exallium.rxrecyclerview.lib.element.HeaderElement;
+import com.exallium.rxrecyclerview.lib.event.Event;
+import org.junit.Test;
+import rx.functions.Func1;
+import rx.schedulers.TestScheduler;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class BindCacheTest {
+
+    private static final GroupComparator<Integer, String> BY_KEY = new GroupComparator<Integer, String>() {
+        @Override
+        public String getGroupKey(Event<Integer, String> event) {
+            return "all";
+        }
+
+        @Override
+        public Event<Integer, String> getEmptyEvent(Event.TYPE eventType) {
+            return null;
+        }
+
+        @Override
+        public int compare(Event<Integer, String> lhs, Event<Integer, String> rhs) {
+            return lhs.getKey().compareTo(rhs.getKey());
+        }
+    };
+
+    private final TestScheduler scheduler = new TestScheduler();
+    // Every Value precompute was called with, in order
+    private final List<String> computed = new ArrayList<>();
+
+    private BindCache.Builder<Integer, String, String> builder() {
+        return new BindCache.Builder<Integer, String, String>(new Func1<Event<Integer, String>, String>() {
+            @Override
+            public String call(Event<Integer, String> event) {
+                computed.add(event.getValue());
+                return event.getValue().toUpperCase();
+            }
+        }).scheduler(scheduler);
+    }
+
+    @Test
+    public void addsArePrecomputedOnTheScheduler() {
+        final BindCache<Integer, String, String> cache = builder().build();
+        final EventElement<Integer, String> element = element(1, "a");
+        cache.onApplied(element);
+        assertEquals(0, computed.size());
+
+        scheduler.triggerActions();
+        assertEquals(Collections.singletonList("a"), computed);
+        assertEquals("A", cache.get(element));
+        assertEquals(1, computed.size());
+    }
+
+    @Test
+    public void replacedEventsAreNeitherComputedNorHandedOut() {
+        final BindCache<Integer, String, String> cache = builder().build();
+        final EventElement<Integer, String> first = element(1, "a");
+        cache.onApplied(first);
+        scheduler.triggerActions();
+
+        final EventElement<Integer, String> second = element(1, "b");
+        final EventElement<Integer, String> third = element(1, "c");
+        cache.onApplied(second);
+        cache.onApplied(third);
+        scheduler.triggerActions();
+
+        assertEquals(Arrays.asList("a", "c"), computed);
+        assertEquals("C", cache.get(third));
+        // A row still showing an older Event gets a value for that Event
+        assertEquals("B", cache.get(second));
+        assertEquals("C", cache.get(third));
+    }
+
+    @Test
+    public void getComputesOnTheCallingThreadWhenNotReady() {
+        final BindCache<Integer, String, String> cache = builder().precomputeOnAdd(false).build();
+        final EventElement<Integer, String> element = element(1, "a");
+        cache.onApplied(element);
+        assertEquals("A", cache.get(element));
+        assertEquals("A", cache.get(element));
+        assertEquals(1, computed.size());
+        assertNull(cache.get(new HeaderElement<>(element.getData(), BY_KEY)));
+    }
+
+    @Test
+    public void leastRecentlyUsedValuesAreDropped() {
+        final BindCache<Integer, String, String> cache = builder().maxSize(2).build();
+        final EventElement<Integer, String> a = element(1, "a");
+        final EventElement<Integer, String> b = element(2, "b");
+        final EventElement<Integer, String> c = element(3, "c");
+        cache.request(a);
+        cache.request(b);
+        scheduler.triggerActions();
+        cache.get(a);
+        cache.request(c);
+        scheduler.triggerActions();
+
+        assertEquals(2, cache.size());
+        computed.clear();
+        cache.get(a);
+        cache.get(c);
+        assertEquals(0, computed.size());
+        cache.get(b);
+        assertEquals(Collections.singletonList("b"), computed);
+    }
+
+    @Test
+    public void unsubscribingDropsEverything() {
+        final BindCache<Integer, String, String> cache = builder().build();
+        cache.onApplied(element(1, "a"));
+        scheduler.triggerActions();
+        cache.unsubscribe();
+
+        assertTrue(cache.isUnsubscribed());
+        assertEquals(0, cache.size());
+        cache.request(element(2, "b"));
+        scheduler.triggerActions();
+        assertEquals(Collections.singletonList("a"), computed);
+    }
+
+    private static EventElement<Integer, String> element(int key, String value) {
+        return new EventElement<>(new Event<>(Event.TYPE.ADD, key, value), BY_KEY);
+    }
+}
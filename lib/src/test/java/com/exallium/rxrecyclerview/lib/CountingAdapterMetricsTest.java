@@ -0,0 +1,75 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2015 Alex Hart
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.exallium.rxrecyclerview.lib;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+public class CountingAdapterMetricsTest {
+
+    @Test
+    public void keepsTotalsMeansAndMaxima() {
+        final CountingAdapterMetrics metrics = new CountingAdapterMetrics();
+        metrics.onEventsReceived(10);
+        metrics.onEventsReceived(5);
+        metrics.onEventsApplied(12, 100);
+        metrics.onEventsApplied(3, 300);
+        metrics.onQueueDepth(7);
+        metrics.onQueueDepth(2);
+        metrics.onNotification(AdapterMetrics.NOTIFICATION.INSERTED, 4);
+        metrics.onNotification(AdapterMetrics.NOTIFICATION.INSERTED, 1);
+        metrics.onMainThreadTime(50);
+        metrics.onMainThreadTime(150);
+
+        assertEquals(15, metrics.getReceivedCount());
+        assertEquals(15, metrics.getAppliedCount());
+        assertEquals(200, metrics.getMeanLatencyNanos());
+        assertEquals(300, metrics.getMaxLatencyNanos());
+        assertEquals(2, metrics.getQueueDepth());
+        assertEquals(7, metrics.getMaxQueueDepth());
+        assertEquals(5, metrics.getNotificationCount(AdapterMetrics.NOTIFICATION.INSERTED));
+        assertEquals(0, metrics.getNotificationCount(AdapterMetrics.NOTIFICATION.REMOVED));
+        assertEquals(100, metrics.getMeanMainThreadNanos());
+        assertEquals(150, metrics.getMaxMainThreadNanos());
+    }
+
+    @Test
+    public void resetKeepsTheCurrentGauges() {
+        final CountingAdapterMetrics metrics = new CountingAdapterMetrics();
+        metrics.onEventsReceived(10);
+        metrics.onQueueDepth(3);
+        metrics.onModelSize(42);
+        metrics.onNotification(AdapterMetrics.NOTIFICATION.CHANGED, 2);
+        metrics.reset();
+
+        assertEquals(0, metrics.getReceivedCount());
+        assertEquals(0, metrics.getMaxQueueDepth());
+        assertEquals(0, metrics.getMeanLatencyNanos());
+        assertEquals(0, metrics.getNotificationCount(AdapterMetrics.NOTIFICATION.CHANGED));
+        assertEquals(3, metrics.getQueueDepth());
+        assertEquals(42, metrics.getModelSize());
+    }
+}
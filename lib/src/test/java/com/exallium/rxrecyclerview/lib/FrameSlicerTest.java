@@ -0,0 +1,91 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2015 Alex Hart
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.exallium.rxrecyclerview.lib;
+
+import org.junit.Test;
+import rx.schedulers.TestScheduler;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+
+public class FrameSlicerTest {
+
+    private final TestScheduler mainThread = new TestScheduler();
+    private final VirtualFrameClock clock = new VirtualFrameClock();
+    private final List<Integer> applied = new ArrayList<>();
+    private final List<Integer> slices = new ArrayList<>();
+
+    // Each item costs as many milliseconds as its value
+    private final FrameSlicer<Integer> slicer = new FrameSlicer<>(mainThread.createWorker(),
+            TimeUnit.MILLISECONDS.toNanos(8), clock, new FrameSlicer.Target<Integer>() {
+        @Override
+        public void apply(Integer item) {
+            clock.advance(item, TimeUnit.MILLISECONDS);
+            applied.add(item);
+        }
+
+        @Override
+        public void onSliceEnd(int count, long elapsedNanos) {
+            slices.add(count);
+        }
+    });
+
+    @Test
+    public void itemsWhichFitTheBudgetApplyInOneSlice() {
+        slicer.offer(Arrays.asList(1, 2, 3));
+        assertEquals(Arrays.asList(1, 2, 3), applied);
+        assertEquals(Collections.singletonList(3), slices);
+        assertEquals(0, slicer.pending());
+    }
+
+    @Test
+    public void theRestWaitsForTheNextTurn() {
+        slicer.offer(Arrays.asList(3, 3, 3, 3, 3, 3));
+        assertEquals(3, applied.size());
+        assertEquals(3, slicer.pending());
+
+        // Offering more while a slice is scheduled only queues it
+        slicer.offer(Collections.singletonList(1));
+        assertEquals(3, applied.size());
+
+        mainThread.triggerActions();
+        assertEquals(Arrays.asList(3, 3, 3, 3, 3, 3, 1), applied);
+        assertEquals(Arrays.asList(3, 3, 1), slices);
+    }
+
+    @Test
+    public void slowItemsStillApplyOnePerSlice() {
+        slicer.offer(Arrays.asList(20, 20, 20));
+        assertEquals(Collections.singletonList(1), slices);
+        mainThread.triggerActions();
+        assertEquals(Arrays.asList(1, 1, 1), slices);
+        assertEquals(0, slicer.pending());
+    }
+}
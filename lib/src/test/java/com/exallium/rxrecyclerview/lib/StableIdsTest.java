@@ -0,0 +1,104 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2015 Alex Hart
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.exallium.rxrecyclerview.lib;
+
+import com.exallium.rxrecyclerview.lib.element.EmptyElement;
+import com.exallium.rxrecyclerview.lib.element.FooterElement;
+import com.exallium.rxrecyclerview.lib.element.GroupRegistry;
+import com.exallium.rxrecyclerview.lib.element.HeaderElement;
+import com.exallium.rxrecyclerview.lib.event.Event;
+import org.junit.Test;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class StableIdsTest {
+
+    private static final GroupComparator<Long, String> BY_KEY = new GroupComparator<Long, String>() {
+        @Override
+        public String getGroupKey(Event<Long, String> event) {
+            return "group " + event.getKey();
+        }
+
+        @Override
+        public Event<Long, String> getEmptyEvent(Event.TYPE eventType) {
+            return new Event<>(eventType, 0L, null);
+        }
+
+        @Override
+        public int compare(Event<Long, String> lhs, Event<Long, String> rhs) {
+            return lhs.getKey().compareTo(rhs.getKey());
+        }
+    };
+
+    private static Event<Long, String> add(long key) {
+        return new Event<>(Event.TYPE.ADD, key, "value " + key);
+    }
+
+    @Test
+    public void dataIdsKeepEveryBitOfTheKey() {
+        final long[] keys = {0, 1, 1 | 1L << 62, 1 | 3L << 62, -1, Long.MAX_VALUE, StableIds.MIN_DATA_ID};
+        final Set<Long> ids = new HashSet<>();
+        for (long key : keys) {
+            final long id = StableIds.ofData(KeyHasher.LONG.hash(key));
+            assertEquals(key, id);
+            assertTrue(ids.add(id));
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void reservedKeyIdsAreRejected() {
+        StableIds.ofData(KeyHasher.LONG.hash(StableIds.MIN_DATA_ID - 1));
+    }
+
+    @Test
+    public void decorationIdsSurviveTheirGroupStartingAgain() {
+        assertEquals(StableIds.ofDecoration(new HeaderElement<>(add(1), BY_KEY)),
+                StableIds.ofDecoration(new HeaderElement<>(add(1), BY_KEY)));
+        assertEquals(StableIds.ofDecoration(new FooterElement<>(add(1), BY_KEY)),
+                StableIds.ofDecoration(new FooterElement<>(add(1), BY_KEY)));
+    }
+
+    @Test
+    public void decorationIdsAreDistinctAndBelowEveryDataId() {
+        final Set<Long> ids = new HashSet<>();
+        // Past the groups the registry interns too
+        for (long key = 0; key < GroupRegistry.MAX_GROUPS + 100; key++) {
+            final long header = StableIds.ofDecoration(new HeaderElement<>(add(key), BY_KEY));
+            final long footer = StableIds.ofDecoration(new FooterElement<>(add(key), BY_KEY));
+            assertTrue(ids.add(header));
+            assertTrue(ids.add(footer));
+            assertEquals(header, StableIds.ofDecoration(new HeaderElement<>(add(key), BY_KEY)));
+            assertTrue(header < StableIds.MIN_DATA_ID);
+            assertTrue(footer < StableIds.MIN_DATA_ID);
+        }
+        final long empty = StableIds.ofDecoration(new EmptyElement<>(BY_KEY.getEmptyEvent(Event.TYPE.ADD), BY_KEY));
+        assertTrue(ids.add(empty));
+        assertTrue(empty < StableIds.MIN_DATA_ID);
+    }
+}
@@ -0,0 +1,109 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2015 Alex Hart
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.exallium.rxrecyclerview.lib.collection;
+
+import org.junit.Test;
+import rx.functions.Func1;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.TreeSet;
+
+import static org.junit.Assert.assertEquals;
+
+public class GroupedTreeSetTest {
+
+    // Elements are grouped by their hundreds
+    private static final Func1<Integer, Integer> HUNDREDS = new Func1<Integer, Integer>() {
+        @Override
+        public Integer call(Integer element) {
+            return element / 100;
+        }
+    };
+
+    @Test
+    public void matchesTreeSetUnderRandomEdits() {
+        final Random random = new Random(11);
+        final GroupedTreeSet<Integer, Integer> set = new GroupedTreeSet<>(HUNDREDS);
+        final TreeSet<Integer> reference = new TreeSet<>();
+
+        for (int step = 0; step < 20000; step++) {
+            final Integer value = random.nextInt(3000);
+            if (random.nextInt(3) == 0)
+                assertEquals(reference.remove(value), set.remove(value));
+            else
+                assertEquals(reference.add(value), set.add(value));
+            if (step % 500 == 0)
+                assertMatches(reference, set);
+        }
+        assertMatches(reference, set);
+    }
+
+    @Test
+    public void buildFromSortedKeepsGroupsApart() {
+        final List<Integer> sorted = new ArrayList<>();
+        for (int i = 0; i < 1000; i += 3)
+            sorted.add(i);
+
+        final GroupedTreeSet<Integer, Integer> set = new GroupedTreeSet<>(HUNDREDS);
+        set.add(5000);
+        set.buildFromSorted(sorted);
+        assertMatches(new TreeSet<>(sorted), set);
+
+        set.add(1);
+        set.remove(999);
+        final TreeSet<Integer> reference = new TreeSet<>(sorted);
+        reference.add(1);
+        reference.remove(999);
+        assertMatches(reference, set);
+    }
+
+    private static void assertMatches(TreeSet<Integer> reference, GroupedTreeSet<Integer, Integer> set) {
+        assertEquals(reference.size(), set.size());
+        assertEquals(new ArrayList<>(reference), new ArrayList<>(set));
+
+        int position = 0;
+        for (Integer element : reference) {
+            assertEquals(element, set.get(position));
+            assertEquals(position, set.indexOf(element));
+            assertEquals(position, set.rank(element));
+            assertEquals(element / 100, (int) set.getGroupAt(position));
+            position++;
+        }
+
+        int groups = 0;
+        for (int group = 0; group <= 50; group++) {
+            final int start = reference.headSet(group * 100).size();
+            final int size = reference.subSet(group * 100, (group + 1) * 100).size();
+            assertEquals(size, set.getGroupSize(group));
+            assertEquals(size == 0 ? -1 : start, set.getGroupStart(group));
+            assertEquals(start, set.rank(group * 100));
+            if (size != 0)
+                groups++;
+        }
+        assertEquals(groups, set.getGroupCount());
+    }
+}
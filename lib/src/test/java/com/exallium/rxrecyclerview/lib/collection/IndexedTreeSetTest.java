@@ -0,0 +1,147 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2015 Alex Hart
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.exallium.rxrecyclerview.lib.collection;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Random;
+import java.util.TreeSet;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class IndexedTreeSetTest {
+
+    @Test
+    public void matchesTreeSetUnderRandomEdits() {
+        final Random random = new Random(1);
+        final IndexedTreeSet<Integer> set = new IndexedTreeSet<>();
+        final TreeSet<Integer> reference = new TreeSet<>();
+
+        for (int step = 0; step < 5000; step++) {
+            final Integer value = random.nextInt(500);
+            if (random.nextInt(3) == 0)
+                assertEquals(reference.remove(value), set.remove(value));
+            else
+                assertEquals(reference.add(value), set.add(value));
+        }
+
+        assertEquals(reference.size(), set.size());
+        final List<Integer> expected = new ArrayList<>(reference);
+        for (int i = 0; i < expected.size(); i++) {
+            assertEquals(expected.get(i), set.get(i));
+            assertEquals(i, set.indexOf(expected.get(i)));
+        }
+        assertEquals(expected, new ArrayList<>(set));
+    }
+
+    @Test
+    public void rankIsTheInsertionPointOfMissingElements() {
+        final IndexedTreeSet<Integer> set = new IndexedTreeSet<>();
+        for (int i = 0; i < 10; i++)
+            set.add(i * 10);
+
+        assertEquals(0, set.rank(-5));
+        assertEquals(3, set.rank(30));
+        assertEquals(4, set.rank(35));
+        assertEquals(10, set.rank(1000));
+        assertEquals(-1, set.indexOf(35));
+    }
+
+    @Test
+    public void findReturnsTheStoredElement() {
+        final IndexedTreeSet<Entry> set = new IndexedTreeSet<>();
+        final Entry stored = new Entry(1);
+        set.add(stored);
+
+        assertFalse(set.add(new Entry(1)));
+        assertSame(stored, set.find(new Entry(1)));
+        assertNull(set.find(new Entry(2)));
+    }
+
+    @Test
+    public void buildFromSortedIsBalancedAndIndexed() {
+        final List<Integer> sorted = new ArrayList<>();
+        for (int i = 0; i < 1000; i++)
+            sorted.add(i * 2);
+
+        final IndexedTreeSet<Integer> set = new IndexedTreeSet<>();
+        set.add(-1);
+        set.buildFromSorted(sorted);
+
+        assertEquals(1000, set.size());
+        assertFalse(set.contains(-1));
+        assertEquals(Integer.valueOf(500), set.get(250));
+        assertEquals(250, set.indexOf(500));
+        assertTrue(set.add(501));
+        assertEquals(251, set.indexOf(501));
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void getPastTheEndThrows() {
+        final IndexedTreeSet<Integer> set = new IndexedTreeSet<>();
+        set.add(1);
+        set.get(1);
+    }
+
+    @Test
+    public void iteratorFailsFast() {
+        final IndexedTreeSet<Integer> set = new IndexedTreeSet<>();
+        for (int i = 0; i < 5; i++)
+            set.add(i);
+
+        final Iterator<Integer> iterator = set.iterator();
+        assertEquals(Integer.valueOf(0), iterator.next());
+
+        set.add(10);
+        try {
+            iterator.next();
+            fail();
+        } catch (ConcurrentModificationException expected) {
+            // The set changed underneath the iterator
+        }
+    }
+
+    private static final class Entry implements Comparable<Entry> {
+        final int key;
+
+        Entry(int key) {
+            this.key = key;
+        }
+
+        @Override
+        public int compareTo(Entry another) {
+            return key < another.key ? -1 : (key == another.key ? 0 : 1);
+        }
+    }
+}
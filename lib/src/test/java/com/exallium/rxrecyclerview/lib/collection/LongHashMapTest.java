@@ -0,0 +1,107 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2015 Alex Hart
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.exallium.rxrecyclerview.lib.collection;
+
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class LongHashMapTest {
+
+    @Test
+    public void matchesHashMapUnderChurn() {
+        final Random random = new Random(9);
+        final LongHashMap<String> map = new LongHashMap<>();
+        final Map<Long, String> reference = new HashMap<>();
+
+        for (int step = 0; step < 100000; step++) {
+            // Sequential, negative and widely spread keys
+            final long key = random.nextBoolean() ? random.nextInt(2000) - 1000 : random.nextInt(50) * 1000000007L;
+            if (random.nextInt(3) == 0) {
+                assertEquals(reference.remove(key), map.remove(key));
+            } else {
+                final String value = Integer.toString(step);
+                assertEquals(reference.put(key, value), map.put(key, value));
+            }
+            if (step % 1000 == 0)
+                assertMatches(reference, map);
+        }
+        assertMatches(reference, map);
+    }
+
+    @Test
+    public void removalKeepsCollidingKeysReachable() {
+        // Every one of these keys hashes to the same slot
+        final LongHashMap<Long> map = new LongHashMap<>();
+        for (long i = 0; i < 100; i++)
+            map.put(collidingKey(i), i);
+        for (long i = 0; i < 100; i += 2)
+            assertEquals(Long.valueOf(i), map.remove(collidingKey(i)));
+
+        assertEquals(50, map.size());
+        for (long i = 0; i < 100; i++) {
+            if (i % 2 == 0)
+                assertFalse(map.containsKey(collidingKey(i)));
+            else
+                assertEquals(Long.valueOf(i), map.get(collidingKey(i)));
+        }
+    }
+
+    @Test
+    public void clearEmptiesTheMap() {
+        final LongHashMap<String> map = new LongHashMap<>(4);
+        map.put(Long.MIN_VALUE, "min");
+        map.put(Long.MAX_VALUE, "max");
+        map.put(0, "zero");
+        map.clear();
+
+        assertTrue(map.isEmpty());
+        assertNull(map.get(0));
+        assertNull(map.put(0, "again"));
+        assertEquals(1, map.size());
+    }
+
+    @Test(expected = NullPointerException.class)
+    public void nullValuesAreRejected() {
+        new LongHashMap<String>().put(1, null);
+    }
+
+    private static long collidingKey(long i) {
+        return (i << 32) | i;
+    }
+
+    private static void assertMatches(Map<Long, String> reference, LongHashMap<String> map) {
+        assertEquals(reference.size(), map.size());
+        for (Map.Entry<Long, String> entry : reference.entrySet())
+            assertEquals(entry.getValue(), map.get(entry.getKey()));
+    }
+}
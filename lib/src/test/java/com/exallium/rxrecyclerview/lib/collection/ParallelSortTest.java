@@ -0,0 +1,82 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2015 Alex Hart
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.exallium.rxrecyclerview.lib.collection;
+
+import org.junit.Test;
+import rx.schedulers.Schedulers;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Random;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.fail;
+
+public class ParallelSortTest {
+
+    // Only the tens count, so equal items show whether the sort is stable
+    private static final Comparator<Integer> BY_TENS = new Comparator<Integer>() {
+        @Override
+        public int compare(Integer lhs, Integer rhs) {
+            return Integer.compare(lhs / 10, rhs / 10);
+        }
+    };
+
+    @Test
+    public void matchesArraysSortForEveryChunkSize() {
+        final Random random = new Random(5);
+        for (int size : new int[]{0, 1, 7, 64, 1000, 1023}) {
+            final Integer[] items = new Integer[size];
+            for (int i = 0; i < size; i++)
+                items[i] = random.nextInt(5000);
+
+            for (int chunkSize : new int[]{1, 3, 16, 100, 4096}) {
+                final Integer[] expected = items.clone();
+                Arrays.sort(expected, BY_TENS);
+                final Integer[] actual = items.clone();
+                ParallelSort.sort(actual, BY_TENS, chunkSize, Schedulers.computation());
+                assertArrayEquals("size " + size + ", chunks of " + chunkSize, expected, actual);
+            }
+        }
+    }
+
+    @Test
+    public void errorsAreRethrown() {
+        final IllegalStateException failure = new IllegalStateException();
+        final Integer[] items = {3, 2, 1, 0};
+        try {
+            ParallelSort.sort(items, new Comparator<Integer>() {
+                @Override
+                public int compare(Integer lhs, Integer rhs) {
+                    throw failure;
+                }
+            }, 2, Schedulers.computation());
+            fail();
+        } catch (IllegalStateException e) {
+            assertSame(failure, e);
+        }
+    }
+}
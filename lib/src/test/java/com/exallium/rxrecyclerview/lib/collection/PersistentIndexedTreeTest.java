@@ -0,0 +1,107 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2015 Alex Hart
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.exallium.rxrecyclerview.lib.collection;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.TreeSet;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class PersistentIndexedTreeTest {
+
+    @Test
+    public void everyVersionStaysAsItWas() {
+        final Random random = new Random(23);
+        final List<PersistentIndexedTree<Integer>> versions = new ArrayList<>();
+        final List<List<Integer>> expected = new ArrayList<>();
+        PersistentIndexedTree<Integer> tree = PersistentIndexedTree.empty();
+
+        for (int step = 0; step < 20000; step++) {
+            final Integer value = random.nextInt(2000);
+            tree = random.nextInt(3) == 0 ? tree.remove(value) : tree.add(value);
+            if (step % 1000 == 0) {
+                versions.add(tree);
+                expected.add(contents(tree));
+            }
+        }
+
+        for (int i = 0; i < versions.size(); i++)
+            assertEquals(expected.get(i), contents(versions.get(i)));
+    }
+
+    @Test
+    public void matchesTreeSetUnderRandomEdits() {
+        final Random random = new Random(24);
+        final TreeSet<Integer> reference = new TreeSet<>();
+        PersistentIndexedTree<Integer> tree = PersistentIndexedTree.empty();
+        for (int step = 0; step < 20000; step++) {
+            final Integer value = random.nextInt(2000);
+            if (random.nextInt(3) == 0) {
+                reference.remove(value);
+                tree = tree.remove(value);
+            } else {
+                reference.add(value);
+                tree = tree.add(value);
+            }
+        }
+
+        assertEquals(new ArrayList<>(reference), contents(tree));
+        int position = 0;
+        for (Integer value : reference)
+            assertEquals(position++, tree.indexOf(value));
+        assertEquals(-1, tree.indexOf(-1));
+    }
+
+    @Test
+    public void unchangedTreesAreReturnedAsTheyAre() {
+        final List<Integer> sorted = new ArrayList<>();
+        for (int i = 0; i < 100; i++)
+            sorted.add(i * 2);
+        final PersistentIndexedTree<Integer> tree = PersistentIndexedTree.fromSorted(sorted);
+
+        assertSame(tree, tree.add(10));
+        assertSame(tree, tree.remove(11));
+        assertEquals(sorted, contents(tree));
+        assertTrue(PersistentIndexedTree.<Integer>empty().isEmpty());
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void getPastTheEndThrows() {
+        PersistentIndexedTree.<Integer>empty().add(1).get(1);
+    }
+
+    private static List<Integer> contents(PersistentIndexedTree<Integer> tree) {
+        final List<Integer> contents = new ArrayList<>(tree.size());
+        for (int i = 0; i < tree.size(); i++)
+            contents.add(tree.get(i));
+        return contents;
+    }
+}
@@ -0,0 +1,152 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2015 Alex Hart
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.exallium.rxrecyclerview.lib.element;
+
+import com.exallium.rxrecyclerview.lib.GroupComparator;
+import com.exallium.rxrecyclerview.lib.event.Event;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+public class GroupRegistryTest {
+
+    private static GroupRegistry newRegistry() {
+        return GroupRegistry.of(new GroupComparator<String, String>() {
+            @Override
+            public String getGroupKey(Event<String, String> event) {
+                return event.getKey();
+            }
+
+            @Override
+            public Event<String, String> getEmptyEvent(Event.TYPE eventType) {
+                return null;
+            }
+
+            @Override
+            public int compare(Event<String, String> lhs, Event<String, String> rhs) {
+                return lhs.getKey().compareTo(rhs.getKey());
+            }
+        });
+    }
+
+    @Test
+    public void groupsCompareLikeTheirKeys() {
+        final List<String> keys = new ArrayList<>();
+        for (int i = 0; i < 2000; i++)
+            keys.add(Integer.toString(i, 36));
+        Collections.shuffle(keys, new Random(5));
+
+        final GroupRegistry registry = newRegistry();
+        final List<ElementGroup> groups = new ArrayList<>();
+        for (String key : keys)
+            groups.add(registry.intern(key));
+        assertOrdered(groups);
+    }
+
+    @Test
+    public void groupsStillCompareLikeTheirKeysOnceRanksRunOut() {
+        // Each key lands between "a" and the key before it, halving the gap every time
+        final GroupRegistry registry = newRegistry();
+        final List<ElementGroup> groups = new ArrayList<>();
+        groups.add(registry.intern("a"));
+        groups.add(registry.intern("b"));
+        String key = "a1";
+        for (int i = 0; i < 100; i++) {
+            groups.add(registry.intern(key));
+            key = "a0" + key.substring(1);
+        }
+        assertOrdered(groups);
+    }
+
+    @Test
+    public void keysAreInterned() {
+        final GroupRegistry registry = newRegistry();
+        assertSame(registry.intern("a"), registry.intern("a"));
+    }
+
+    @Test
+    public void onlyTheFirstKeysAreInterned() {
+        final GroupRegistry registry = newRegistry();
+        final List<ElementGroup> groups = new ArrayList<>();
+        for (int i = 0; i < GroupRegistry.MAX_GROUPS; i++)
+            groups.add(registry.intern("group " + i));
+
+        final ElementGroup late = registry.intern("late");
+        assertNotSame(late, registry.intern("late"));
+        assertEquals(late, registry.intern("late"));
+        for (int i = 0; i < GroupRegistry.MAX_GROUPS; i++)
+            assertSame(groups.get(i), registry.intern("group " + i));
+        assertOrdered(groups);
+    }
+
+    @Test
+    public void threadsInterningTheSameKeysShareGroups() throws InterruptedException {
+        final GroupRegistry registry = newRegistry();
+        final int threads = 4;
+        final ElementGroup[][] seen = new ElementGroup[threads][1000];
+        final CountDownLatch start = new CountDownLatch(1);
+        final List<Thread> workers = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            final ElementGroup[] mine = seen[t];
+            final Thread worker = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        start.await();
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                    for (int i = 0; i < mine.length; i++)
+                        mine[i] = registry.intern("key " + i);
+                }
+            });
+            worker.start();
+            workers.add(worker);
+        }
+        start.countDown();
+        for (Thread worker : workers)
+            worker.join();
+
+        for (int t = 1; t < threads; t++)
+            for (int i = 0; i < seen[t].length; i++)
+                assertSame(seen[0][i], seen[t][i]);
+    }
+
+    private static void assertOrdered(List<ElementGroup> groups) {
+        for (ElementGroup lhs : groups)
+            for (ElementGroup rhs : groups)
+                assertEquals(lhs.getKey() + " vs " + rhs.getKey(),
+                        Integer.signum(lhs.getKey().compareTo(rhs.getKey())),
+                        Integer.signum(lhs.compareTo(rhs)));
+    }
+}
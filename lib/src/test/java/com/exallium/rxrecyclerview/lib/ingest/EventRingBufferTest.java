@@ -0,0 +1,140 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2015 Alex Hart
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.exallium.rxrecyclerview.lib.ingest;
+
+import com.exallium.rxrecyclerview.lib.event.Event;
+import org.junit.Test;
+import rx.Subscription;
+import rx.functions.Action1;
+import rx.observers.TestSubscriber;
+import rx.schedulers.Schedulers;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class EventRingBufferTest {
+
+    @Test
+    public void fullBuffersRejectOffers() {
+        final EventRingBuffer<Integer, Integer> buffer = new EventRingBuffer<>(3);
+        assertEquals(4, buffer.capacity());
+        for (int i = 0; i < 4; i++)
+            assertTrue(buffer.offer(add(0, i)));
+        assertFalse(buffer.offer(add(0, 4)));
+        assertEquals(4, buffer.size());
+        assertEquals(1, buffer.getRejectedCount());
+    }
+
+    @Test
+    public void drainsOnlyWhatIsRequested() {
+        final EventRingBuffer<Integer, Integer> buffer = new EventRingBuffer<>(4);
+        final LazySubscriber subscriber = new LazySubscriber();
+        buffer.observe(Schedulers.immediate()).subscribe(subscriber);
+        for (int i = 0; i < 4; i++)
+            buffer.offer(add(0, i));
+        assertEquals(0, subscriber.getOnNextEvents().size());
+
+        subscriber.requestMore(3);
+        assertEquals(3, subscriber.getOnNextEvents().size());
+        assertTrue(buffer.offer(add(0, 4)));
+        assertTrue(buffer.offer(add(0, 5)));
+        assertTrue(buffer.offer(add(0, 6)));
+        assertFalse(buffer.offer(add(0, 7)));
+
+        subscriber.requestMore(10);
+        assertEquals(7, subscriber.getOnNextEvents().size());
+        for (int i = 0; i < 7; i++)
+            assertEquals(Integer.valueOf(i), subscriber.getOnNextEvents().get(i).getValue());
+    }
+
+    @Test
+    public void onlyOneSubscriberDrainsAtATime() {
+        final EventRingBuffer<Integer, Integer> buffer = new EventRingBuffer<>(4);
+        final TestSubscriber<Event<Integer, Integer>> first = new TestSubscriber<>();
+        final Subscription subscription = buffer.observe(Schedulers.immediate()).subscribe(first);
+
+        final TestSubscriber<Event<Integer, Integer>> second = new TestSubscriber<>();
+        buffer.observe(Schedulers.immediate()).subscribe(second);
+        assertTrue(second.getOnErrorEvents().get(0) instanceof IllegalStateException);
+
+        subscription.unsubscribe();
+        buffer.offer(add(0, 0));
+        final TestSubscriber<Event<Integer, Integer>> third = new TestSubscriber<>();
+        buffer.observe(Schedulers.immediate()).subscribe(third);
+        assertEquals(1, third.getOnNextEvents().size());
+        assertEquals(0, first.getOnNextEvents().size());
+    }
+
+    @Test
+    public void concurrentProducersKeepTheirOwnOrder() throws InterruptedException {
+        final int producers = 4;
+        final int perProducer = 50000;
+        final EventRingBuffer<Integer, Integer> buffer = new EventRingBuffer<>(64);
+        final int[] next = new int[producers];
+        final CountDownLatch drained = new CountDownLatch(producers * perProducer);
+        final Subscription subscription = buffer.observe(Schedulers.newThread()).subscribe(new Action1<Event<Integer, Integer>>() {
+            @Override
+            public void call(Event<Integer, Integer> event) {
+                // Only the drain thread touches next
+                if (event.getValue() != next[event.getKey()]++)
+                    throw new AssertionError("producer " + event.getKey() + " out of order");
+                drained.countDown();
+            }
+        });
+
+        for (int p = 0; p < producers; p++) {
+            final int producer = p;
+            new Thread() {
+                @Override
+                public void run() {
+                    for (int i = 0; i < perProducer; i++) {
+                        while (!buffer.offer(add(producer, i)))
+                            Thread.yield();
+                    }
+                }
+            }.start();
+        }
+
+        assertTrue(drained.await(30, TimeUnit.SECONDS));
+        subscription.unsubscribe();
+        for (int count : next)
+            assertEquals(perProducer, count);
+    }
+
+    private static Event<Integer, Integer> add(int key, int value) {
+        return new Event<>(Event.TYPE.ADD, key, value);
+    }
+
+    private static final class LazySubscriber extends TestSubscriber<Event<Integer, Integer>> {
+        @Override
+        public void onStart() {
+            request(0);
+        }
+    }
+}
@@ -0,0 +1,178 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2015 Alex Hart
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.exallium.rxrecyclerview.lib.model;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class ChangeBatchTest {
+
+    @Test
+    public void adjacentInsertsAndRemovesCoalesce() {
+        final ChangeBatch batch = new ChangeBatch();
+        for (int i = 0; i < 10; i++)
+            batch.onInserted(5 + i, 1);
+        assertEquals(1, batch.getChangeCount());
+
+        batch.clear();
+        for (int i = 0; i < 10; i++)
+            batch.onRemoved(5, 1);
+        for (int i = 0; i < 5; i++)
+            batch.onRemoved(4 - i, 1);
+        assertEquals(1, batch.getChangeCount());
+
+        final Recorder recorder = new Recorder(20);
+        batch.dispatch(recorder);
+        assertTrue(batch.isEmpty());
+        assertEquals(1, recorder.notifications);
+        assertEquals(5, recorder.items.size());
+    }
+
+    @Test
+    public void removingWhatWasJustInsertedCancelsOut() {
+        final ChangeBatch batch = new ChangeBatch();
+        batch.onInserted(3, 2);
+        batch.onRemoved(3, 2);
+        assertTrue(batch.isEmpty());
+    }
+
+    @Test
+    public void changesOnlyMergeWithTheSamePayload() {
+        final Object payload = new Object();
+        final ChangeBatch batch = new ChangeBatch();
+        batch.onChanged(0, 1, payload);
+        batch.onChanged(1, 1, payload);
+        assertEquals(1, batch.getChangeCount());
+        batch.onChanged(2, 1, null);
+        assertEquals(2, batch.getChangeCount());
+
+        final List<Object> payloads = new ArrayList<>();
+        batch.replay(new Recorder(3) {
+            @Override
+            public void onChanged(int position, int count, Object p) {
+                payloads.add(p);
+            }
+        });
+        assertEquals(2, payloads.size());
+        assertTrue(payloads.get(0) == payload);
+        assertTrue(payloads.get(1) == null);
+        assertEquals(2, batch.getChangeCount());
+    }
+
+    @Test
+    public void replayMatchesTheOriginalSequence() {
+        final Random random = new Random(3);
+        for (int trial = 0; trial < 200; trial++) {
+            final Recorder direct = new Recorder(50);
+            final ChangeBatch batch = new ChangeBatch();
+            for (int step = 0; step < 100; step++) {
+                final int size = direct.items.size();
+                switch (random.nextInt(4)) {
+                    case 0: {
+                        final int position = random.nextInt(size + 1);
+                        final int count = 1 + random.nextInt(3);
+                        direct.onInserted(position, count);
+                        batch.onInserted(position, count);
+                        break;
+                    }
+                    case 1: {
+                        if (size == 0)
+                            break;
+                        final int position = random.nextInt(size);
+                        final int count = 1 + random.nextInt(Math.min(3, size - position));
+                        direct.onRemoved(position, count);
+                        batch.onRemoved(position, count);
+                        break;
+                    }
+                    case 2: {
+                        if (size == 0)
+                            break;
+                        final int from = random.nextInt(size);
+                        final int to = random.nextInt(size);
+                        direct.onMoved(from, to);
+                        batch.onMoved(from, to);
+                        break;
+                    }
+                    default: {
+                        if (size == 0)
+                            break;
+                        final int position = random.nextInt(size);
+                        direct.onChanged(position, 1, null);
+                        batch.onChanged(position, 1, null);
+                    }
+                }
+            }
+
+            final Recorder replayed = new Recorder(50);
+            batch.dispatch(replayed);
+            assertEquals(direct.items, replayed.items);
+            assertTrue(replayed.notifications <= direct.notifications);
+        }
+    }
+
+    /**
+     * Applies notifications to a list of the original positions, with -1 for inserted items.
+     */
+    private static class Recorder implements ChangeSink {
+        final List<Integer> items = new ArrayList<>();
+        int notifications;
+
+        Recorder(int size) {
+            for (int i = 0; i < size; i++)
+                items.add(i);
+        }
+
+        @Override
+        public void onInserted(int position, int count) {
+            notifications++;
+            for (int i = 0; i < count; i++)
+                items.add(position, -1);
+        }
+
+        @Override
+        public void onRemoved(int position, int count) {
+            notifications++;
+            for (int i = 0; i < count; i++)
+                items.remove(position);
+        }
+
+        @Override
+        public void onMoved(int fromPosition, int toPosition) {
+            notifications++;
+            items.add(toPosition, items.remove(fromPosition));
+        }
+
+        @Override
+        public void onChanged(int position, int count, Object payload) {
+            notifications++;
+        }
+    }
+}
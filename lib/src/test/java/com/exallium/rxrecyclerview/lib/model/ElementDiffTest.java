@@ -0,0 +1,155 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2015 Alex Hart
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.exallium.rxrecyclerview.lib.model;
+
+import com.exallium.rxrecyclerview.lib.GroupComparator;
+import com.exallium.rxrecyclerview.lib.element.EventElement;
+import com.exallium.rxrecyclerview.lib.event.Event;
+import org.junit.Test;
+import rx.functions.Func2;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+public class ElementDiffTest {
+
+    // Sorted by key alone, so that a new value for a key stays in place
+    private static final GroupComparator<Integer, Integer> BY_KEY = new GroupComparator<Integer, Integer>() {
+        @Override
+        public String getGroupKey(Event<Integer, Integer> event) {
+            return "";
+        }
+
+        @Override
+        public Event<Integer, Integer> getEmptyEvent(Event.TYPE eventType) {
+            return null;
+        }
+
+        @Override
+        public int compare(Event<Integer, Integer> lhs, Event<Integer, Integer> rhs) {
+            return lhs.getKey().compareTo(rhs.getKey());
+        }
+    };
+
+    @Test
+    public void changesReplayOntoTheListBefore() {
+        final Random random = new Random(19);
+        for (int trial = 0; trial < 300; trial++) {
+            final List<EventElement<Integer, Integer>> before = new ArrayList<>();
+            final List<EventElement<Integer, Integer>> after = new ArrayList<>();
+            for (int key = 0; key < 50; key++) {
+                final EventElement<Integer, Integer> element = element(key, 0);
+                final boolean isBefore = random.nextInt(3) != 0;
+                if (isBefore)
+                    before.add(element);
+                if (random.nextInt(3) != 0)
+                    after.add(isBefore && random.nextBoolean() ? element : element(key, 1));
+            }
+
+            final ElementSnapshot<Integer, Integer> from = snapshot(before);
+            final ElementSnapshot<Integer, Integer> to = snapshot(after);
+            final Mirror mirror = new Mirror(from, to);
+            ElementDiff.diff(from, to, null, mirror);
+            assertEquals(to.size(), mirror.items.size());
+            for (int i = 0; i < to.size(); i++)
+                assertSame("at " + i, to.get(i), mirror.items.get(i));
+        }
+    }
+
+    @Test
+    public void unchangedPayloadsAreNotReported() {
+        final EventElement<Integer, Integer> kept = element(1, 5);
+        final ElementSnapshot<Integer, Integer> from = snapshot(list(element(0, 1), kept, element(2, 5)));
+        final ElementSnapshot<Integer, Integer> to = snapshot(list(element(0, 2), kept, element(2, 5)));
+        final Mirror mirror = new Mirror(from, to);
+        ElementDiff.diff(from, to, new Func2<EventElement<Integer, Integer>, EventElement<Integer, Integer>, Object>() {
+            @Override
+            public Object call(EventElement<Integer, Integer> before, EventElement<Integer, Integer> after) {
+                return before.getData().getValue().equals(after.getData().getValue()) ? ElementModel.UNCHANGED : "value";
+            }
+        }, mirror);
+
+        // Only key 0 changed value, and the very same element is never asked about
+        assertEquals(1, mirror.changes);
+        assertSame(to.get(0), mirror.items.get(0));
+    }
+
+    private static EventElement<Integer, Integer> element(int key, int value) {
+        return new EventElement<>(new Event<>(Event.TYPE.ADD, key, value), BY_KEY);
+    }
+
+    @SafeVarargs
+    private static List<EventElement<Integer, Integer>> list(EventElement<Integer, Integer>... elements) {
+        final List<EventElement<Integer, Integer>> list = new ArrayList<>();
+        for (EventElement<Integer, Integer> element : elements)
+            list.add(element);
+        return list;
+    }
+
+    private static ElementSnapshot<Integer, Integer> snapshot(List<EventElement<Integer, Integer>> elements) {
+        return new ElementSnapshot<>(elements.toArray());
+    }
+
+    // Replays the changes onto a copy of the list before, taking new items from the list after
+    private static final class Mirror implements ChangeSink {
+        private final List<EventElement<Integer, Integer>> items = new ArrayList<>();
+        private final ElementList<Integer, Integer> after;
+        int changes;
+
+        Mirror(ElementList<Integer, Integer> before, ElementList<Integer, Integer> after) {
+            this.after = after;
+            for (int i = 0; i < before.size(); i++)
+                items.add(before.get(i));
+        }
+
+        @Override
+        public void onInserted(int position, int count) {
+            for (int i = 0; i < count; i++)
+                items.add(position + i, after.get(position + i));
+        }
+
+        @Override
+        public void onRemoved(int position, int count) {
+            for (int i = 0; i < count; i++)
+                items.remove(position);
+        }
+
+        @Override
+        public void onMoved(int fromPosition, int toPosition) {
+            throw new AssertionError("ElementDiff never reports moves");
+        }
+
+        @Override
+        public void onChanged(int position, int count, Object payload) {
+            changes++;
+            for (int i = 0; i < count; i++)
+                items.set(position + i, after.get(position + i));
+        }
+    }
+}
@@ -0,0 +1,271 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2015 Alex Hart
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.exallium.rxrecyclerview.lib.model;
+
+import com.exallium.rxrecyclerview.lib.GroupComparator;
+import com.exallium.rxrecyclerview.lib.element.EventElement;
+import com.exallium.rxrecyclerview.lib.event.Event;
+import com.exallium.rxrecyclerview.lib.event.TransactionEvent;
+import com.exallium.rxrecyclerview.lib.operators.ElementGenerationOperator;
+import org.junit.Test;
+import rx.Subscriber;
+import rx.functions.Func2;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class ElementModelTest {
+
+    // Values are grouped by their tens
+    private static final GroupComparator<Integer, Integer> TENS = new GroupComparator<Integer, Integer>() {
+        @Override
+        public String getGroupKey(Event<Integer, Integer> event) {
+            return String.valueOf(event.getValue() / 10);
+        }
+
+        @Override
+        public Event<Integer, Integer> getEmptyEvent(Event.TYPE eventType) {
+            return new Event<>(eventType, -1, 0);
+        }
+
+        @Override
+        public int compare(Event<Integer, Integer> lhs, Event<Integer, Integer> rhs) {
+            int comparison = lhs.getValue().compareTo(rhs.getValue());
+            return comparison != 0 ? comparison : lhs.getKey().compareTo(rhs.getKey());
+        }
+    };
+
+    @Test
+    public void snapshotsDoNotSeeLaterApplies() {
+        final ElementModel<Integer, Integer> model = new ElementModel<>();
+        final Subscriber<? super Event<Integer, Integer>> input = generator(model, new ChangeBatch());
+        input.onNext(new Event<>(Event.TYPE.ADD, 1, 15));
+        final ElementSnapshot<Integer, Integer> snapshot = model.snapshot();
+
+        input.onNext(new Event<>(Event.TYPE.ADD, 2, 12));
+        input.onNext(new Event<>(Event.TYPE.REMOVE, 1, 15));
+
+        // Header, item and footer of group 1
+        assertEquals(3, snapshot.size());
+        assertEquals(Integer.valueOf(1), snapshot.get(1).getData().getKey());
+        assertEquals(1, snapshot.indexOf(snapshot.get(1)));
+        assertEquals(Integer.valueOf(2), model.get(1).getData().getKey());
+    }
+
+    @Test
+    public void batchedChangesReplayOntoThePreviousSnapshot() {
+        final Random random = new Random(4);
+        final ElementModel<Integer, Integer> model = new ElementModel<>();
+        final ChangeBatch batch = new ChangeBatch();
+        final Subscriber<? super Event<Integer, Integer>> input = generator(model, batch);
+
+        // The empty element is already in the first snapshot
+        ElementSnapshot<Integer, Integer> shown = model.snapshot();
+        batch.clear();
+        for (int frame = 0; frame < 300; frame++) {
+            for (int i = random.nextInt(30); i >= 0; i--) {
+                final Event.TYPE type = random.nextInt(4) == 0 ? Event.TYPE.REMOVE : Event.TYPE.ADD;
+                input.onNext(new Event<>(type, random.nextInt(100), random.nextInt(80)));
+            }
+
+            final Placeholders<Integer, Integer> placeholders = new Placeholders<>(shown);
+            batch.dispatch(placeholders);
+            shown = model.snapshot();
+            placeholders.assertMatches(shown);
+        }
+    }
+
+    @Test
+    public void updatesReportTheirChangePayload() {
+        final ElementModel<Integer, Integer> model = new ElementModel<>();
+        model.setChangePayload(new Func2<EventElement<Integer, Integer>, EventElement<Integer, Integer>, Object>() {
+            @Override
+            public Object call(EventElement<Integer, Integer> before, EventElement<Integer, Integer> after) {
+                final int delta = after.getData().getValue() - before.getData().getValue();
+                return delta == 0 ? ElementModel.UNCHANGED : delta;
+            }
+        });
+        final ChangeBatch batch = new ChangeBatch();
+        final Subscriber<? super Event<Integer, Integer>> input = generator(model, batch);
+        input.onNext(new Event<>(Event.TYPE.ADD, 1, 11));
+        input.onNext(new Event<>(Event.TYPE.ADD, 2, 12));
+        batch.clear();
+
+        final List<Object> payloads = new ArrayList<>();
+        final ChangeSink payloadSink = new ChangeSink() {
+            @Override
+            public void onInserted(int position, int count) { }
+
+            @Override
+            public void onRemoved(int position, int count) { }
+
+            @Override
+            public void onMoved(int fromPosition, int toPosition) { }
+
+            @Override
+            public void onChanged(int position, int count, Object payload) {
+                payloads.add(position + ":" + payload);
+            }
+        };
+        input.onNext(new Event<>(Event.TYPE.ADD, 1, 11));
+        batch.dispatch(payloadSink);
+        assertEquals(0, payloads.size());
+
+        input.onNext(new Event<>(Event.TYPE.ADD, 2, 15));
+        batch.dispatch(payloadSink);
+        assertEquals(Collections.<Object>singletonList("2:3"), payloads);
+    }
+
+    @Test
+    public void versionedSnapshotsFollowTheModel() {
+        final Random random = new Random(23);
+        final ElementModel<Integer, Integer> model = new ElementModel<>();
+        final Subscriber<? super Event<Integer, Integer>> input = generator(model, new ChangeBatch());
+        input.onNext(new Event<>(Event.TYPE.ADD, 1, 15));
+        model.enableVersioning();
+        assertEquals(0, model.getVersionedSnapshot().getVersion());
+
+        final List<VersionedSnapshot<Integer, Integer>> versions = new ArrayList<>();
+        final List<ElementSnapshot<Integer, Integer>> copies = new ArrayList<>();
+        for (int step = 0; step < 200; step++) {
+            final List<Event<Integer, Integer>> events = new ArrayList<>();
+            for (int i = random.nextInt(10); i >= 0; i--) {
+                final Event.TYPE type = random.nextInt(4) == 0 ? Event.TYPE.REMOVE : Event.TYPE.ADD;
+                events.add(new Event<>(type, random.nextInt(100), random.nextInt(80)));
+            }
+            if (random.nextBoolean()) {
+                input.onNext(new TransactionEvent<>(events));
+            } else {
+                for (Event<Integer, Integer> event : events)
+                    input.onNext(event);
+            }
+            versions.add(model.getVersionedSnapshot());
+            copies.add(model.snapshot());
+        }
+
+        for (int i = 0; i < versions.size(); i++)
+            assertSameElements(copies.get(i), versions.get(i));
+        assertTrue(versions.get(versions.size() - 1).getVersion() > versions.get(0).getVersion());
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void versionedSnapshotsNeedVersioning() {
+        new ElementModel<Integer, Integer>().getVersionedSnapshot();
+    }
+
+    private static void assertSameElements(ElementList<Integer, Integer> expected, ElementList<Integer, Integer> actual) {
+        assertEquals(expected.size(), actual.size());
+        for (int i = 0; i < expected.size(); i++) {
+            assertSame("at " + i, expected.get(i), actual.get(i));
+            assertEquals(i, actual.indexOf(expected.get(i)));
+        }
+    }
+
+    static Subscriber<? super Event<Integer, Integer>> generator(final ElementModel<Integer, Integer> model,
+                                                               final ChangeSink sink) {
+        final Subscriber<? super Event<Integer, Integer>> input =
+                new ElementGenerationOperator.Builder<>(TENS).hasHeader(true).hasFooter(true).hasEmpty(true)
+                        .build()
+                        .call(new Subscriber<EventElement<Integer, Integer>>() {
+                            @Override
+                            public void onCompleted() { }
+
+                            @Override
+                            public void onError(Throwable e) {
+                                throw new AssertionError(e);
+                            }
+
+                            @Override
+                            public void onNext(EventElement<Integer, Integer> element) {
+                                model.apply(element, sink);
+                            }
+                        });
+        input.onStart();
+        return input;
+    }
+
+    /**
+     * Replays changes onto a copy of a list, as RecyclerView would.  Inserted and changed items
+     * become null, since they are bound again, and every other item must end up where it still is.
+     */
+    static class Placeholders<K, V> implements ChangeSink {
+        private final List<EventElement<K, V>> items = new ArrayList<>();
+
+        Placeholders(ElementList<K, V> before) {
+            for (int i = 0; i < before.size(); i++)
+                items.add(before.get(i));
+        }
+
+        @Override
+        public void onInserted(int position, int count) {
+            for (int i = 0; i < count; i++)
+                items.add(position, null);
+        }
+
+        @Override
+        public void onRemoved(int position, int count) {
+            for (int i = 0; i < count; i++)
+                items.remove(position);
+        }
+
+        @Override
+        public void onMoved(int fromPosition, int toPosition) {
+            items.add(toPosition, items.remove(fromPosition));
+        }
+
+        @Override
+        public void onChanged(int position, int count, Object payload) {
+            for (int i = 0; i < count; i++)
+                items.set(position + i, null);
+        }
+
+        void assertMatches(ElementList<K, V> after) {
+            assertEquals(after.size(), items.size());
+            for (int i = 0; i < after.size(); i++)
+                if (items.get(i) != null && !isStillShown(after.get(i), items.get(i)))
+                    throw new AssertionError("at " + i + ", " + describe(items.get(i)) + " is still shown instead of "
+                            + describe(after.get(i)));
+        }
+
+        /**
+         * @return Whether a row which was not bound again still shows what it should.  Only the
+         *         very same element does.
+         */
+        boolean isStillShown(EventElement<K, V> expected, EventElement<K, V> shown) {
+            return expected == shown;
+        }
+
+        private static String describe(EventElement<?, ?> element) {
+            return (element.getViewType() >> EventElement.MASK_SHIFT) + ":" + element.getGroup() + ":"
+                    + element.getData().getKey();
+        }
+    }
+}
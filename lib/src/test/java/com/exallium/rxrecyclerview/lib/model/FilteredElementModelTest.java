@@ -0,0 +1,222 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2015 Alex Hart
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.exallium.rxrecyclerview.lib.model;
+
+import com.exallium.rxrecyclerview.lib.GroupComparator;
+import com.exallium.rxrecyclerview.lib.element.EventElement;
+import com.exallium.rxrecyclerview.lib.event.Event;
+import com.exallium.rxrecyclerview.lib.operators.ElementGenerationOperator;
+import org.junit.Test;
+import rx.Observable;
+import rx.Subscription;
+import rx.functions.Func1;
+import rx.schedulers.Schedulers;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class FilteredElementModelTest {
+
+    private static final GroupComparator<Integer, String> BY_KEY = new GroupComparator<Integer, String>() {
+        @Override
+        public String getGroupKey(Event<Integer, String> event) {
+            return "all";
+        }
+
+        @Override
+        public Event<Integer, String> getEmptyEvent(Event.TYPE eventType) {
+            return null;
+        }
+
+        @Override
+        public int compare(Event<Integer, String> lhs, Event<Integer, String> rhs) {
+            return lhs.getKey().compareTo(rhs.getKey());
+        }
+    };
+
+    private static final Func1<Event<Integer, String>, Boolean> EVEN = new Func1<Event<Integer, String>, Boolean>() {
+        @Override
+        public Boolean call(Event<Integer, String> event) {
+            return event.getKey() % 2 == 0;
+        }
+    };
+
+    private static final class Recorder implements SnapshotSource.Listener<Integer, String> {
+        final CountDownLatch failed = new CountDownLatch(1);
+        volatile ElementSnapshot<Integer, String> snapshot = ElementSnapshot.empty();
+        volatile Throwable error;
+        volatile AssertionError mismatch;
+
+        @Override
+        public void onUpdate(ElementSnapshot<Integer, String> snapshot, ChangeBatch changes) {
+            final ElementModelTest.Placeholders<Integer, String> placeholders =
+                    new ElementModelTest.Placeholders<Integer, String>(this.snapshot) {
+                        // Elements are made again on every rebuild, and one which shows the same
+                        // Event in the same group needs no notification
+                        @Override
+                        boolean isStillShown(EventElement<Integer, String> expected, EventElement<Integer, String> shown) {
+                            final int mask = expected.getViewType() >> EventElement.MASK_SHIFT;
+                            return expected == shown || (mask == shown.getViewType() >> EventElement.MASK_SHIFT
+                                    && expected.getData() == shown.getData()
+                                    && (mask == EventElement.DATA_MASK || expected.getGroup().equals(shown.getGroup())));
+                        }
+                    };
+            changes.replay(placeholders);
+            try {
+                placeholders.assertMatches(snapshot);
+            } catch (AssertionError e) {
+                mismatch = e;
+            }
+            this.snapshot = snapshot;
+        }
+
+        @Override
+        public void onCompleted() { }
+
+        @Override
+        public void onError(Throwable error) {
+            this.error = error;
+            failed.countDown();
+        }
+
+        void awaitSize(int size) throws InterruptedException {
+            final long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+            while (snapshot.size() != size && System.nanoTime() < deadline)
+                Thread.sleep(5);
+            assertEquals(size, snapshot.size());
+            if (mismatch != null)
+                throw mismatch;
+        }
+
+        void awaitError() throws InterruptedException {
+            assertTrue(failed.await(5, TimeUnit.SECONDS));
+        }
+    }
+
+    private static Observable<Event<Integer, String>> events(int count) {
+        final List<Event<Integer, String>> events = new ArrayList<>(count);
+        for (int key = 0; key < count; key++)
+            events.add(new Event<>(Event.TYPE.ADD, key, "Item " + key));
+        return Observable.from(events);
+    }
+
+    private static FilteredElementModel.Builder<Integer, String> builder(Observable<Event<Integer, String>> stream) {
+        return new FilteredElementModel.Builder<>(stream, new ElementGenerationOperator.Builder<>(BY_KEY))
+                .chunkSize(16);
+    }
+
+    @Test
+    public void showsOnlyMatchingEvents() throws InterruptedException {
+        final FilteredElementModel<Integer, String> model = builder(events(100)).predicate(EVEN).build();
+        final Recorder recorder = new Recorder();
+        final Subscription subscription = model.attach(recorder, Schedulers.immediate());
+        recorder.awaitSize(50);
+        for (int i = 0; i < 50; i++)
+            assertEquals(Integer.valueOf(i * 2), recorder.snapshot.get(i).getData().getKey());
+
+        model.setPredicate(new Func1<Event<Integer, String>, Boolean>() {
+            @Override
+            public Boolean call(Event<Integer, String> event) {
+                return event.getKey() < 10;
+            }
+        });
+        recorder.awaitSize(10);
+        subscription.unsubscribe();
+    }
+
+    @Test
+    public void switchingComparatorsResortsInPlace() throws InterruptedException {
+        final FilteredElementModel<Integer, String> model = builder(events(100)).predicate(EVEN).build();
+        final Recorder recorder = new Recorder();
+        final Subscription subscription = model.attach(recorder, Schedulers.immediate());
+        recorder.awaitSize(50);
+
+        // Descending, in groups of tens
+        model.setGroupComparator(new GroupComparator<Integer, String>() {
+            @Override
+            public String getGroupKey(Event<Integer, String> event) {
+                return String.valueOf(9 - event.getKey() / 10);
+            }
+
+            @Override
+            public Event<Integer, String> getEmptyEvent(Event.TYPE eventType) {
+                return null;
+            }
+
+            @Override
+            public int compare(Event<Integer, String> lhs, Event<Integer, String> rhs) {
+                return rhs.getKey().compareTo(lhs.getKey());
+            }
+        });
+        final long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (recorder.snapshot.get(0).getData().getKey() != 98 && System.nanoTime() < deadline)
+            Thread.sleep(5);
+        recorder.awaitSize(50);
+        for (int i = 0; i < 50; i++) {
+            assertEquals(Integer.valueOf(98 - i * 2), recorder.snapshot.get(i).getData().getKey());
+            assertEquals(String.valueOf(9 - (98 - i * 2) / 10), recorder.snapshot.get(i).getGroup());
+        }
+        subscription.unsubscribe();
+    }
+
+    @Test
+    public void throwingPredicateReachesListeners() throws InterruptedException {
+        final FilteredElementModel<Integer, String> model = builder(events(100)).predicate(EVEN).build();
+        final Recorder recorder = new Recorder();
+        final Subscription subscription = model.attach(recorder, Schedulers.immediate());
+        recorder.awaitSize(50);
+
+        final IllegalStateException failure = new IllegalStateException();
+        model.setPredicate(new Func1<Event<Integer, String>, Boolean>() {
+            @Override
+            public Boolean call(Event<Integer, String> event) {
+                throw failure;
+            }
+        });
+        recorder.awaitError();
+        assertSame(failure, recorder.error);
+        // What was shown before stays
+        assertEquals(50, recorder.snapshot.size());
+        subscription.unsubscribe();
+    }
+
+    @Test
+    public void failingStreamReachesListeners() throws InterruptedException {
+        final IllegalStateException failure = new IllegalStateException();
+        final FilteredElementModel<Integer, String> model =
+                builder(Observable.<Event<Integer, String>>error(failure)).build();
+        final Recorder recorder = new Recorder();
+        final Subscription subscription = model.attach(recorder, Schedulers.immediate());
+        recorder.awaitError();
+        assertSame(failure, recorder.error);
+        subscription.unsubscribe();
+    }
+}
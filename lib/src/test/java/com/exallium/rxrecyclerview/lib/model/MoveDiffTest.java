@@ -0,0 +1,248 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2015 Alex Hart
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.exallium.rxrecyclerview.lib.model;
+
+import com.exallium.rxrecyclerview.lib.GroupComparator;
+import com.exallium.rxrecyclerview.lib.element.EventElement;
+import com.exallium.rxrecyclerview.lib.event.Event;
+import com.exallium.rxrecyclerview.lib.event.TransactionEvent;
+import com.exallium.rxrecyclerview.lib.operators.ElementGenerationOperator;
+import org.junit.Test;
+import rx.Subscriber;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+
+public class MoveDiffTest {
+
+    // Ranked by score, highest first, and grouped by hundreds
+    private static final GroupComparator<Integer, Integer> SCORES = new GroupComparator<Integer, Integer>() {
+        @Override
+        public String getGroupKey(Event<Integer, Integer> event) {
+            return String.valueOf(9 - event.getValue() / 100);
+        }
+
+        @Override
+        public Event<Integer, Integer> getEmptyEvent(Event.TYPE eventType) {
+            return null;
+        }
+
+        @Override
+        public int compare(Event<Integer, Integer> lhs, Event<Integer, Integer> rhs) {
+            int comparison = rhs.getValue().compareTo(lhs.getValue());
+            return comparison != 0 ? comparison : lhs.getKey().compareTo(rhs.getKey());
+        }
+    };
+
+    @Test
+    public void sameOrderReportsNothing() {
+        final ElementSnapshot<Integer, Integer> list = snapshot(elements(0, 1, 2, 3));
+        final Mirror mirror = new Mirror(list, list);
+        MoveDiff.diff(list, list, null, mirror);
+        assertEquals(0, mirror.operations);
+    }
+
+    @Test
+    public void oneElementMovingIsOneMove() {
+        final List<EventElement<Integer, Integer>> before = elements(0, 1, 2, 3, 4, 5);
+        final List<EventElement<Integer, Integer>> after = new ArrayList<>(before);
+        after.add(after.remove(1));
+
+        final Mirror mirror = new Mirror(snapshot(before), snapshot(after));
+        MoveDiff.diff(snapshot(before), snapshot(after), null, mirror);
+        assertEquals(1, mirror.moves);
+        assertEquals(1, mirror.operations);
+        mirror.assertMatches();
+    }
+
+    @Test
+    public void reversalKeepsOneElementInPlace() {
+        final List<EventElement<Integer, Integer>> before = elements(0, 1, 2, 3, 4, 5, 6, 7);
+        final List<EventElement<Integer, Integer>> after = new ArrayList<>(before);
+        Collections.reverse(after);
+
+        final Mirror mirror = new Mirror(snapshot(before), snapshot(after));
+        MoveDiff.diff(snapshot(before), snapshot(after), null, mirror);
+        assertEquals(7, mirror.moves);
+        mirror.assertMatches();
+    }
+
+    @Test
+    public void permutationsWithInsertionsAndRemovalsReplay() {
+        final Random random = new Random(20);
+        for (int trial = 0; trial < 200; trial++) {
+            final List<EventElement<Integer, Integer>> before = new ArrayList<>();
+            final List<EventElement<Integer, Integer>> after = new ArrayList<>();
+            for (int key = 0; key < 40; key++) {
+                if (random.nextInt(5) != 0)
+                    before.add(element(key, 0));
+                if (random.nextInt(5) != 0)
+                    after.add(element(key, random.nextInt(3)));
+            }
+            Collections.shuffle(before, random);
+            Collections.shuffle(after, random);
+
+            final Mirror mirror = new Mirror(snapshot(before), snapshot(after));
+            MoveDiff.diff(snapshot(before), snapshot(after), null, mirror);
+            mirror.assertMatches();
+        }
+    }
+
+    @Test
+    public void transactionsReplayOntoTheModel() {
+        final Random random = new Random(19);
+        for (int trial = 0; trial < 20; trial++) {
+            final ElementModel<Integer, Integer> model = new ElementModel<>();
+            final Mirror mirror = new Mirror(model, model);
+            final Subscriber<? super Event<Integer, Integer>> input = generator(model, mirror);
+            for (int step = 0; step < 100; step++) {
+                // Mostly small nudges, so that the changes stay in part of the list
+                final List<Event<Integer, Integer>> events = new ArrayList<>();
+                final int base = random.nextInt(900);
+                for (int i = random.nextInt(20); i >= 0; i--) {
+                    final Event.TYPE type = random.nextInt(5) == 0 ? Event.TYPE.REMOVE : Event.TYPE.ADD;
+                    events.add(new Event<>(type, random.nextInt(300), base + random.nextInt(100)));
+                }
+                input.onNext(new TransactionEvent<>(events));
+                mirror.assertMatches();
+            }
+        }
+    }
+
+    @Test
+    public void reRankingOneKeyIsOneMove() {
+        final ElementModel<Integer, Integer> model = new ElementModel<>();
+        final Mirror mirror = new Mirror(model, model);
+        final Subscriber<? super Event<Integer, Integer>> input = generator(model, mirror);
+        final List<Event<Integer, Integer>> events = new ArrayList<>();
+        for (int key = 0; key < 1000; key++)
+            events.add(new Event<>(Event.TYPE.ADD, key, key % 90));
+        input.onNext(new TransactionEvent<>(events));
+        mirror.assertMatches();
+
+        mirror.operations = 0;
+        input.onNext(new TransactionEvent<>(Collections.singletonList(
+                new Event<>(Event.TYPE.ADD, 500, 95))));
+        mirror.assertMatches();
+        assertEquals(1, mirror.moves);
+        // The move, and the change to the key's Event
+        assertEquals(2, mirror.operations);
+    }
+
+    private static Subscriber<? super Event<Integer, Integer>> generator(final ElementModel<Integer, Integer> model,
+                                                                       final ChangeSink sink) {
+        final Subscriber<? super Event<Integer, Integer>> input =
+                new ElementGenerationOperator.Builder<>(SCORES).hasHeader(true).hasFooter(true).build()
+                        .call(new Subscriber<EventElement<Integer, Integer>>() {
+                            @Override
+                            public void onCompleted() { }
+
+                            @Override
+                            public void onError(Throwable e) {
+                                throw new AssertionError(e);
+                            }
+
+                            @Override
+                            public void onNext(EventElement<Integer, Integer> element) {
+                                model.apply(element, sink);
+                            }
+                        });
+        input.onStart();
+        return input;
+    }
+
+    private static EventElement<Integer, Integer> element(int key, int score) {
+        return new EventElement<>(new Event<>(Event.TYPE.ADD, key, score), SCORES);
+    }
+
+    private static List<EventElement<Integer, Integer>> elements(int... keys) {
+        final List<EventElement<Integer, Integer>> elements = new ArrayList<>(keys.length);
+        for (int key : keys)
+            elements.add(element(key, 0));
+        return elements;
+    }
+
+    private static ElementSnapshot<Integer, Integer> snapshot(List<EventElement<Integer, Integer>> elements) {
+        return new ElementSnapshot<>(elements.toArray());
+    }
+
+    // Replays the changes onto a copy of the list before, as RecyclerView would
+    private static final class Mirror implements ChangeSink {
+        private final List<EventElement<Integer, Integer>> mirror = new ArrayList<>();
+        private final ElementList<Integer, Integer> after;
+        int operations;
+        int moves;
+
+        Mirror(ElementList<Integer, Integer> before, ElementList<Integer, Integer> after) {
+            this.after = after;
+            for (int i = 0; i < before.size(); i++)
+                mirror.add(before.get(i));
+        }
+
+        @Override
+        public void onInserted(int position, int count) {
+            operations++;
+            // Insertions come after removals and moves, so they land where they end up
+            for (int i = 0; i < count; i++)
+                mirror.add(position + i, after.get(position + i));
+        }
+
+        @Override
+        public void onRemoved(int position, int count) {
+            operations++;
+            for (int i = 0; i < count; i++)
+                mirror.remove(position);
+        }
+
+        @Override
+        public void onMoved(int fromPosition, int toPosition) {
+            operations++;
+            moves++;
+            mirror.add(toPosition, mirror.remove(fromPosition));
+        }
+
+        @Override
+        public void onChanged(int position, int count, Object payload) {
+            operations++;
+            for (int i = 0; i < count; i++)
+                mirror.set(position + i, after.get(position + i));
+        }
+
+        void assertMatches() {
+            assertEquals(after.size(), mirror.size());
+            for (int i = 0; i < after.size(); i++)
+                assertEquals("at " + i, describe(after.get(i)), describe(mirror.get(i)));
+        }
+
+        private static String describe(EventElement<Integer, Integer> element) {
+            return (element.getViewType() >> EventElement.MASK_SHIFT) + ":" + element.getGroup() + ":"
+                    + element.getData().getKey() + "=" + element.getData().getValue();
+        }
+    }
+}
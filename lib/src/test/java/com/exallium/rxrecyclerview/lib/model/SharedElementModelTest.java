@@ -0,0 +1,189 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2015 Alex Hart
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.exallium.rxrecyclerview.lib.model;
+
+import com.exallium.rxrecyclerview.lib.GroupComparator;
+import com.exallium.rxrecyclerview.lib.event.Event;
+import com.exallium.rxrecyclerview.lib.operators.ElementGenerationOperator;
+import org.junit.Test;
+import rx.Observable;
+import rx.Subscription;
+import rx.schedulers.Schedulers;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class SharedElementModelTest {
+
+    private static final GroupComparator<Integer, String> BY_KEY = new GroupComparator<Integer, String>() {
+        @Override
+        public String getGroupKey(Event<Integer, String> event) {
+            return event.getKey() < 10 ? "low" : "high";
+        }
+
+        @Override
+        public Event<Integer, String> getEmptyEvent(Event.TYPE eventType) {
+            return null;
+        }
+
+        @Override
+        public int compare(Event<Integer, String> lhs, Event<Integer, String> rhs) {
+            return lhs.getKey().compareTo(rhs.getKey());
+        }
+    };
+
+    private static final List<Event<Integer, String>> EVENTS = Arrays.asList(
+            new Event<>(Event.TYPE.ADD, 1, "a"),
+            new Event<>(Event.TYPE.ADD, 2, "b"),
+            new Event<>(Event.TYPE.ADD, 11, "c"));
+
+    // Two groups, each with a header and a footer
+    private static final int SIZE = EVENTS.size() + 4;
+
+    private static ElementGenerationOperator.Builder<Integer, String> elements() {
+        return new ElementGenerationOperator.Builder<>(BY_KEY).hasHeader(true).hasFooter(true);
+    }
+
+    private static final class Recorder implements SnapshotSource.Listener<Integer, String> {
+        final CountDownLatch terminated = new CountDownLatch(1);
+        volatile ElementSnapshot<Integer, String> snapshot;
+        volatile Throwable error;
+
+        @Override
+        public void onUpdate(ElementSnapshot<Integer, String> snapshot, ChangeBatch changes) {
+            this.snapshot = snapshot;
+        }
+
+        @Override
+        public void onCompleted() {
+            terminated.countDown();
+        }
+
+        @Override
+        public void onError(Throwable error) {
+            this.error = error;
+            terminated.countDown();
+        }
+
+        void await() throws InterruptedException {
+            assertTrue(terminated.await(5, TimeUnit.SECONDS));
+        }
+    }
+
+    @Test
+    public void sameKeySharesTheModel() {
+        final SharedElementModel<Integer, String> first =
+                SharedElementModel.of("shared", Observable.from(EVENTS), elements());
+        final SharedElementModel<Integer, String> second =
+                SharedElementModel.of("shared", Observable.from(EVENTS), elements());
+        final SharedElementModel<Integer, String> other =
+                SharedElementModel.of("other", Observable.from(EVENTS), elements());
+
+        assertSame(first, second);
+        assertNotSame(first, other);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void anotherComparatorForTheSameKeyThrows() {
+        SharedElementModel.of("sorted", Observable.from(EVENTS), elements());
+        SharedElementModel.of("sorted", Observable.from(EVENTS),
+                new ElementGenerationOperator.Builder<>(new GroupComparator<Integer, String>() {
+                    @Override
+                    public String getGroupKey(Event<Integer, String> event) {
+                        return BY_KEY.getGroupKey(event);
+                    }
+
+                    @Override
+                    public Event<Integer, String> getEmptyEvent(Event.TYPE eventType) {
+                        return null;
+                    }
+
+                    @Override
+                    public int compare(Event<Integer, String> lhs, Event<Integer, String> rhs) {
+                        return BY_KEY.compare(rhs, lhs);
+                    }
+                }));
+    }
+
+    @Test
+    public void attachingAgainSharesTheModelAgain() throws InterruptedException {
+        final SharedElementModel<Integer, String> model =
+                SharedElementModel.of("again", Observable.from(EVENTS), elements());
+        final Recorder first = new Recorder();
+        final Subscription firstSubscription = model.attach(first, Schedulers.immediate());
+        first.await();
+        firstSubscription.unsubscribe();
+
+        // Forgotten once the last listener detached, but whoever still holds it can attach again
+        final Recorder second = new Recorder();
+        final Subscription subscription = model.attach(second, Schedulers.immediate());
+        second.await();
+        assertSame(model, SharedElementModel.of("again", Observable.from(EVENTS), elements()));
+        subscription.unsubscribe();
+    }
+
+    @Test
+    public void reconnectingStartsFromScratch() throws InterruptedException {
+        final SharedElementModel<Integer, String> model =
+                SharedElementModel.of("reconnect", Observable.from(EVENTS), elements());
+
+        for (int i = 0; i < 2; i++) {
+            final Recorder recorder = new Recorder();
+            final Subscription subscription = model.attach(recorder, Schedulers.immediate());
+            recorder.await();
+            assertNull(recorder.error);
+            assertEquals(SIZE, recorder.snapshot.size());
+            subscription.unsubscribe();
+        }
+    }
+
+    @Test
+    public void errorsReachEveryListener() throws InterruptedException {
+        final IllegalStateException failure = new IllegalStateException();
+        final SharedElementModel<Integer, String> model = SharedElementModel.of("failing",
+                Observable.from(EVENTS).concatWith(Observable.<Event<Integer, String>>error(failure)),
+                elements());
+
+        final Recorder first = new Recorder();
+        final Subscription subscription = model.attach(first, Schedulers.immediate());
+        first.await();
+        assertSame(failure, first.error);
+
+        // A listener which attaches afterwards still hears about it
+        final Recorder late = new Recorder();
+        model.attach(late, Schedulers.immediate()).unsubscribe();
+        late.await();
+        assertSame(failure, late.error);
+        subscription.unsubscribe();
+    }
+}
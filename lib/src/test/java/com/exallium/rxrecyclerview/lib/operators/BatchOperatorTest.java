@@ -0,0 +1,94 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2015 Alex Hart
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.exallium.rxrecyclerview.lib.operators;
+
+import org.junit.Test;
+import rx.observers.TestSubscriber;
+import rx.schedulers.TestScheduler;
+import rx.subjects.PublishSubject;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+
+public class BatchOperatorTest {
+
+    private final TestScheduler scheduler = new TestScheduler();
+    private final PublishSubject<Integer> subject = PublishSubject.create();
+    private final TestSubscriber<List<Integer>> subscriber = new TestSubscriber<>();
+
+    public BatchOperatorTest() {
+        subject.lift(new BatchOperator<Integer>(3, 100, TimeUnit.MILLISECONDS, scheduler))
+                .subscribe(subscriber);
+    }
+
+    @Test
+    public void fullBatchesAreEmittedRightAway() {
+        for (int i = 0; i < 7; i++)
+            subject.onNext(i);
+        assertEquals(Arrays.asList(Arrays.asList(0, 1, 2), Arrays.asList(3, 4, 5)),
+                subscriber.getOnNextEvents());
+
+        // The timer of the first batch must not flush the batch started after it
+        scheduler.advanceTimeBy(100, TimeUnit.MILLISECONDS);
+        assertEquals(3, subscriber.getOnNextEvents().size());
+        assertEquals(Collections.singletonList(6), subscriber.getOnNextEvents().get(2));
+    }
+
+    @Test
+    public void partialBatchesWaitForTheLatency() {
+        subject.onNext(1);
+        scheduler.advanceTimeBy(50, TimeUnit.MILLISECONDS);
+        subject.onNext(2);
+        assertEquals(0, subscriber.getOnNextEvents().size());
+
+        scheduler.advanceTimeBy(50, TimeUnit.MILLISECONDS);
+        assertEquals(Collections.singletonList(Arrays.asList(1, 2)), subscriber.getOnNextEvents());
+
+        // Nothing more while idle
+        scheduler.advanceTimeBy(1, TimeUnit.SECONDS);
+        assertEquals(1, subscriber.getOnNextEvents().size());
+    }
+
+    @Test
+    public void completionFlushesThePendingBatch() {
+        subject.onNext(1);
+        subject.onCompleted();
+        assertEquals(Collections.singletonList(Collections.singletonList(1)),
+                subscriber.getOnNextEvents());
+        subscriber.assertTerminalEvent();
+    }
+
+    @Test
+    public void errorsDropThePendingBatch() {
+        subject.onNext(1);
+        subject.onError(new IllegalStateException());
+        assertEquals(0, subscriber.getOnNextEvents().size());
+        assertEquals(1, subscriber.getOnErrorEvents().size());
+    }
+}
@@ -0,0 +1,206 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2015 Alex Hart
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.exallium.rxrecyclerview.lib.operators;
+
+import com.exallium.rxrecyclerview.lib.GroupComparator;
+import com.exallium.rxrecyclerview.lib.element.EventElement;
+import com.exallium.rxrecyclerview.lib.event.BulkEvent;
+import com.exallium.rxrecyclerview.lib.event.Event;
+import com.exallium.rxrecyclerview.lib.model.ChangeSink;
+import com.exallium.rxrecyclerview.lib.model.ElementModel;
+import org.junit.Test;
+import rx.Observable;
+import rx.functions.Action1;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+
+public class BulkEventTest {
+
+    // Values are grouped by their tens, so an update can move a key to another group
+    private static final GroupComparator<Integer, Integer> TENS = new GroupComparator<Integer, Integer>() {
+        @Override
+        public String getGroupKey(Event<Integer, Integer> event) {
+            return String.valueOf(event.getValue() / 10);
+        }
+
+        @Override
+        public Event<Integer, Integer> getEmptyEvent(Event.TYPE eventType) {
+            return null;
+        }
+
+        @Override
+        public int compare(Event<Integer, Integer> lhs, Event<Integer, Integer> rhs) {
+            int comparison = lhs.getValue().compareTo(rhs.getValue());
+            return comparison != 0 ? comparison : lhs.getKey().compareTo(rhs.getKey());
+        }
+    };
+
+    private static final List<Event<Integer, Integer>> BEFORE = Arrays.asList(
+            add(4, 9), add(3, 13), add(8, 26), add(9, 34));
+
+    // Key 9 passes through group 3 again on its way to group 1
+    private static final List<Event<Integer, Integer>> BULK = Arrays.asList(
+            add(4, 8), add(9, 26), add(9, 34), add(9, 16));
+
+    private static final List<String> AFTER = Arrays.asList(
+            "H0", "4=8", "F0", "H1", "3=13", "9=16", "F1", "H2", "8=26", "F2");
+
+    @Test
+    public void repeatedKeysApplyOnlyTheirLastEvent() {
+        final SizeCheckingSink sink = new SizeCheckingSink();
+        final ElementModel<Integer, Integer> model = new ElementModel<>();
+        for (EventElement<Integer, Integer> element : generate(BEFORE, new BulkEvent<>(BULK)))
+            model.apply(element, sink);
+
+        assertEquals(AFTER, describe(model));
+        assertEquals(model.size(), sink.size);
+    }
+
+    @Test
+    public void repeatedKeysApplyOnlyTheirLastEventInATransaction() {
+        final SizeCheckingSink sink = new SizeCheckingSink();
+        final ElementModel<Integer, Integer> model = new ElementModel<>();
+        final List<EventElement<Integer, Integer>> elements = generate(BEFORE, new BulkEvent<>(BULK));
+        final int bulk = elements.size() - 1;
+        for (EventElement<Integer, Integer> element : elements.subList(0, bulk))
+            model.apply(element, sink);
+        model.applyTransaction(elements.subList(bulk, elements.size()), sink);
+
+        assertEquals(AFTER, describe(model));
+        assertEquals(model.size(), sink.size);
+    }
+
+    @Test
+    public void bulkMatchesTheSameEventsOneByOne() {
+        final Random random = new Random(8);
+        for (int trial = 0; trial < 50; trial++) {
+            final List<Event<Integer, Integer>> before = randomAdds(random, 50);
+            final List<Event<Integer, Integer>> bulk = randomAdds(random, 200);
+
+            final List<Event<Integer, Integer>> oneByOne = new ArrayList<>(before);
+            oneByOne.addAll(bulk);
+            final ElementModel<Integer, Integer> expected = new ElementModel<>();
+            final SizeCheckingSink expectedSink = new SizeCheckingSink();
+            for (EventElement<Integer, Integer> element : generate(oneByOne))
+                expected.apply(element, expectedSink);
+
+            final SizeCheckingSink sink = new SizeCheckingSink();
+            final ElementModel<Integer, Integer> actual = new ElementModel<>();
+            for (EventElement<Integer, Integer> element : generate(before, new BulkEvent<>(bulk)))
+                actual.apply(element, sink);
+
+            assertEquals(describe(expected), describe(actual));
+            assertEquals(actual.size(), sink.size);
+        }
+    }
+
+    private static Event<Integer, Integer> add(int key, int value) {
+        return new Event<>(Event.TYPE.ADD, key, value);
+    }
+
+    private static List<Event<Integer, Integer>> randomAdds(Random random, int count) {
+        final List<Event<Integer, Integer>> events = new ArrayList<>(count);
+        for (int i = 0; i < count; i++)
+            events.add(add(random.nextInt(30), random.nextInt(60)));
+        return events;
+    }
+
+    private static List<EventElement<Integer, Integer>> generate(List<Event<Integer, Integer>> before,
+                                                                 Event<Integer, Integer> last) {
+        final List<Event<Integer, Integer>> events = new ArrayList<>(before);
+        events.add(last);
+        return generate(events);
+    }
+
+    private static List<EventElement<Integer, Integer>> generate(List<Event<Integer, Integer>> events) {
+        final List<EventElement<Integer, Integer>> elements = new ArrayList<>();
+        Observable.from(events)
+                .lift(new ElementGenerationOperator.Builder<>(TENS).hasHeader(true).hasFooter(true).build())
+                .subscribe(new Action1<EventElement<Integer, Integer>>() {
+                    @Override
+                    public void call(EventElement<Integer, Integer> element) {
+                        elements.add(element);
+                    }
+                });
+        return elements;
+    }
+
+    private static List<String> describe(ElementModel<Integer, Integer> model) {
+        final List<String> description = new ArrayList<>(model.size());
+        for (int i = 0; i < model.size(); i++) {
+            final EventElement<Integer, Integer> element = model.get(i);
+            switch (element.getViewType() >> EventElement.MASK_SHIFT) {
+                case EventElement.HEADER_MASK:
+                    description.add("H" + element.getGroup());
+                    break;
+                case EventElement.FOOTER_MASK:
+                    description.add("F" + element.getGroup());
+                    break;
+                default:
+                    description.add(element.getData().getKey() + "=" + element.getData().getValue());
+                    break;
+            }
+        }
+        return Collections.unmodifiableList(description);
+    }
+
+    private static final class SizeCheckingSink implements ChangeSink {
+        int size;
+
+        @Override
+        public void onInserted(int position, int count) {
+            assertInRange(position, size);
+            size += count;
+        }
+
+        @Override
+        public void onRemoved(int position, int count) {
+            assertInRange(position + count, size);
+            size -= count;
+        }
+
+        @Override
+        public void onMoved(int fromPosition, int toPosition) {
+            assertInRange(fromPosition, size - 1);
+            assertInRange(toPosition, size - 1);
+        }
+
+        @Override
+        public void onChanged(int position, int count, Object payload) {
+            assertInRange(position + count, size);
+        }
+
+        private static void assertInRange(int position, int max) {
+            if (position < 0 || position > max)
+                throw new AssertionError(position + " is outside 0.." + max);
+        }
+    }
+}
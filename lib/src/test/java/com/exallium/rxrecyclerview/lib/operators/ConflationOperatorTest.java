@@ -0,0 +1,155 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2015 Alex Hart
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.exallium.rxrecyclerview.lib.operators;
+
+import com.exallium.rxrecyclerview.lib.event.Event;
+import com.exallium.rxrecyclerview.lib.event.TransactionEvent;
+import org.junit.Test;
+import rx.observers.TestSubscriber;
+import rx.schedulers.TestScheduler;
+import rx.subjects.PublishSubject;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+public class ConflationOperatorTest {
+
+    private final TestScheduler scheduler = new TestScheduler();
+    private final PublishSubject<Event<Integer, String>> subject = PublishSubject.create();
+    private final TestSubscriber<Event<Integer, String>> subscriber = new TestSubscriber<>();
+
+    public ConflationOperatorTest() {
+        subject.lift(new ConflationOperator<Integer, String>(100, TimeUnit.MILLISECONDS, 3, scheduler))
+                .subscribe(subscriber);
+    }
+
+    @Test
+    public void onlyTheLatestAddPerKeyIsKept() {
+        subject.onNext(add(1, "a"));
+        subject.onNext(add(2, "b"));
+        subject.onNext(add(1, "c"));
+        assertEquals(0, subscriber.getOnNextEvents().size());
+
+        scheduler.advanceTimeBy(100, TimeUnit.MILLISECONDS);
+        assertEquals(Arrays.asList("1=c", "2=b"), describe(subscriber.getOnNextEvents()));
+    }
+
+    @Test
+    public void addThenRemoveLeavesOnlyTheRemove() {
+        subject.onNext(add(1, "a"));
+        scheduler.advanceTimeBy(100, TimeUnit.MILLISECONDS);
+
+        subject.onNext(add(1, "b"));
+        subject.onNext(remove(1));
+        subject.onNext(add(2, "c"));
+        subject.onNext(remove(2));
+        scheduler.advanceTimeBy(100, TimeUnit.MILLISECONDS);
+
+        assertEquals(Arrays.asList("1=a", "-1", "-2"), describe(subscriber.getOnNextEvents()));
+    }
+
+    @Test
+    public void windowsCloseOnceFull() {
+        for (int key = 0; key < 3; key++)
+            subject.onNext(add(key, "v"));
+        assertEquals(3, subscriber.getOnNextEvents().size());
+
+        // The timer of the full window must not close the next one early
+        scheduler.advanceTimeBy(60, TimeUnit.MILLISECONDS);
+        subject.onNext(add(5, "v"));
+        scheduler.advanceTimeBy(40, TimeUnit.MILLISECONDS);
+        assertEquals(3, subscriber.getOnNextEvents().size());
+        scheduler.advanceTimeBy(60, TimeUnit.MILLISECONDS);
+        assertEquals(4, subscriber.getOnNextEvents().size());
+    }
+
+    @Test
+    public void transactionsFlushTheWindowAndPassThrough() {
+        final TransactionEvent<Integer, String> transaction =
+                new TransactionEvent<>(Arrays.asList(add(2, "t"), remove(1)));
+        subject.onNext(add(1, "a"));
+        subject.onNext(transaction);
+
+        final List<Event<Integer, String>> events = subscriber.getOnNextEvents();
+        assertEquals(2, events.size());
+        assertEquals("1=a", describe(events).get(0));
+        assertSame(transaction, events.get(1));
+    }
+
+    @Test
+    public void conflatedStreamsEndInTheSameState() {
+        final Random random = new Random(7);
+        final Map<Integer, String> expected = new HashMap<>();
+        for (int step = 0; step < 5000; step++) {
+            final int key = random.nextInt(10);
+            if (expected.containsKey(key) && random.nextInt(3) == 0) {
+                subject.onNext(remove(key));
+                expected.remove(key);
+            } else {
+                final String value = Integer.toString(step);
+                subject.onNext(add(key, value));
+                expected.put(key, value);
+            }
+            if (random.nextInt(4) == 0)
+                scheduler.advanceTimeBy(random.nextInt(150), TimeUnit.MILLISECONDS);
+        }
+        subject.onCompleted();
+
+        final Map<Integer, String> actual = new HashMap<>();
+        for (Event<Integer, String> event : subscriber.getOnNextEvents()) {
+            // A key added and removed within one window only shows up as a REMOVE
+            if (event.getType() == Event.TYPE.ADD)
+                actual.put(event.getKey(), event.getValue());
+            else
+                actual.remove(event.getKey());
+        }
+        assertEquals(expected, actual);
+        subscriber.assertTerminalEvent();
+    }
+
+    private static Event<Integer, String> add(int key, String value) {
+        return new Event<>(Event.TYPE.ADD, key, value);
+    }
+
+    private static Event<Integer, String> remove(int key) {
+        return new Event<>(Event.TYPE.REMOVE, key, null);
+    }
+
+    private static List<String> describe(List<Event<Integer, String>> events) {
+        final List<String> description = new ArrayList<>(events.size());
+        for (Event<Integer, String> event : events)
+            description.add(event.getType() == Event.TYPE.ADD
+                    ? event.getKey() + "=" + event.getValue() : "-" + event.getKey());
+        return description;
+    }
+}
@@ -0,0 +1,212 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2015 Alex Hart
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.exallium.rxrecyclerview.lib.operators;
+
+import com.exallium.rxrecyclerview.lib.GroupComparator;
+import com.exallium.rxrecyclerview.lib.element.EventElement;
+import com.exallium.rxrecyclerview.lib.event.Event;
+import org.junit.Test;
+import rx.exceptions.MissingBackpressureException;
+import rx.observers.TestSubscriber;
+import rx.subjects.PublishSubject;
+
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class ElementGenerationOperatorTest {
+
+    // Equal whenever the ids are, like many entity classes
+    private static final class Item {
+        final int id;
+        final String title;
+
+        Item(int id, String title) {
+            this.id = id;
+            this.title = title;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof Item && ((Item) o).id == id;
+        }
+
+        @Override
+        public int hashCode() {
+            return id;
+        }
+    }
+
+    private static final GroupComparator<Integer, Item> BY_ID = new GroupComparator<Integer, Item>() {
+        @Override
+        public String getGroupKey(Event<Integer, Item> event) {
+            return "items";
+        }
+
+        @Override
+        public Event<Integer, Item> getEmptyEvent(Event.TYPE eventType) {
+            return null;
+        }
+
+        @Override
+        public int compare(Event<Integer, Item> lhs, Event<Integer, Item> rhs) {
+            return lhs.getKey().compareTo(rhs.getKey());
+        }
+    };
+
+    @Test
+    public void equalValueStillMakesANewElement() {
+        final PublishSubject<Event<Integer, Item>> events = PublishSubject.create();
+        final TestSubscriber<EventElement<Integer, Item>> subscriber = new TestSubscriber<>();
+        events.lift(new ElementGenerationOperator.Builder<>(BY_ID).build()).subscribe(subscriber);
+
+        final Event<Integer, Item> first = new Event<>(Event.TYPE.ADD, 1, new Item(1, "Draft"));
+        final Event<Integer, Item> renamed = new Event<>(Event.TYPE.ADD, 1, new Item(1, "Final"));
+        events.onNext(first);
+        events.onNext(renamed);
+
+        final List<EventElement<Integer, Item>> elements = subscriber.getOnNextEvents();
+        assertEquals(2, elements.size());
+        assertNotSame(elements.get(0), elements.get(1));
+        assertSame(renamed, elements.get(1).getData());
+    }
+
+    @Test
+    public void resendingTheSameEventReusesItsElement() {
+        final PublishSubject<Event<Integer, Item>> events = PublishSubject.create();
+        final TestSubscriber<EventElement<Integer, Item>> subscriber = new TestSubscriber<>();
+        events.lift(new ElementGenerationOperator.Builder<>(BY_ID).build()).subscribe(subscriber);
+
+        final Event<Integer, Item> event = new Event<>(Event.TYPE.ADD, 1, new Item(1, "Draft"));
+        events.onNext(event);
+        events.onNext(event);
+
+        final List<EventElement<Integer, Item>> elements = subscriber.getOnNextEvents();
+        assertEquals(2, elements.size());
+        assertSame(elements.get(0), elements.get(1));
+    }
+
+    @Test
+    public void aGroupWhichStartsAgainIsDecoratedWithItsNewEvent() {
+        final PublishSubject<Event<Integer, Item>> events = PublishSubject.create();
+        final TestSubscriber<EventElement<Integer, Item>> subscriber = new TestSubscriber<>();
+        events.lift(new ElementGenerationOperator.Builder<>(BY_ID).hasHeader(true).hasFooter(true).build())
+                .subscribe(subscriber);
+
+        events.onNext(new Event<>(Event.TYPE.ADD, 1, new Item(1, "First")));
+        final Event<Integer, Item> removed = new Event<>(Event.TYPE.REMOVE, 1, new Item(1, "First"));
+        events.onNext(removed);
+        final Event<Integer, Item> restarted = new Event<>(Event.TYPE.ADD, 2, new Item(2, "Second"));
+        events.onNext(restarted);
+
+        // data, header, footer for each event
+        final List<EventElement<Integer, Item>> elements = subscriber.getOnNextEvents();
+        assertEquals(9, elements.size());
+        assertSame(removed, elements.get(4).getData());
+        assertSame(removed, elements.get(5).getData());
+        assertSame(restarted, elements.get(7).getData());
+        assertSame(restarted, elements.get(8).getData());
+        assertEquals(EventElement.HEADER_MASK << EventElement.MASK_SHIFT, elements.get(7).getViewType());
+        assertEquals(EventElement.FOOTER_MASK << EventElement.MASK_SHIFT, elements.get(8).getViewType());
+    }
+
+    @Test
+    public void bufferedOperatorOnlyEmitsWhatIsRequested() {
+        final PublishSubject<Event<Integer, Item>> events = PublishSubject.create();
+        final TestSubscriber<EventElement<Integer, Item>> subscriber = new LazySubscriber();
+        events.lift(new ElementGenerationOperator.Builder<>(BY_ID).bufferSize(4).build()).subscribe(subscriber);
+
+        for (int key = 0; key < 3; key++)
+            events.onNext(new Event<>(Event.TYPE.ADD, key, new Item(key, "Item")));
+        assertEquals(0, subscriber.getOnNextEvents().size());
+
+        subscriber.requestMore(2);
+        assertEquals(2, subscriber.getOnNextEvents().size());
+        subscriber.requestMore(2);
+        assertEquals(3, subscriber.getOnNextEvents().size());
+        subscriber.assertNoErrors();
+    }
+
+    @Test
+    public void overflowFailsByDefault() {
+        final PublishSubject<Event<Integer, Item>> events = PublishSubject.create();
+        final TestSubscriber<EventElement<Integer, Item>> subscriber = new LazySubscriber();
+        events.lift(new ElementGenerationOperator.Builder<>(BY_ID).bufferSize(4).build()).subscribe(subscriber);
+
+        // Never blocks, even though nothing is requested
+        for (int key = 0; key < 5; key++)
+            events.onNext(new Event<>(Event.TYPE.ADD, key, new Item(key, "Item")));
+
+        assertEquals(1, subscriber.getOnErrorEvents().size());
+        assertTrue(subscriber.getOnErrorEvents().get(0) instanceof MissingBackpressureException);
+        assertFalse(events.hasObservers());
+    }
+
+    @Test
+    public void dropOldestKeepsTheNewestEvents() {
+        final PublishSubject<Event<Integer, Item>> events = PublishSubject.create();
+        final TestSubscriber<EventElement<Integer, Item>> subscriber = new LazySubscriber();
+        events.lift(new ElementGenerationOperator.Builder<>(BY_ID).bufferSize(4)
+                .overflow(ElementGenerationOperator.OVERFLOW.DROP_OLDEST).build()).subscribe(subscriber);
+
+        for (int key = 0; key < 6; key++)
+            events.onNext(new Event<>(Event.TYPE.ADD, key, new Item(key, "Item")));
+        subscriber.requestMore(10);
+
+        final List<EventElement<Integer, Item>> elements = subscriber.getOnNextEvents();
+        assertEquals(4, elements.size());
+        assertEquals(Integer.valueOf(2), elements.get(0).getData().getKey());
+        subscriber.assertNoErrors();
+    }
+
+    @Test
+    public void conflationKeepsTheLatestEventForEachKey() {
+        final PublishSubject<Event<Integer, Item>> events = PublishSubject.create();
+        final TestSubscriber<EventElement<Integer, Item>> subscriber = new LazySubscriber();
+        events.lift(new ElementGenerationOperator.Builder<>(BY_ID).bufferSize(4)
+                .overflow(ElementGenerationOperator.OVERFLOW.CONFLATE_BY_KEY).build()).subscribe(subscriber);
+
+        for (int i = 0; i < 20; i++)
+            events.onNext(new Event<>(Event.TYPE.ADD, i % 2, new Item(i % 2, "Version " + i)));
+        subscriber.requestMore(10);
+
+        final List<EventElement<Integer, Item>> elements = subscriber.getOnNextEvents();
+        assertEquals(2, elements.size());
+        assertEquals("Version 18", elements.get(0).getData().getValue().title);
+        assertEquals("Version 19", elements.get(1).getData().getValue().title);
+    }
+
+    // Requests nothing until told to
+    private static final class LazySubscriber extends TestSubscriber<EventElement<Integer, Item>> {
+        @Override
+        public void onStart() {
+            request(0);
+        }
+    }
+}
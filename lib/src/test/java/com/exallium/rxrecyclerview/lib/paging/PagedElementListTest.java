@@ -0,0 +1,208 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2015 Alex Hart
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.exallium.rxrecyclerview.lib.paging;
+
+import com.exallium.rxrecyclerview.lib.GroupComparator;
+import com.exallium.rxrecyclerview.lib.element.EventElement;
+import com.exallium.rxrecyclerview.lib.event.Event;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class PagedElementListTest {
+
+    private static final int PAGE_SIZE = 16;
+
+    // Values are grouped by their tens, and all values are below 100
+    private static final GroupComparator<Integer, Integer> TENS = new GroupComparator<Integer, Integer>() {
+        @Override
+        public String getGroupKey(Event<Integer, Integer> event) {
+            return String.valueOf(event.getValue() / 10);
+        }
+
+        @Override
+        public Event<Integer, Integer> getEmptyEvent(Event.TYPE eventType) {
+            return null;
+        }
+
+        @Override
+        public int compare(Event<Integer, Integer> lhs, Event<Integer, Integer> rhs) {
+            int comparison = lhs.getValue().compareTo(rhs.getValue());
+            return comparison != 0 ? comparison : lhs.getKey().compareTo(rhs.getKey());
+        }
+    };
+
+    private final List<Event<Integer, Integer>> rows = new ArrayList<>();
+    private final GroupCounts counts;
+
+    public PagedElementListTest() {
+        final Random random = new Random(14);
+        for (int key = 0; key < 300; key++)
+            rows.add(new Event<>(Event.TYPE.ADD, key, random.nextInt(70) + (random.nextBoolean() ? 0 : 20)));
+        Collections.sort(rows, new Comparator<Event<Integer, Integer>>() {
+            @Override
+            public int compare(Event<Integer, Integer> lhs, Event<Integer, Integer> rhs) {
+                return TENS.compare(lhs, rhs);
+            }
+        });
+
+        final String[] keys = new String[10];
+        final int[] sizes = new int[10];
+        for (int i = 0; i < keys.length; i++)
+            keys[i] = String.valueOf(i);
+        for (Event<Integer, Integer> row : rows)
+            sizes[row.getValue() / 10]++;
+        counts = new GroupCounts(keys, sizes);
+    }
+
+    @Test
+    public void groupCountsLeaveOutEmptyGroups() {
+        final GroupCounts counts = new GroupCounts(new String[] {"a", "b", "c"}, new int[] {2, 0, 3});
+        assertEquals(5, counts.size());
+        assertEquals(2, counts.getGroupCount());
+        assertEquals(-1, counts.indexOf("b"));
+        assertEquals(1, counts.indexOf("c"));
+        assertEquals(2, counts.getStart(1));
+        assertEquals(0, counts.groupAt(1));
+        assertEquals(1, counts.groupAt(2));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void groupCountsMustBeInOrder() {
+        new GroupCounts(new String[] {"b", "a"}, new int[] {1, 1});
+    }
+
+    @Test
+    public void loadedListMatchesTheRowsWithDecorations() {
+        final PagedElementList<Integer, Integer> list = newList(100);
+        for (int page = 0; page < list.getPageCount(); page++)
+            list.putPage(page, load(page));
+
+        final List<String> expected = new ArrayList<>();
+        String group = null;
+        for (Event<Integer, Integer> row : rows) {
+            final String key = TENS.getGroupKey(row);
+            if (!key.equals(group)) {
+                if (group != null)
+                    expected.add("F" + group);
+                expected.add("H" + key);
+                group = key;
+            }
+            expected.add(row.getKey() + "=" + row.getValue());
+        }
+        expected.add("F" + group);
+
+        assertEquals(expected, describe(list));
+        for (int position = 0; position < list.size(); position++)
+            assertEquals(position, list.indexOf(list.get(position)));
+    }
+
+    @Test
+    public void rowsOfMissingPagesArePlaceholders() {
+        final PagedElementList<Integer, Integer> list = newList(2);
+        assertEquals(rows.size() + 2 * counts.getGroupCount(), list.size());
+        assertNull(list.get(1).getData().getKey());
+
+        list.putPage(0, load(0));
+        assertEquals(rows.get(0).getKey(), list.get(1).getData().getKey());
+        // The header takes its Event from the group's first row
+        assertSame(rows.get(0), list.get(0).getData());
+
+        list.putPage(1, load(1));
+        list.putPage(2, load(2));
+        assertFalse(list.isLoaded(0));
+        assertTrue(list.isLoaded(2));
+        assertNull(list.get(1).getData().getKey());
+    }
+
+    @Test
+    public void decorationsAndPlaceholdersAreMadeOnce() {
+        final PagedElementList<Integer, Integer> list = newList(2);
+        final EventElement<Integer, Integer> header = list.get(0);
+        final EventElement<Integer, Integer> placeholder = list.get(1);
+        assertSame(header, list.get(0));
+        assertSame(placeholder, list.get(1));
+        assertSame(placeholder, list.get(2));
+
+        // Until the header's Event changes with the page it comes from
+        list.putPage(0, load(0));
+        assertNotSame(header, list.get(0));
+        assertSame(rows.get(0), list.get(0).getData());
+        assertSame(list.get(0), list.get(0));
+    }
+
+    @Test
+    public void pagesCoverTheirPositions() {
+        final PagedElementList<Integer, Integer> list = newList(100);
+        int position = 0;
+        for (int page = 0; page < list.getPageCount(); page++) {
+            assertEquals(position, list.getFirstPosition(page));
+            for (; position <= list.getLastPosition(page); position++)
+                assertEquals(page, list.getPageAt(position));
+        }
+        assertEquals(list.size(), position);
+    }
+
+    private PagedElementList<Integer, Integer> newList(int maxPages) {
+        return new PagedElementList<>(TENS, counts, PAGE_SIZE, maxPages, true, true);
+    }
+
+    private List<EventElement<Integer, Integer>> load(int page) {
+        final List<EventElement<Integer, Integer>> elements = new ArrayList<>();
+        for (Event<Integer, Integer> row : rows.subList(page * PAGE_SIZE, Math.min(rows.size(), (page + 1) * PAGE_SIZE)))
+            elements.add(new EventElement<>(row, TENS));
+        return elements;
+    }
+
+    private static List<String> describe(PagedElementList<Integer, Integer> list) {
+        final List<String> description = new ArrayList<>(list.size());
+        for (int i = 0; i < list.size(); i++) {
+            final EventElement<Integer, Integer> element = list.get(i);
+            switch (element.getViewType() >> EventElement.MASK_SHIFT) {
+                case EventElement.HEADER_MASK:
+                    description.add("H" + element.getGroup());
+                    break;
+                case EventElement.FOOTER_MASK:
+                    description.add("F" + element.getGroup());
+                    break;
+                default:
+                    description.add(element.getData().getKey() + "=" + element.getData().getValue());
+                    break;
+            }
+        }
+        return description;
+    }
+}
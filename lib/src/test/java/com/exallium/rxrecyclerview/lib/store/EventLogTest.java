@@ -0,0 +1,219 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2015 Alex Hart
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.exallium.rxrecyclerview.lib.store;
+
+import com.exallium.rxrecyclerview.lib.event.BulkEvent;
+import com.exallium.rxrecyclerview.lib.event.Event;
+import com.exallium.rxrecyclerview.lib.event.TransactionEvent;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class EventLogTest {
+
+    private static final Comparator<Long> NATURAL = new Comparator<Long>() {
+        @Override
+        public int compare(Long lhs, Long rhs) {
+            return lhs.compareTo(rhs);
+        }
+    };
+
+    @Rule
+    public final TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void codecsRoundTrip() {
+        for (long value : new long[] {0, 1, -1, Long.MIN_VALUE, Long.MAX_VALUE, 1L << 40})
+            assertEquals(Long.valueOf(value), Codec.LONG.decode(Codec.LONG.encode(value)));
+        assertEquals("h\u00e9llo \u2603", Codec.STRING.decode(Codec.STRING.encode("h\u00e9llo \u2603")));
+    }
+
+    @Test
+    public void reopeningReplaysTheLatestState() throws IOException {
+        final File file = folder.newFile("events");
+        EventLog<Long, String> log = open(file, EventLog.DEFAULT_COMPACTION_THRESHOLD);
+        log.append(add(1, "a"));
+        log.append(add(2, "b"));
+        log.append(new TransactionEvent<>(Arrays.asList(add(1, "c"), remove(2))));
+        log.append(new BulkEvent<>(Arrays.asList(add(3, "d"), add(4, "e"))));
+        log.append(remove(4));
+        log.close();
+
+        log = open(file, EventLog.DEFAULT_COMPACTION_THRESHOLD);
+        final Map<Long, String> expected = new HashMap<>();
+        expected.put(1L, "c");
+        expected.put(3L, "d");
+        assertEquals(expected, replay(log));
+        log.close();
+    }
+
+    @Test
+    public void compactionKeepsTheSameState() throws IOException {
+        final File file = folder.newFile("events");
+        final Random random = new Random(15);
+        final Map<Long, String> expected = new HashMap<>();
+        EventLog<Long, String> log = open(file, 4096);
+        for (int step = 0; step < 5000; step++) {
+            final long key = random.nextInt(200);
+            if (random.nextInt(3) == 0) {
+                log.append(remove(key));
+                expected.remove(key);
+            } else {
+                final String value = "value " + step;
+                log.append(add(key, value));
+                expected.put(key, value);
+            }
+        }
+        assertEquals(expected, replay(log));
+        log.close();
+
+        assertTrue(new File(file.getPath() + ".snapshot").exists());
+        log = open(file, 4096);
+        assertEquals(expected, replay(log));
+        log.compact();
+        assertEquals(expected, replay(log));
+        log.close();
+    }
+
+    @Test
+    public void tornRecordsAreIgnored() throws IOException {
+        final File file = folder.newFile("events");
+        EventLog<Long, String> log = open(file, EventLog.DEFAULT_COMPACTION_THRESHOLD);
+        log.append(add(1, "a"));
+        log.close();
+
+        // A record whose length was never written, as if the process died while appending it
+        final RandomAccessFile raw = new RandomAccessFile(file, "rw");
+        try {
+            // Past the first record's header, 8 byte key and 1 byte value, and the next length
+            raw.seek(13 + 8 + 1 + 4);
+            raw.write(new byte[] {0, 0, 0, 0, 8, 0, 0, 0, 1});
+        } finally {
+            raw.close();
+        }
+
+        log = open(file, EventLog.DEFAULT_COMPACTION_THRESHOLD);
+        assertEquals(Collections.singletonMap(1L, "a"), replay(log));
+        log.append(add(2, "b"));
+        log.close();
+
+        log = open(file, EventLog.DEFAULT_COMPACTION_THRESHOLD);
+        assertEquals(2, replay(log).size());
+        log.close();
+    }
+
+    @Test
+    public void tornRecordFollowedByAShorterAppend() throws IOException {
+        final File file = folder.newFile("events");
+        EventLog<Long, String> log = open(file, EventLog.DEFAULT_COMPACTION_THRESHOLD);
+        log.append(add(1, "5"));
+        log.close();
+
+        // A torn record whose tail happens to hold what looks like a whole record for key 42,
+        // right where a REMOVE appended over it ends
+        final ByteBuffer torn = ByteBuffer.allocate(4 + 17 + 4 + 21);
+        torn.position(4 + 17);
+        torn.putInt(21).put((byte) 0).putInt(8).putInt(4).putLong(42).put("4242".getBytes("UTF-8"));
+        write(file, 13 + 8 + 1, torn.array());
+
+        log = open(file, EventLog.DEFAULT_COMPACTION_THRESHOLD);
+        log.append(remove(7));
+        log.close();
+
+        log = open(file, EventLog.DEFAULT_COMPACTION_THRESHOLD);
+        assertEquals(Collections.singletonMap(1L, "5"), replay(log));
+        log.close();
+    }
+
+    @Test
+    public void malformedRecordsEndTheLog() throws IOException {
+        final File file = folder.newFile("events");
+        EventLog<Long, String> log = open(file, EventLog.DEFAULT_COMPACTION_THRESHOLD);
+        log.append(add(1, "a"));
+        log.close();
+
+        // Long enough for its length, but its key would be a negative number of bytes
+        final ByteBuffer malformed = ByteBuffer.allocate(4 + 21);
+        malformed.putInt(21).put((byte) 0).putInt(-5).putInt(4);
+        write(file, 13 + 8 + 1, malformed.array());
+
+        log = open(file, EventLog.DEFAULT_COMPACTION_THRESHOLD);
+        assertEquals(Collections.singletonMap(1L, "a"), replay(log));
+        log.append(add(2, "b"));
+        log.close();
+
+        log = open(file, EventLog.DEFAULT_COMPACTION_THRESHOLD);
+        assertEquals(2, replay(log).size());
+        log.close();
+    }
+
+    private static void write(File file, long offset, byte[] bytes) throws IOException {
+        final RandomAccessFile raw = new RandomAccessFile(file, "rw");
+        try {
+            raw.seek(offset);
+            raw.write(bytes);
+        } finally {
+            raw.close();
+        }
+    }
+
+    private static EventLog<Long, String> open(File file, long compactionThreshold) throws IOException {
+        return new EventLog.Builder<>(file, Codec.LONG, Codec.STRING, NATURAL)
+                .compactionThreshold(compactionThreshold)
+                .build();
+    }
+
+    private static Map<Long, String> replay(EventLog<Long, String> log) {
+        final List<Event<Long, String>> events = log.replay().toList().toBlocking().single();
+        assertEquals(1, events.size());
+        final Map<Long, String> state = new HashMap<>();
+        for (Event<Long, String> event : ((BulkEvent<Long, String>) events.get(0)).getEvents())
+            state.put(event.getKey(), event.getValue());
+        return state;
+    }
+
+    private static Event<Long, String> add(long key, String value) {
+        return new Event<>(Event.TYPE.ADD, key, value);
+    }
+
+    private static Event<Long, String> remove(long key) {
+        return new Event<>(Event.TYPE.REMOVE, key, null);
+    }
+}